@@ -0,0 +1,33 @@
+import org.openjdk.jmh.profile.GCProfiler ;
+import org.openjdk.jmh.runner.Runner ;
+import org.openjdk.jmh.runner.RunnerException ;
+import org.openjdk.jmh.runner.options.Options ;
+import org.openjdk.jmh.runner.options.OptionsBuilder ;
+
+/**
+ * Runs the game's JMH benchmarks, reporting operations per second alongside the
+ * allocation rate measured by JMH's gc profiler.
+ * Should be run from the project directory, so that res/levels can be found.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class Benchmarks {
+
+	private static final String ALL_BENCHMARKS = ".*Benchmark.*" ;
+	private static final int FORKS = 1 ;
+
+	/**
+	 * @param args	Command-line arguments: optionally, a regular expression choosing which benchmarks to run
+	 * @throws RunnerException
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include((args.length > 0) ? args[0] : ALL_BENCHMARKS)
+				.addProfiler(GCProfiler.class)
+				.forks(FORKS)
+				.build() ;
+
+		new Runner(options).run() ;
+	}
+}
@@ -0,0 +1,134 @@
+import java.io.File ;
+import java.io.IOException ;
+import java.io.PrintWriter ;
+import java.util.Arrays ;
+
+import org.openjdk.jmh.annotations.Param ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+
+/**
+ * Benchmark state choosing the level each benchmark runs against: one of the shipped lvl files,
+ * or a synthetic crowded level filling a map many screens in size with Blocks, Targets and enemies,
+ * to show how each operation scales with the number of Sprites in a level.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+@State(Scope.Benchmark)
+public class LevelState {
+
+	public static final String CROWDED = "crowded" ;
+
+	private static final String LEVEL_PREFIX = "res/levels/" ;
+	private static final String LEVEL_SUFFIX = ".lvl" ;
+	private static final int WIDTH_INDEX = 0 ;
+	private static final int HEIGHT_INDEX = 1 ;
+
+	// the crowded level repeats a pattern every few tiles across an open, walled room
+	private static final int CROWDED_WIDTH = 200 ;
+	private static final int CROWDED_HEIGHT = 150 ;
+	private static final int PATTERN_SIZE = 4 ;
+	private static final int PLAYER_X = 2 ;
+	private static final int PLAYER_Y = 2 ;
+
+	@Param({"0", "1", "2", "3", "4", CROWDED})
+	public String level ;
+
+	private String levelFile ;
+	private String compiledFile ;
+
+	/**
+	 * Finds, or generates, the lvl file for this run's level.
+	 *
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		levelFile = level.equals(CROWDED) ? createCrowdedLevel() : LEVEL_PREFIX + level + LEVEL_SUFFIX ;
+
+		File file = File.createTempFile(level, LevelCompiler.COMPILED_SUFFIX) ;
+		file.deleteOnExit() ;
+		compiledFile = LevelCompiler.compile(levelFile, file.getPath()) ;
+	}
+
+	/**
+	 * @return	the name of the lvl file to benchmark against
+	 */
+	public String getLevelFile() {
+		return levelFile ;
+	}
+
+	/**
+	 * @return	the name of a blvl file compiled from the lvl file
+	 */
+	public String getCompiledFile() {
+		return compiledFile ;
+	}
+
+	/**
+	 * @return	the lines of the lvl file, without its header
+	 */
+	public String[] readSpriteLines() {
+		String[] lines = Loader.loadSprites(levelFile) ;
+		return Arrays.copyOfRange(lines, 1, lines.length) ;
+	}
+
+	/**
+	 * @return	the width and height of the level, as read from the lvl file's header
+	 */
+	public int[] readSize() {
+		String[] header = Loader.loadSprites(levelFile)[0].split(",") ;
+		return new int[] {Integer.parseInt(header[WIDTH_INDEX]), Integer.parseInt(header[HEIGHT_INDEX])} ;
+	}
+
+	private static String createCrowdedLevel() throws IOException {
+		/* Writes a temporary lvl file for a large walled room, floored throughout, *
+		 * with a repeating pattern of Stones, Targets and enemies.                  */
+
+		int width = CROWDED_WIDTH ;
+		int height = CROWDED_HEIGHT ;
+
+		File file = File.createTempFile(CROWDED, LEVEL_SUFFIX) ;
+		file.deleteOnExit() ;
+
+		try (PrintWriter writer = new PrintWriter(file)) {
+			writer.println(width + "," + height) ;
+
+			// terrain first, then features, Blocks and Units, matching the drawing order of the shipped levels
+			for (int y=0; y<height; y++) {
+				for (int x=0; x<width; x++) {
+					boolean isEdge = (x == 0 || y == 0 || x == width - 1 || y == height - 1) ;
+					writer.println((isEdge ? "wall" : "floor") + "," + x + "," + y) ;
+				}
+			}
+			for (int y=1; y<height - 1; y++) {
+				for (int x=1; x<width - 1; x++) {
+					if (x % PATTERN_SIZE == 1 && y % PATTERN_SIZE == 1) {
+						writer.println("target," + x + "," + y) ;
+					}
+				}
+			}
+			for (int y=1; y<height - 1; y++) {
+				for (int x=1; x<width - 1; x++) {
+					if (x % PATTERN_SIZE == 1 && y % PATTERN_SIZE == 3) {
+						writer.println("stone," + x + "," + y) ;
+					}
+				}
+			}
+			writer.println("player," + PLAYER_X + "," + PLAYER_Y) ;
+			for (int y=1; y<height - 1; y++) {
+				for (int x=1; x<width - 1; x++) {
+					if (x % PATTERN_SIZE == 3 && y % PATTERN_SIZE == 0) {
+						writer.println("rogue," + x + "," + y) ;
+					}
+					else if (x % PATTERN_SIZE == 0 && y % PATTERN_SIZE == 2) {
+						writer.println("skeleton," + x + "," + y) ;
+					}
+				}
+			}
+		}
+		return file.getPath() ;
+	}
+}
@@ -0,0 +1,43 @@
+import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.concurrent.TimeUnit ;
+
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.BenchmarkMode ;
+import org.openjdk.jmh.annotations.Mode ;
+import org.openjdk.jmh.annotations.OutputTimeUnit ;
+
+/**
+ * Benchmarks reading a level and building its Sprites, as done on every level start and restart,
+ * from both the text lvl format and the compiled blvl format.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LoaderBenchmark {
+
+	/**
+	 * Loads the level's lines and creates a Sprite for each.
+	 *
+	 * @param level		the level to load
+	 * @return			the created Sprites
+	 */
+	@Benchmark
+	public ArrayList<Sprite> loadLevel(LevelState level) {
+		String[] lines = Loader.loadSprites(level.getLevelFile()) ;
+		return Loader.createSpriteArray(Arrays.copyOfRange(lines, 1, lines.length)) ;
+	}
+
+	/**
+	 * Loads the level's compiled blvl file and creates a Sprite for each record.
+	 *
+	 * @param level		the level to load
+	 * @return			the loaded level
+	 */
+	@Benchmark
+	public LevelData loadCompiledLevel(LevelState level) {
+		return Loader.loadCompiledLevel(level.getCompiledFile()) ;
+	}
+}
@@ -0,0 +1,62 @@
+import java.util.concurrent.TimeUnit ;
+
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.BenchmarkMode ;
+import org.openjdk.jmh.annotations.Level ;
+import org.openjdk.jmh.annotations.Mode ;
+import org.openjdk.jmh.annotations.OutputTimeUnit ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+
+/**
+ * Benchmarks a headless World: single ticks, and moves followed by an undo.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WorldBenchmark {
+
+	private static final int[] MOVES = {Command.MOVE_UP, Command.MOVE_RIGHT,
+										Command.MOVE_DOWN, Command.MOVE_LEFT} ;
+
+	private World world ;
+	private int moveIndex ;
+
+	/**
+	 * Starts a fresh World on the level before each iteration, so that enemies and
+	 * timers do not carry a previous iteration's state.
+	 *
+	 * @param level		the level to benchmark against
+	 */
+	@Setup(Level.Iteration)
+	public void setUp(LevelState level) {
+		world = new World(level.getLevelFile()) ;
+		moveIndex = 0 ;
+	}
+
+	/**
+	 * @return	the World after one tick with no Command
+	 */
+	@Benchmark
+	public World tick() {
+		world.tick(Command.NONE) ;
+		return world ;
+	}
+
+	/**
+	 * Saves and moves in the next direction in turn, then undoes the move.
+	 *
+	 * @return	the World after the move was undone
+	 */
+	@Benchmark
+	public World moveAndUndo() {
+		world.tick(MOVES[moveIndex]) ;
+		world.tick(Command.UNDO) ;
+		moveIndex = (moveIndex + 1) % MOVES.length ;
+		return world ;
+	}
+}
@@ -0,0 +1,73 @@
+import java.util.ArrayList ;
+import java.util.concurrent.TimeUnit ;
+
+import org.openjdk.jmh.annotations.Benchmark ;
+import org.openjdk.jmh.annotations.BenchmarkMode ;
+import org.openjdk.jmh.annotations.Mode ;
+import org.openjdk.jmh.annotations.OutputTimeUnit ;
+import org.openjdk.jmh.annotations.Scope ;
+import org.openjdk.jmh.annotations.Setup ;
+import org.openjdk.jmh.annotations.State ;
+import org.openjdk.jmh.infra.Blackhole ;
+
+/**
+ * Benchmarks the WorldChecker and GoalTracker queries World runs every frame or every move.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WorldCheckerBenchmark {
+
+	private ArrayList<Sprite> spriteArray ;
+	private SpriteGrid grid ;
+	private GoalTracker goals ;
+	private int width ;
+	private int height ;
+
+	/**
+	 * Builds the level's Sprites, SpriteGrid and GoalTracker, as World does when starting a level.
+	 *
+	 * @param level		the level to benchmark against
+	 */
+	@Setup
+	public void setUp(LevelState level) {
+		int[] size = level.readSize() ;
+		width = size[0] ;
+		height = size[1] ;
+
+		spriteArray = Loader.createSpriteArray(level.readSpriteLines()) ;
+		grid = new SpriteGrid(width, height) ;
+		goals = new GoalTracker() ;
+		for (Sprite sprite : spriteArray) {
+			grid.add(sprite) ;
+			if (sprite instanceof Target) {
+				goals.addTarget((Target) sprite) ;
+			}
+		}
+	}
+
+	/**
+	 * Finds the significant Sprite on every tile of the level.
+	 *
+	 * @param blackhole		consumes each Sprite found
+	 */
+	@Benchmark
+	public void significantSpriteOnEveryTile(Blackhole blackhole) {
+		for (int y=0; y<height; y++) {
+			for (int x=0; x<width; x++) {
+				blackhole.consume(WorldChecker.getSignificantSprite(x, y, grid)) ;
+			}
+		}
+	}
+
+	/**
+	 * @return	whether every Target is covered, checked once as at the end of every frame
+	 */
+	@Benchmark
+	public boolean allTargetsCovered() {
+		return goals.allTargetsCovered() ;
+	}
+}
@@ -3,6 +3,9 @@
  * by Eleanor McMurtry
  */
 
+import java.io.File ;
+import java.io.IOException ;
+
 import org.newdawn.slick.AppGameContainer ;
 import org.newdawn.slick.BasicGame ;
 import org.newdawn.slick.GameContainer ;
@@ -12,7 +15,9 @@ import org.newdawn.slick.Input ;
 
 /**
  * Main class for the game.
- * Handles initialisation, input and rendering.
+ * Handles initialisation, input and rendering: keyboard input is turned into one Command
+ * per frame for the World, and the World is drawn by a WorldRenderer.
+ * Every game is recorded, and the P key saves its Replay so far to the replays folder.
  */
 public class App extends BasicGame {
  	/** screen width, in pixels */
@@ -23,8 +28,11 @@ public class App extends BasicGame {
     public static final int TILE_SIZE = 32 ;
     /** default starting level for a game */
 	private static final int LEVEL_INIT = 0 ;
+	/** folder replays are saved to */
+	private static final String REPLAY_DIRECTORY = "replays" ;
     
     private World world ;
+    private WorldRenderer renderer ;
 
     public App() {    	
         super("Shadow Blocks") ;
@@ -38,6 +46,8 @@ public class App extends BasicGame {
     @Override
     public void init(GameContainer gc) throws SlickException {
     		world = new World(LEVEL_INIT) ;
+    		world.startRecording() ;
+    		renderer = new WorldRenderer() ;
     }
 
     /**
@@ -51,9 +61,13 @@ public class App extends BasicGame {
         // Get data about the current input (keyboard state).
         Input input = gc.getInput() ;
         if (input.isKeyPressed(Input.KEY_Q)) {
+        		releaseRenderer() ;
         		gc.exit() ;
         }
-        world.update(input, delta) ;
+        if (input.isKeyPressed(Input.KEY_P)) {
+        		saveReplay() ;
+        }
+        world.update(readCommand(input), delta) ;
     }
 
     /**
@@ -63,7 +77,77 @@ public class App extends BasicGame {
      * @param g The Slick graphics object, used for drawing
      */
     public void render(GameContainer gc, Graphics g) throws SlickException {
-    		world.render(g) ;
+    		// the renderer is gone once the game has begun closing
+    		if (renderer != null) {
+    			renderer.render(world, g) ;
+    		}
+    }
+    
+    /**
+     * Frees the renderer's textures when the window is closed.
+     * 
+     * @return true, so the game always closes
+     */
+    @Override
+    public boolean closeRequested() {
+    		releaseRenderer() ;
+    		return true ;
+    }
+    
+    private void releaseRenderer() {
+    		// gives the renderer's textures back while the GL context still exists
+    		if (renderer == null) {
+    			return ;
+    		}
+    		try {
+    			renderer.release() ;
+    		}
+    		catch (SlickException e) {
+    			e.printStackTrace() ;
+    		}
+    		renderer = null ;
+    }
+    
+    private void saveReplay() {
+    		// writes the game so far to a new file, named by the time it was saved
+    		File directory = new File(REPLAY_DIRECTORY) ;
+    		directory.mkdirs() ;
+    		File replayFile = new File(directory, System.currentTimeMillis() + Replay.SUFFIX) ;
+    		try {
+    			world.getRecording().write(replayFile.getPath()) ;
+    		}
+    		catch (IOException e) {
+    			e.printStackTrace() ;
+    		}
+    }
+    
+    private int readCommand(Input input) {
+    		/* Turns this frame's key presses into a single Command. Level commands take *
+    		 * priority over movement, and later movement keys override earlier ones.    */
+    		if (input.isKeyPressed(Input.KEY_R)) {
+    			return Command.RESTART ;
+    		}
+    		if (input.isKeyPressed(Input.KEY_Z)) {
+    			return Command.UNDO ;
+    		}
+    		if (input.isKeyPressed(Input.KEY_S)) {
+    			return Command.SKIP_LEVEL ;
+    		}
+    		
+    		int command = Command.NONE ;
+    		if (input.isKeyPressed(Input.KEY_UP)) {
+    			command = Command.MOVE_UP ;
+    		}
+    		if (input.isKeyPressed(Input.KEY_DOWN)) {
+    			command = Command.MOVE_DOWN ;
+    		}
+    		if (input.isKeyPressed(Input.KEY_LEFT)) {
+    			command = Command.MOVE_LEFT ;
+    		}
+    		if (input.isKeyPressed(Input.KEY_RIGHT)) {
+    			command = Command.MOVE_RIGHT ;
+    		}
+    		return command ;
     }
 
     /** 
@@ -78,4 +162,4 @@ public class App extends BasicGame {
         app.setDisplayMode(SCREEN_WIDTH, SCREEN_HEIGHT, false) ;
         app.start() ;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
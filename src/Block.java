@@ -1,6 +1,6 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * An abstract subclass of Sprite which represents a Block in the game World.
@@ -21,9 +21,8 @@ public abstract class Block extends Sprite implements Undoable {
 	 * @param image_src			location of Block's image file
 	 * @param x					Unit's x coordinate
 	 * @param y					Unit's y coordinate
-	 * @throws SlickException
 	 */
-	public Block(String name, String image_src, int x, int y) throws SlickException {
+	public Block(String name, String image_src, int x, int y) {
 		super(name, image_src, x, y) ;
 		covering = null ;
 	}
@@ -33,13 +32,14 @@ public abstract class Block extends Sprite implements Undoable {
 	 * Returns true if the move is successful; false if it fails.
 	 * 
 	 * @param direction		the direction in which the Block is attempting to move
-	 * @param spriteArray	ArrayList of all Sprites in the level
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
 	 * @return			a boolean indicating if a move was successfully made
 	 */
-	public boolean bePushed(int direction, ArrayList<Sprite> spriteArray) {
+	public boolean bePushed(int direction, SpriteGrid grid) {
 		
-		Position nextPosition = WorldChecker.getNextPosition(getPosition(), direction) ;
-		Sprite nextSprite = WorldChecker.getSignificantSprite(nextPosition, spriteArray) ;
+		int nextX = WorldChecker.getNextX(getX(), direction) ;
+		int nextY = WorldChecker.getNextY(getY(), direction) ;
+		Sprite nextSprite = WorldChecker.getSignificantSprite(nextX, nextY, grid) ;
 
 		if (nextSprite.stopsMovement() || nextSprite instanceof Block) {
 			return false ;
@@ -52,10 +52,26 @@ public abstract class Block extends Sprite implements Undoable {
 			startCovering(nextSprite) ;
 		}
 		
-		setSpritePosition(nextPosition) ;
+		setSpritePosition(new Position(nextX, nextY)) ;
 		return true ;
 	}
 	
+	/**
+	 * Shows if a push in the direction given would move this Block, as bePushed finds,
+	 * without changing anything.
+	 * 
+	 * @param direction		the direction in which the Block would be pushed
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return			a boolean indicating if a push would move the Block
+	 */
+	public boolean canBePushed(int direction, SpriteGrid grid) {
+		int nextX = WorldChecker.getNextX(getX(), direction) ;
+		int nextY = WorldChecker.getNextY(getY(), direction) ;
+		Sprite nextSprite = WorldChecker.getSignificantSprite(nextX, nextY, grid) ;
+		
+		return !(nextSprite.stopsMovement() || nextSprite instanceof Block) ;
+	}
+	
 	/**
 	 * Returns a pointer to the Switch or Target this Block is covering - will return
 	 * null if the Block is not covering a Sprite of this type.
@@ -73,6 +89,10 @@ public abstract class Block extends Sprite implements Undoable {
 	 * @param newCovering	the Sprite to set as covered.
 	 */
 	public void startCovering(Sprite newCovering) {
+		if (newCovering instanceof Switch || newCovering instanceof Target) {
+			recordChange() ;
+		}
+		
 		if (newCovering instanceof Switch) {
 			Switch nextSwitch = (Switch) newCovering ;
 			nextSwitch.setCovered(true) ;
@@ -83,6 +103,9 @@ public abstract class Block extends Sprite implements Undoable {
 			nextTarget.setCovered(true) ;
 			covering = newCovering ;
 		}
+		if (getGrid() != null) {
+			getGrid().coveringChanged(this) ;
+		}
 	}
 
 	/**
@@ -90,6 +113,10 @@ public abstract class Block extends Sprite implements Undoable {
 	 * sets that Sprite as not covered.
 	 */
 	public void leaveCovering() {
+		if (covering != null) {
+			recordChange() ;
+		}
+		
 		if (covering instanceof Switch) {
 			Switch coveringSwitch = (Switch) covering ;
 			coveringSwitch.setCovered(false) ;
@@ -100,5 +127,83 @@ public abstract class Block extends Sprite implements Undoable {
 			coveringTarget.setCovered(false) ;
 			covering = null ;
 		}
-	}	
+		if (getGrid() != null) {
+			getGrid().coveringChanged(this) ;
+		}
+	}
+	
+	/**
+	 * Writes the id of the Switch or Target this Block covers into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeInt((covering != null) ? covering.getId() : NO_ID) ;
+	}
+	
+	/**
+	 * Reads back the Switch or Target this Block covers from a World snapshot, without setting it covered again.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level, to find the covered Sprite by id
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		int coveringId = in.readInt() ;
+		covering = (coveringId != NO_ID) ? grid.getSprite(coveringId) : null ;
+	}
+	
+	/**
+	 * @return	the Position this Block returns to if the current move is undone
+	 */
+	@Override
+	public Position getUndoPosition() {
+		return getPosition() ;
+	}
+	
+	/**
+	 * @return	the Switch or Target this Block covers if the current move is undone
+	 */
+	@Override
+	public Sprite getUndoCovering() {
+		return covering ;
+	}
+	
+	/**
+	 * Steps Block back to a Position and covered Sprite recorded in its level's MoveJournal.
+	 * 
+	 * @param position	the Position to return to
+	 * @param covering	the Switch or Target to cover again, or null
+	 */
+	@Override
+	public void undo(Position position, Sprite covering) {
+		setSpritePosition(position) ;
+		
+		// adjust covering Switch/Target data
+		leaveCovering() ;
+		startCovering(covering) ;
+	}
+	
+	/**
+	 * Blocks come to rest as soon as they are pushed; differs in subclasses which keep moving.
+	 * 
+	 * @return	a boolean indicating that this Block has finished changing
+	 */
+	@Override
+	public boolean isSettled() {
+		return true ;
+	}
+	
+	/**
+	 * Blocks are indexed in the block layer of their tile.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	@Override
+	public int getLayer() {
+		return SpriteGrid.BLOCK_LAYER ;
+	}
 } 
@@ -1,5 +1,3 @@
-import org.newdawn.slick.SlickException ;
-
 /**
  * A subclass of Sprite which is created by World when Player dies.
  * 
@@ -16,9 +14,18 @@ public class Blood extends Sprite {
 	 * 
 	 * @param x					Blood's x coordinate
 	 * @param y					Blood's y coordinate
-	 * @throws SlickException
 	 */
-	public Blood(int x, int y) throws SlickException {
+	public Blood(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y);
 	}
+	
+	/**
+	 * Blood is drawn over its tile, so is indexed in the overlay layer.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	@Override
+	public int getLayer() {
+		return SpriteGrid.OVERLAY_LAYER ;
+	}
 }
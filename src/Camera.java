@@ -0,0 +1,95 @@
+/**
+ * The part of a World's map shown on screen.
+ *
+ * A map no larger than the screen is shown whole, centred on screen. On a larger map the camera
+ * follows the Player, keeping it in the middle of the screen until the camera reaches an edge of
+ * the map, and stays where it was if the Player has died.
+ *
+ * Holds its origin in pixels: the point of the map, measured from the top-left corner of its
+ * top-left tile, drawn at the top-left corner of the screen. This can be negative when the map
+ * is smaller than the screen.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class Camera {
+
+	private int left ;
+	private int top ;
+
+	/**
+	 * Creates a Camera with its origin at the top-left corner of the map.
+	 */
+	public Camera() {
+		left = 0 ;
+		top = 0 ;
+	}
+
+	/**
+	 * Moves the camera to show the World's Player, or the whole of the World's map if it fits on screen.
+	 *
+	 * @param world		the World being drawn
+	 */
+	public void follow(World world) {
+		Player player = world.getPlayer() ;
+
+		int focusX = (player != null) ? tileCenter(player.getX()) : left + (App.SCREEN_WIDTH /2) ;
+		int focusY = (player != null) ? tileCenter(player.getY()) : top + (App.SCREEN_HEIGHT /2) ;
+
+		left = findOrigin(focusX, world.getWidth(), App.SCREEN_WIDTH) ;
+		top = findOrigin(focusY, world.getHeight(), App.SCREEN_HEIGHT) ;
+	}
+
+	/**
+	 * @param x		an x coordinate on the map, which may lie between tiles
+	 * @return		the pixel x coordinate of the tile's centre on screen
+	 */
+	public float toScreenX(float x) {
+		return (x * App.TILE_SIZE) + (App.TILE_SIZE /2) - left ;
+	}
+
+	/**
+	 * @param y		a y coordinate on the map, which may lie between tiles
+	 * @return		the pixel y coordinate of the tile's centre on screen
+	 */
+	public float toScreenY(float y) {
+		return (y * App.TILE_SIZE) + (App.TILE_SIZE /2) - top ;
+	}
+
+	/* getters */
+	public int getLeft() {
+		return left ;
+	}
+	public int getTop() {
+		return top ;
+	}
+	public int getFirstColumn() {
+		return Math.floorDiv(left, App.TILE_SIZE) ;
+	}
+	public int getLastColumn() {
+		return Math.floorDiv(left + App.SCREEN_WIDTH - 1, App.TILE_SIZE) ;
+	}
+	public int getFirstRow() {
+		return Math.floorDiv(top, App.TILE_SIZE) ;
+	}
+	public int getLastRow() {
+		return Math.floorDiv(top + App.SCREEN_HEIGHT - 1, App.TILE_SIZE) ;
+	}
+	/* ------- */
+
+	private static int findOrigin(int focus, int mapTiles, int screenPixels) {
+		/* Finds the origin on one axis, centring a map which fits on screen as Sprites were *
+		 * always centred, or otherwise centring the focus but never showing past the map.    */
+
+		int mapPixels = mapTiles * App.TILE_SIZE ;
+		if (mapPixels <= screenPixels) {
+			return ((mapTiles/2) * App.TILE_SIZE) + (App.TILE_SIZE /2) - (screenPixels /2) ;
+		}
+		int origin = focus - (screenPixels /2) ;
+		return Math.max(0, Math.min(origin, mapPixels - screenPixels)) ;
+	}
+
+	private static int tileCenter(int coordinate) {
+		return (coordinate * App.TILE_SIZE) + (App.TILE_SIZE /2) ;
+	}
+}
@@ -0,0 +1,447 @@
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.io.DataInputStream ;
+import java.io.DataOutputStream ;
+import java.io.File ;
+import java.io.IOException ;
+import java.io.RandomAccessFile ;
+import java.io.UncheckedIOException ;
+import java.nio.ByteBuffer ;
+import java.nio.channels.FileChannel ;
+import java.nio.charset.StandardCharsets ;
+import java.nio.file.Paths ;
+import java.nio.file.StandardOpenOption ;
+import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.HashMap ;
+
+/**
+ * Streams the Sprites of a level from a chunk-indexed clvl file, one chunk of the map at a time,
+ * so that only the part of a level being played is held in memory, however large the level is.
+ *
+ * The chunks within LOAD_RADIUS chunks of the Player, or of any other Sprite which keeps the chunks
+ * around it loaded such as sliding Ice, are loaded into the level; those further than UNLOAD_RADIUS
+ * chunks from all of them are unloaded. An unloaded chunk's Sprites are written to a spill file and
+ * removed from the level, so when the chunk is loaded again it is read back from the spill file,
+ * as it was left, rather than from the level file. Nothing can move into a chunk which is not loaded.
+ *
+ * The level's Targets and Switches are counted from the level file's palette when it is prepared,
+ * so its GoalTracker and SignalBoard count those not yet loaded.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class ChunkStore {
+
+	// chunks within this many chunks of a Sprite keeping chunks loaded are loaded
+	private static final int LOAD_RADIUS = 1 ;
+	// chunks further than this many chunks from every such Sprite are unloaded
+	private static final int UNLOAD_RADIUS = 2 ;
+	// the number of ticks between checks of which chunks should be loaded
+	private static final int STREAM_INTERVAL = 10 ;
+
+	private static final int NEVER_LOADED = 0 ;
+	private static final int LOADED = 1 ;
+	private static final int SPILLED = 2 ;
+
+	private static final String SPILL_PREFIX = "chunks" ;
+	private static final String SPILL_SUFFIX = ".spill" ;
+	private static final String SPILL_MODE = "rw" ;
+	private static final int SHORT_MASK = 0xFFFF ;
+	private static final int BYTE_MASK = 0xFF ;
+	private static final int COVERING = 1 ;
+	private static final int COVERED = 2 ;
+
+	private int width ;
+	private int height ;
+	private int startX ;
+	private int startY ;
+
+	// the level file, its palette, and each chunk's records within it
+	private ByteBuffer levelFile ;
+	private String[] palette ;
+	private int[] paletteCounts ;
+	private int[] chunkStarts ;
+	private int[] chunkCounts ;
+	private int recordsStart ;
+
+	// the state of each chunk, and where each spilled chunk is held in the spill file
+	private byte[] states ;
+	private long[] spillOffsets ;
+	private int[] spillLengths ;
+	private int[] spillCapacities ;
+	private File spillFile ;
+	private RandomAccessFile spill ;
+
+	// the palette entries of Sprites written to the spill file, which may add to the level file's
+	private ArrayList<String> spillPalette ;
+	private HashMap<String, Integer> spillTypes ;
+
+	private LevelData level ;
+	private int loadedCount ;
+
+	// the chunks to keep loaded as of the last check, and the Sprites of one chunk, reused every check
+	private boolean[] wanted ;
+	private boolean[] kept ;
+	private ArrayList<Sprite> chunkSprites ;
+
+	/**
+	 * Opens a clvl file, reading its header, palette and chunk index but no Sprites.
+	 *
+	 * @param fileName	name of a clvl file written by LevelCompiler
+	 * @throws IOException
+	 */
+	public ChunkStore(String fileName) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			levelFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) ;
+		}
+		if (levelFile.getInt() != LevelCompiler.CHUNKED_MAGIC
+				|| (levelFile.getShort() & SHORT_MASK) != LevelCompiler.CHUNKED_VERSION) {
+			throw new IOException("not a chunked level: " + fileName) ;
+		}
+		width = levelFile.getShort() & SHORT_MASK ;
+		height = levelFile.getShort() & SHORT_MASK ;
+		startX = levelFile.getShort() & SHORT_MASK ;
+		startY = levelFile.getShort() & SHORT_MASK ;
+
+		palette = new String[levelFile.get() & BYTE_MASK] ;
+		paletteCounts = new int[palette.length] ;
+		spillPalette = new ArrayList<>() ;
+		spillTypes = new HashMap<>() ;
+		for (int type=0; type<palette.length; type++) {
+			byte[] entry = new byte[levelFile.get() & BYTE_MASK] ;
+			levelFile.get(entry) ;
+			palette[type] = new String(entry, StandardCharsets.US_ASCII) ;
+			paletteCounts[type] = levelFile.getInt() ;
+		}
+
+		int chunkCount = chunkColumns() * chunkRows() ;
+		chunkStarts = new int[chunkCount] ;
+		chunkCounts = new int[chunkCount] ;
+		for (int chunk=0; chunk<chunkCount; chunk++) {
+			chunkStarts[chunk] = levelFile.getInt() ;
+			chunkCounts[chunk] = levelFile.getInt() ;
+		}
+		recordsStart = levelFile.position() ;
+
+		states = new byte[chunkCount] ;
+		spillOffsets = new long[chunkCount] ;
+		spillLengths = new int[chunkCount] ;
+		spillCapacities = new int[chunkCount] ;
+		wanted = new boolean[chunkCount] ;
+		kept = new boolean[chunkCount] ;
+		chunkSprites = new ArrayList<>() ;
+	}
+
+	/**
+	 * Starts streaming a prepared level: counts its Targets and Switches, all still unloaded, then
+	 * loads the chunks around the Player's starting tile. Called by LevelData as it is prepared.
+	 *
+	 * @param level		the level this ChunkStore streams, with its structures built but no Sprites
+	 */
+	public void attach(LevelData level) {
+		this.level = level ;
+
+		// build one Sprite of each palette entry, to tell which are Targets and Switches
+		for (int type=0; type<palette.length; type++) {
+			String[] spriteLine = LevelCompiler.unpackPaletteEntry(palette[type]) ;
+			Sprite sample = Loader.createSprite(spriteLine, 0, 0) ;
+
+			if (sample instanceof Target) {
+				level.getGoals().addUnloadedTargets(paletteCounts[type]) ;
+			}
+			else if (sample instanceof Switch) {
+				level.getBoard().addUnloadedSources(((Switch) sample).getChannel(), paletteCounts[type]) ;
+			}
+		}
+
+		markAround(startX, startY, LOAD_RADIUS, wanted) ;
+		for (int chunk=0; chunk<states.length; chunk++) {
+			if (wanted[chunk]) {
+				load(chunk) ;
+			}
+		}
+	}
+
+	/**
+	 * Loads the chunks now near a Sprite which keeps the chunks around it loaded, and unloads those
+	 * now far from all of them. Only checks every STREAM_INTERVAL ticks. Called by World after each tick.
+	 *
+	 * @param tick	the number of ticks the level has been played for
+	 */
+	public void update(long tick) {
+		if (tick % STREAM_INTERVAL != 0) {
+			return ;
+		}
+
+		Arrays.fill(wanted, false) ;
+		Arrays.fill(kept, false) ;
+		ArrayList<Sprite> sprites = level.getSprites() ;
+		for (int i=0; i<sprites.size(); i++) {
+			Sprite sprite = sprites.get(i) ;
+			if (sprite.keepsChunkLoaded()) {
+				markAround(sprite.getX(), sprite.getY(), LOAD_RADIUS, wanted) ;
+				markAround(sprite.getX(), sprite.getY(), UNLOAD_RADIUS, kept) ;
+			}
+		}
+
+		// with nothing to follow, such as once the Player has died, leave every chunk as it is
+		boolean anyWanted = false ;
+		for (int chunk=0; chunk<states.length; chunk++) {
+			anyWanted |= wanted[chunk] ;
+		}
+		if (!anyWanted) {
+			return ;
+		}
+
+		for (int chunk=0; chunk<states.length; chunk++) {
+			if (states[chunk] == LOADED && !kept[chunk]) {
+				unload(chunk) ;
+			}
+			else if (states[chunk] != LOADED && wanted[chunk]) {
+				load(chunk) ;
+			}
+		}
+	}
+
+	/**
+	 * Deletes the spill file. The ChunkStore cannot be used afterwards.
+	 */
+	public void close() {
+		try {
+			if (spill != null) {
+				spill.close() ;
+				spill = null ;
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace() ;
+		}
+		if (spillFile != null) {
+			spillFile.delete() ;
+		}
+	}
+
+	/* getters */
+	public int getWidth() {
+		return width ;
+	}
+	public int getHeight() {
+		return height ;
+	}
+	public int getLoadedCount() {
+		return loadedCount ;
+	}
+	/* ------- */
+
+	private void load(int chunk) {
+		/* Creates the Sprites of a chunk, as they were in the level file or as they were left *
+		 * when the chunk was unloaded, then adds them to the level.                           */
+
+		chunkSprites.clear() ;
+		if (states[chunk] == SPILLED) {
+			readSpilled(chunk, chunkSprites) ;
+		}
+		else {
+			for (int i=0; i<chunkCounts[chunk]; i++) {
+				int record = levelFile.getInt(recordsStart + ((chunkStarts[chunk] + i) * Integer.BYTES)) ;
+				String[] spriteLine = LevelCompiler.unpackPaletteEntry(palette[record >>> LevelCompiler.TYPE_SHIFT]) ;
+				int tileX = (record >>> LevelCompiler.X_SHIFT) & LevelCompiler.COORDINATE_MASK ;
+				int tileY = record & LevelCompiler.COORDINATE_MASK ;
+
+				chunkSprites.add(Loader.createSprite(spriteLine, tileX, tileY)) ;
+			}
+		}
+
+		SpriteGrid grid = level.getGrid() ;
+		grid.loadChunk(chunk) ;
+		for (int i=0; i<chunkSprites.size(); i++) {
+			grid.add(chunkSprites.get(i)) ;
+		}
+		for (int i=0; i<chunkSprites.size(); i++) {
+			attachSprite(chunkSprites.get(i)) ;
+		}
+		states[chunk] = LOADED ;
+		loadedCount++ ;
+	}
+
+	private void unload(int chunk) {
+		/* Writes a chunk's Sprites to the spill file, then removes them from the level. */
+
+		SpriteGrid grid = level.getGrid() ;
+		grid.getSpritesInChunk(chunk, chunkSprites) ;
+		writeSpilled(chunk, chunkSprites) ;
+
+		for (int i=0; i<chunkSprites.size(); i++) {
+			Sprite sprite = chunkSprites.get(i) ;
+			if (sprite instanceof Door) {
+				level.getBoard().unsubscribe((Door) sprite) ;
+			}
+			grid.forget(sprite) ;
+		}
+		level.getSprites().removeIf(sprite -> !sprite.isInLevel()) ;
+		level.getPartitions().removeLeft() ;
+
+		grid.unloadChunk(chunk) ;
+		states[chunk] = SPILLED ;
+		loadedCount-- ;
+	}
+
+	private void attachSprite(Sprite sprite) {
+		// joins a loaded Sprite to the level's structures, as LevelData.prepare does for a whole level
+		level.getSprites().add(sprite) ;
+		level.getPartitions().add(sprite) ;
+		if (sprite instanceof Mage) {
+			((Mage) sprite).setField(level.getField()) ;
+		}
+		if (sprite instanceof Undoable) {
+			sprite.setJournal(level.getJournal()) ;
+		}
+		if (sprite instanceof Switch) {
+			((Switch) sprite).setBoard(level.getBoard()) ;
+		}
+		if (sprite instanceof Door) {
+			level.getBoard().subscribe((Door) sprite) ;
+		}
+		if (sprite instanceof Target) {
+			((Target) sprite).setTracker(level.getGoals()) ;
+		}
+		if (sprite instanceof Timed) {
+			((Timed) sprite).setWheel(level.getWheel()) ;
+		}
+	}
+
+	private void writeSpilled(int chunk, ArrayList<Sprite> sprites) {
+		/* Writes each Sprite as its id, palette entry, coordinates, direction and covered state, *
+		 * reusing the chunk's last place in the spill file if the chunk still fits there.        */
+
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream() ;
+			DataOutputStream out = new DataOutputStream(bytes) ;
+			EntityStore store = level.getGrid().getStore() ;
+			out.writeInt(sprites.size()) ;
+			for (int i=0; i<sprites.size(); i++) {
+				Sprite sprite = sprites.get(i) ;
+				out.writeInt(sprite.getId()) ;
+				out.writeShort(spillType(Loader.describeSprite(sprite))) ;
+				out.writeShort(sprite.getX()) ;
+				out.writeShort(sprite.getY()) ;
+				out.writeByte((sprite instanceof Unit) ? ((Unit) sprite).getDirection() : Sprite.NO_DIRECTION) ;
+				out.writeByte(coveredState(store, sprite.getSlot())) ;
+			}
+			out.flush() ;
+
+			if (spill == null) {
+				spillFile = File.createTempFile(SPILL_PREFIX, SPILL_SUFFIX) ;
+				spillFile.deleteOnExit() ;
+				spill = new RandomAccessFile(spillFile, SPILL_MODE) ;
+			}
+			if (bytes.size() > spillCapacities[chunk]) {
+				spillOffsets[chunk] = spill.length() ;
+				spillCapacities[chunk] = bytes.size() ;
+			}
+			spill.seek(spillOffsets[chunk]) ;
+			spill.write(bytes.toByteArray()) ;
+			spillLengths[chunk] = bytes.size() ;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e) ;
+		}
+	}
+
+	private void readSpilled(int chunk, ArrayList<Sprite> sprites) {
+		/* Recreates the Sprites of a spilled chunk with the ids and state they were written with, *
+		 * then sets each Block covering a Switch or Target to cover it again.                      */
+
+		try {
+			byte[] bytes = new byte[spillLengths[chunk]] ;
+			spill.seek(spillOffsets[chunk]) ;
+			spill.readFully(bytes) ;
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes)) ;
+
+			int count = in.readInt() ;
+			boolean[] covering = new boolean[count] ;
+			for (int i=0; i<count; i++) {
+				int id = in.readInt() ;
+				String[] spriteLine = LevelCompiler.unpackPaletteEntry(spillPalette.get(in.readShort() & SHORT_MASK)) ;
+				Sprite sprite = Loader.createSprite(spriteLine, in.readShort() & SHORT_MASK, in.readShort() & SHORT_MASK) ;
+				int direction = in.readByte() ;
+				int state = in.readByte() ;
+
+				sprite.setId(id) ;
+				if (sprite instanceof Unit) {
+					((Unit) sprite).setDirection(direction) ;
+				}
+				if (sprite instanceof Target) {
+					((Target) sprite).setCovered((state & COVERED) != 0) ;
+				}
+				if (sprite instanceof Switch) {
+					((Switch) sprite).setCovered((state & COVERED) != 0) ;
+				}
+				covering[i] = (state & COVERING) != 0 ;
+				sprites.add(sprite) ;
+			}
+
+			// the Switches and Targets are already covered, and counted as covered, so this only links them
+			for (int i=0; i<count; i++) {
+				if (covering[i]) {
+					Block block = (Block) sprites.get(i) ;
+					block.startCovering(findFeature(sprites, block.getX(), block.getY())) ;
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e) ;
+		}
+	}
+
+	private int spillType(String entry) {
+		// the index of a palette entry in the spill palette, adding it if it is new
+		Integer type = spillTypes.get(entry) ;
+		if (type == null) {
+			type = spillPalette.size() ;
+			spillPalette.add(entry) ;
+			spillTypes.put(entry, type) ;
+		}
+		return type ;
+	}
+
+	private static int coveredState(EntityStore store, int slot) {
+		// read from the store's columns, while the Sprite is still in the level
+		if (store.hasFlag(slot, EntityStore.FLAG_BLOCK)) {
+			return (store.getCovering(slot) != Sprite.NO_ID) ? COVERING : 0 ;
+		}
+		return store.hasFlag(slot, EntityStore.FLAG_COVERED) ? COVERED : 0 ;
+	}
+
+	private static Sprite findFeature(ArrayList<Sprite> sprites, int x, int y) {
+		// the Switch or Target among a chunk's Sprites on the given tile
+		for (Sprite sprite : sprites) {
+			if ((sprite instanceof Switch || sprite instanceof Target) && sprite.getPosition().isAt(x, y)) {
+				return sprite ;
+			}
+		}
+		return null ;
+	}
+
+	private void markAround(int x, int y, int radius, boolean[] chunks) {
+		// marks every chunk within the given number of chunks of a tile's chunk
+		int chunkX = x >> SpriteGrid.CHUNK_BITS ;
+		int chunkY = y >> SpriteGrid.CHUNK_BITS ;
+
+		for (int row=Math.max(chunkY - radius, 0); row<=Math.min(chunkY + radius, chunkRows() - 1); row++) {
+			for (int column=Math.max(chunkX - radius, 0); column<=Math.min(chunkX + radius, chunkColumns() - 1); column++) {
+				chunks[(row * chunkColumns()) + column] = true ;
+			}
+		}
+	}
+
+	private int chunkColumns() {
+		return (width + SpriteGrid.CHUNK_SIZE - 1) >> SpriteGrid.CHUNK_BITS ;
+	}
+
+	private int chunkRows() {
+		return (height + SpriteGrid.CHUNK_SIZE - 1) >> SpriteGrid.CHUNK_BITS ;
+	}
+}
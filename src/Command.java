@@ -0,0 +1,31 @@
+/**
+ * Static class listing the commands which drive a World, one per frame.
+ * 
+ * Commands are plain ints so a World can be run from any source - the keyboard, a recorded
+ * replay, or a simulation - without depending on Slick input. The four movement commands
+ * share their values with the Sprite direction constants.
+ * 
+ * @author Maxim Kirkman
+ *
+ */
+public class Command {
+
+	public static final int NONE = Sprite.NO_DIRECTION ;
+	public static final int MOVE_UP = Sprite.DIRECTION_UP ;
+	public static final int MOVE_RIGHT = Sprite.DIRECTION_RIGHT ;
+	public static final int MOVE_DOWN = Sprite.DIRECTION_DOWN ;
+	public static final int MOVE_LEFT = Sprite.DIRECTION_LEFT ;
+	public static final int UNDO = 5 ;
+	public static final int RESTART = 6 ;
+	public static final int SKIP_LEVEL = 7 ;
+	
+	/**
+	 * Checks if a command asks the Player to move.
+	 * 
+	 * @param command	the command to check
+	 * @return			a boolean indicating if the command is one of the four movement commands
+	 */
+	public static boolean isMove(int command) {
+		return (command >= MOVE_UP && command <= MOVE_LEFT) ;
+	}
+}
@@ -1,4 +1,6 @@
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * A subclass of Sprite which can never be moved through,
@@ -9,7 +11,7 @@ import org.newdawn.slick.SlickException ;
  */
 public class CrackedWall extends Sprite {
 
-	private static final String NAME = "cracked_wall" ;
+	private static final String NAME = "cracked" ;
 	private static final String IMAGE_SOURCE = "res/cracked_wall.png" ;
 	
 	private boolean isExploding ;
@@ -19,9 +21,8 @@ public class CrackedWall extends Sprite {
 	 * 
 	 * @param x					CrackedWall's x coordinate
 	 * @param y					CrackedWall's y coordinate
-	 * @throws SlickException
 	 */
-	public CrackedWall(int x, int y) throws SlickException {
+	public CrackedWall(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		isExploding = false ;
 	}
@@ -43,6 +44,9 @@ public class CrackedWall extends Sprite {
 	 */
 	public void explode() {
 		isExploding = true ;
+		if (getGrid() != null) {
+			getGrid().explosionEnding(this) ;
+		}
 	}
 	
 	/**
@@ -54,4 +58,38 @@ public class CrackedWall extends Sprite {
 	public boolean isExploding() {
 		return isExploding ;
 	}
+	
+	/**
+	 * Writes whether the CrackedWall is exploding into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeBoolean(isExploding) ;
+	}
+	
+	/**
+	 * Reads back whether the CrackedWall is exploding from a World snapshot.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		isExploding = in.readBoolean() ;
+	}
+	
+	/**
+	 * Shows if a Sprite never moves or changes how it is drawn while it is in a level.
+	 * Always returns true for CrackedWalls, as they never move, and leave the level when they explode.
+	 * 
+	 * @return a boolean indicating that this Sprite can be drawn into a cached background
+	 */
+	@Override
+	public boolean isStatic() {
+		return true ;
+	}
 }
@@ -1,43 +1,57 @@
-import org.newdawn.slick.SlickException ;
-
 /**
- * A subclass of Sprite which cannot be moved through unless it is 'opened' by the level's
- * Switch being activated, in which case it is not rendered and can be moved through.
+ * A subclass of Sprite which cannot be moved through unless it is 'opened' by Switches on its
+ * channel being activated, in which case it is not rendered and can be moved through.
+ * A Door's gate decides if it opens when any of its channel's Switches are covered, or only all.
  * 
  * @author Maxim Kirkman
  *
  */
 public class Door extends Sprite {
 
+	public static final int GATE_ANY = 0 ;
+	public static final int GATE_ALL = 1 ;
+	
 	private static final String NAME = "door" ;
 	private static final String IMAGE_SOURCE = "res/door.png" ;
 	
 	private boolean isOpen ;
+	private String channel ;
+	private int gate ;
 
 	/**
-	 * Creates a closed Door Sprite at the given tile coordinates.
+	 * Creates a closed Door Sprite at the given tile coordinates, opened by any Switch on the default channel.
+	 * 
+	 * @param x					Door's x coordinate
+	 * @param y					Door's y coordinate
+	 */
+	public Door(int x, int y) {
+		this(x, y, SignalBoard.DEFAULT_CHANNEL, GATE_ANY) ;
+	}
+	
+	/**
+	 * Creates a closed Door Sprite at the given tile coordinates, listening to the given channel.
 	 * 
 	 * @param x					Door's x coordinate
 	 * @param y					Door's y coordinate
-	 * @throws SlickException
+	 * @param channel			name of the channel this Door listens to
+	 * @param gate				GATE_ANY to open while any Switch on the channel is covered,
+	 * 							or GATE_ALL to open only while all of them are
 	 */
-	public Door(int x, int y) throws SlickException {
+	public Door(int x, int y, String channel, int gate) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		isOpen = false ;
+		this.channel = channel ;
+		this.gate = gate ;
 	}
 
 	/**
-	 * Renders this Door's image on the screen in the standard way if it is closed;
-	 * if the Door is open, does nothing.
+	 * Shows if this Door should currently be drawn: only when it is closed.
+	 * 
+	 * @return a boolean indicating if this Door is closed
 	 */
 	@Override
-	public void render(int width, int height) {
-		if (!isOpen) {
-			super.render(width, height) ;
-		}
-		else {
-			return ;
-		}
+	public boolean isVisible() {
+		return !isOpen ;
 	}
 	
 	/**
@@ -62,5 +76,27 @@ public class Door extends Sprite {
 	 */
 	public void openDoor(boolean isOpen) {
 		this.isOpen = isOpen ;
+		if (getGrid() != null) {
+			getGrid().noteChange(getX(), getY()) ;
+		}
+	}
+	
+	/* getters */
+	public String getChannel() {
+		return channel ;
+	}
+	public int getGate() {
+		return gate ;
+	}
+	/* ------- */
+	
+	/**
+	 * Doors are indexed in the feature layer of their tile.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	@Override
+	public int getLayer() {
+		return SpriteGrid.FEATURE_LAYER ;
 	}
 }
@@ -0,0 +1,128 @@
+import java.util.ArrayList ;
+import java.util.concurrent.ForkJoinPool ;
+import java.util.concurrent.RecursiveAction ;
+
+/**
+ * Moves the enemies of a level allowed to move after a Player move, in two phases.
+ *
+ * First every enemy plans its step, reading the level but changing nothing: on a level with
+ * enough moving enemies the plans are made in parallel on the common fork-join pool, otherwise
+ * on the calling thread. Then the steps are taken one at a time, in the order of the level's
+ * Units. A plan holds only if nothing near the enemy has changed since it was made, so while
+ * the steps are taken the level's SpriteGrid logs the tiles changed by each, such as those a
+ * pushed Block leaves and enters, or a Door which opens; an enemy whose plan may have read a
+ * changed tile plans again as it takes its step.
+ *
+ * The rule is therefore that enemies move as if one after another in the order of the level's
+ * Units, each seeing the moves of those before it, and a level plays out the same whether its
+ * plans are made on one thread or many.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class EnemyStep {
+
+	/** the fewest enemies moving at once whose steps are planned in parallel */
+	public static final int PARALLEL_THRESHOLD = 1024 ;
+	// the most enemies one fork-join task plans itself, rather than splitting between two
+	private static final int TASK_SIZE = 256 ;
+	// the furthest any enemy looks from its own tile on either axis when planning its step
+	private static final int PLAN_RADIUS = 2 ;
+
+	private static final int INIT_CAPACITY = 64 ;
+
+	// the enemies allowed to move this step, and the plan each has made
+	private ArrayList<Unit> movers ;
+	private int[] plans ;
+
+	/**
+	 * Creates an EnemyStep, reused by a World for each step its enemies take.
+	 */
+	public EnemyStep() {
+		movers = new ArrayList<>() ;
+		plans = new int[INIT_CAPACITY] ;
+	}
+
+	/**
+	 * Moves every enemy allowed to move: plans each enemy's step, then takes the steps in order,
+	 * planning again any step whose plan no longer holds.
+	 *
+	 * @param enemies	the level's Units other than Players, in order
+	 * @param grid		SpriteGrid indexing all Sprites in the level by tile
+	 */
+	public void run(ArrayList<Unit> enemies, SpriteGrid grid) {
+		movers.clear() ;
+		for (int i=0; i<enemies.size(); i++) {
+			if (enemies.get(i).canMove()) {
+				movers.add(enemies.get(i)) ;
+			}
+		}
+		if (movers.isEmpty()) {
+			return ;
+		}
+		if (plans.length < movers.size()) {
+			plans = new int[Math.max(plans.length * 2, movers.size())] ;
+		}
+
+		// phase one: plan every step against the level as it is
+		if (movers.size() >= PARALLEL_THRESHOLD) {
+			ForkJoinPool.commonPool().invoke(new PlanTask(grid, 0, movers.size())) ;
+		}
+		else {
+			plan(grid, 0, movers.size()) ;
+		}
+
+		// phase two: take the steps in order, taking afresh any step planned near a tile since changed
+		grid.startChangeLog() ;
+		for (int i=0; i<movers.size(); i++) {
+			Unit enemy = movers.get(i) ;
+
+			if (plans[i] == Unit.NO_PLAN || grid.hasChangeNear(enemy.getX(), enemy.getY(), PLAN_RADIUS)) {
+				enemy.update(Command.NONE, World.TICK_LENGTH, grid) ;
+			}
+			else {
+				enemy.applyMove(plans[i], grid) ;
+			}
+		}
+		grid.stopChangeLog() ;
+	}
+
+	/**
+	 * @return	the number of enemies allowed to move in the last step taken
+	 */
+	public int getMoverCount() {
+		return movers.size() ;
+	}
+
+	private void plan(SpriteGrid grid, int start, int end) {
+		for (int i=start; i<end; i++) {
+			plans[i] = movers.get(i).planMove(grid) ;
+		}
+	}
+
+	private class PlanTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L ;
+
+		private SpriteGrid grid ;
+		private int start ;
+		private int end ;
+
+		private PlanTask(SpriteGrid grid, int start, int end) {
+			this.grid = grid ;
+			this.start = start ;
+			this.end = end ;
+		}
+
+		@Override
+		protected void compute() {
+			// plans a small range here, or splits a larger one in two
+			if (end - start <= TASK_SIZE) {
+				plan(grid, start, end) ;
+				return ;
+			}
+			int middle = (start + end) >>> 1 ;
+			invokeAll(new PlanTask(grid, start, middle), new PlanTask(grid, middle, end)) ;
+		}
+	}
+}
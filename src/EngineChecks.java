@@ -0,0 +1,191 @@
+import java.util.ArrayList ;
+
+/**
+ * Checks of the engine behaviour that headless replays rely on, run without a display. Each
+ * check builds a small scene, runs it, and reports whether it behaved as expected.
+ *
+ * Run with no arguments; exits with a failure status if any check fails.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class EngineChecks {
+
+	private static int failures = 0 ;
+
+	/**
+	 * Runs every check.
+	 *
+	 * @param args	Command-line arguments (ignored)
+	 */
+	public static void main(String[] args) {
+		check("cascaded timers fire in the order they were scheduled", checkCascadedTimerOrder()) ;
+		check("sliding Ice keeps a Switch covered while drawn crossing it", checkIceCrossesSwitch()) ;
+		check("only Rogues and Mages step after a Player move", checkEnemyMovers()) ;
+		check("EntityStore columns follow covering, explosions and recycled slots", checkStoreColumns()) ;
+
+		System.out.println((failures == 0) ? "all checks passed" : failures + " checks failed") ;
+		if (failures > 0) {
+			System.exit(1) ;
+		}
+	}
+
+	private static boolean checkCascadedTimerOrder() {
+		/* A timer set far ahead starts in the second wheel, and is brought down into the first *
+		 * only after a later timer due on the same tick has been set straight into it.        */
+
+		TimerWheel wheel = new TimerWheel() ;
+		ArrayList<Integer> fired = new ArrayList<>() ;
+		CheckTimed early = new CheckTimed(1, fired) ;
+		CheckTimed late = new CheckTimed(2, fired) ;
+
+		wheel.schedule(early.getTimer(), 100) ;
+		for (int i=0; i<60; i++) {
+			wheel.advance(null) ;
+		}
+		wheel.schedule(late.getTimer(), 40) ;
+		for (int i=60; i<100; i++) {
+			wheel.advance(null) ;
+		}
+		return fired.size() == 2 && fired.get(0) == 1 && fired.get(1) == 2 ;
+	}
+
+	private static boolean checkIceCrossesSwitch() {
+		/* Ice pushed along a row slides over a Switch to the end of the row. The Switch's Door *
+		 * should be open only while the Ice is drawn on the Switch's tile, two tiles along.     */
+
+		SpriteGrid grid = new SpriteGrid(6, 1) ;
+		for (int x=0; x<6; x++) {
+			grid.add(new Floor(x, 0)) ;
+		}
+		Switch crossed = new Switch(2, 0) ;
+		grid.add(crossed) ;
+		Ice ice = new Ice(0, 0) ;
+		grid.add(ice) ;
+
+		SignalBoard board = new SignalBoard() ;
+		board.addSource(crossed) ;
+		Door door = new Door(5, 5) ;
+		board.subscribe(door) ;
+
+		TimerWheel wheel = new TimerWheel() ;
+		ice.setWheel(wheel) ;
+		ice.bePushed(Sprite.DIRECTION_RIGHT, grid) ;
+
+		// the Ice is drawn one tile along every stepTicks
+		int stepTicks = World.toTicks(250) ;
+		boolean openBefore = advanceTo(wheel, (2 * stepTicks) - 1, grid, door) ;
+		boolean openOnSwitch = advanceTo(wheel, 2 * stepTicks, grid, door) ;
+		boolean openStillOnSwitch = advanceTo(wheel, (3 * stepTicks) - 1, grid, door) ;
+		boolean openAfter = advanceTo(wheel, 3 * stepTicks, grid, door) ;
+		advanceTo(wheel, 6 * stepTicks, grid, door) ;
+
+		return !openBefore && openOnSwitch && openStillOnSwitch && !openAfter
+				&& ice.getPosition().isAt(5, 0) && ice.isSettled() && !crossed.isCovered() && door.stopsMovement() ;
+	}
+
+	private static boolean advanceTo(TimerWheel wheel, long tick, SpriteGrid grid, Door door) {
+		// advances the wheel to the given tick, then shows if the Door is open
+		while (wheel.getTick() < tick) {
+			wheel.advance(grid) ;
+		}
+		return !door.stopsMovement() ;
+	}
+
+	private static boolean checkEnemyMovers() {
+		/* Every enemy is told of a Player move, but Skeletons move on their own timer, so *
+		 * only the Rogues and Mages should be stepped after it.                           */
+
+		SpriteGrid grid = new SpriteGrid(7, 7) ;
+		for (int x=0; x<7; x++) {
+			for (int y=0; y<7; y++) {
+				grid.add(new Floor(x, y)) ;
+			}
+		}
+		ArrayList<Unit> enemies = new ArrayList<>() ;
+		enemies.add(new Rogue(1, 1)) ;
+		enemies.add(new Skeleton(3, 3)) ;
+		enemies.add(new Mage(5, 5)) ;
+		enemies.add(new Skeleton(1, 5)) ;
+
+		int rogueAndMageCount = 0 ;
+		for (Unit enemy : enemies) {
+			grid.add(enemy) ;
+			enemy.playerHasMoved(new Position(3, 0), 7, 7) ;
+			if (enemy instanceof Rogue || enemy instanceof Mage) {
+				rogueAndMageCount++ ;
+			}
+		}
+
+		EnemyStep step = new EnemyStep() ;
+		step.run(enemies, grid) ;
+		return step.getMoverCount() == rogueAndMageCount ;
+	}
+
+	private static boolean checkStoreColumns() {
+		/* A Stone pushed onto a Target, and a CrackedWall set exploding, should show in the   *
+		 * store's columns; a forgotten Sprite's id should find nothing, and its slot be reused. */
+
+		SpriteGrid grid = new SpriteGrid(5, 1) ;
+		for (int x=0; x<5; x++) {
+			grid.add(new Floor(x, 0)) ;
+		}
+		Target target = new Target(2, 0) ;
+		grid.add(target) ;
+		Stone stone = new Stone(1, 0) ;
+		grid.add(stone) ;
+		CrackedWall wall = new CrackedWall(4, 0) ;
+		grid.add(wall) ;
+		EntityStore store = grid.getStore() ;
+
+		stone.bePushed(Sprite.DIRECTION_RIGHT, grid) ;
+		wall.explode() ;
+		boolean columnsFollow = store.getX(stone.getSlot()) == 2 && store.getCovering(stone.getSlot()) == target.getId()
+				&& store.countCovered(EntityStore.TYPE_TARGET) == 1
+				&& store.hasFlag(wall.getSlot(), EntityStore.FLAG_ENDING) ;
+
+		int wallId = wall.getId() ;
+		int wallSlot = wall.getSlot() ;
+		grid.forget(wall) ;
+		Floor floor = new Floor(4, 0) ;
+		grid.add(floor) ;
+		return columnsFollow && grid.getSprite(wallId) == null && floor.getSlot() == wallSlot
+				&& store.getType(wallSlot) == EntityStore.TYPE_FLOOR ;
+	}
+
+	private static void check(String name, boolean passed) {
+		System.out.println((passed ? "ok     " : "FAILED ") + name) ;
+		if (!passed) {
+			failures++ ;
+		}
+	}
+
+	/* a Timed Object which notes its number each time it fires */
+	private static class CheckTimed implements Timed {
+
+		private int number ;
+		private ArrayList<Integer> fired ;
+		private TimerWheel.Timer timer ;
+
+		private CheckTimed(int number, ArrayList<Integer> fired) {
+			this.number = number ;
+			this.fired = fired ;
+			timer = new TimerWheel.Timer(this) ;
+		}
+
+		@Override
+		public void setWheel(TimerWheel wheel) {
+
+		}
+
+		@Override
+		public TimerWheel.Timer getTimer() {
+			return timer ;
+		}
+
+		@Override
+		public void onTimer(SpriteGrid grid) {
+			fired.add(number) ;
+		}
+	}
+}
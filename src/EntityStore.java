@@ -0,0 +1,456 @@
+import java.util.Arrays ;
+
+/**
+ * Holds the data of every Sprite in one level as parallel primitive arrays indexed by slot: its
+ * type, x and y coordinates, layer, flags, and the id of the Switch or Target it covers. Kept up
+ * to date by the level's SpriteGrid, which every Sprite reports its moves and changes to.
+ *
+ * Also keeps an ordered list of the slots in each component - the Sprites a system needs to visit
+ * - so that a system iterates only the Sprites it acts on, in level order, reading their columns
+ * rather than asking each Sprite what it is: World's movement system runs over the units, its
+ * explosion system over the explosives, restoring a snapshot counts the covered Targets over the
+ * features, and WorldRenderer draws the drawables. A Sprite's type and flags are worked out once,
+ * as it is stored.
+ *
+ * Each Sprite is given a slot as it is first stored, and keeps it while it can still be found by
+ * its id. A Sprite's id stays the same for as long as the level is played, even across a chunk
+ * of a streamed level being unloaded and loaded again, but the slot of a Sprite which is forgotten
+ * is given to the next Sprite stored. So the columns only ever hold as many slots as there have
+ * been Sprites stored at once, however many Sprites are streamed through the level.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class EntityStore {
+
+	/** the slot of a Sprite not held in any EntityStore */
+	public static final int NO_SLOT = -1 ;
+
+	/* the type of each Sprite, one for each class of Sprite a level can hold */
+	public static final int TYPE_OTHER = 0 ;
+	public static final int TYPE_FLOOR = 1 ;
+	public static final int TYPE_WALL = 2 ;
+	public static final int TYPE_CRACKED_WALL = 3 ;
+	public static final int TYPE_TARGET = 4 ;
+	public static final int TYPE_SWITCH = 5 ;
+	public static final int TYPE_DOOR = 6 ;
+	public static final int TYPE_STONE = 7 ;
+	public static final int TYPE_ICE = 8 ;
+	public static final int TYPE_TNT = 9 ;
+	public static final int TYPE_PLAYER = 10 ;
+	public static final int TYPE_SKELETON = 11 ;
+	public static final int TYPE_ROGUE = 12 ;
+	public static final int TYPE_MAGE = 13 ;
+	public static final int TYPE_EXPLOSION = 14 ;
+	public static final int TYPE_BLOOD = 15 ;
+	/* ------------------------------------------------------------------- */
+
+	/** set for Sprites which never change while in the level, and are drawn into a cached background */
+	public static final int FLAG_STATIC = 1 ;
+	/** set for Units */
+	public static final int FLAG_UNIT = 1 << 1 ;
+	/** set for Blocks */
+	public static final int FLAG_BLOCK = 1 << 2 ;
+	/** set for Sprites which can explode, or which end once exploded: CrackedWalls, Tnt and Explosions */
+	public static final int FLAG_EXPLOSIVE = 1 << 3 ;
+	/** set for explosive Sprites which have exploded, or Explosions which have ended, to be taken out of the level */
+	public static final int FLAG_ENDING = 1 << 4 ;
+	/** set for Switches and Targets */
+	public static final int FLAG_FEATURE = 1 << 5 ;
+	/** set for Switches and Targets while a Block covers them */
+	public static final int FLAG_COVERED = 1 << 6 ;
+
+	private static final int INIT_CAPACITY = 64 ;
+
+	// one entry per slot, stored as parallel arrays
+	private Sprite[] sprites ;
+	private int[] types ;
+	private int[] xs ;
+	private int[] ys ;
+	private int[] layers ;
+	private int[] flags ;
+	private int[] coverings ;
+	private int slotCount ;
+
+	// the slots given up by forgotten Sprites, to be given out again first
+	private int[] freeSlots ;
+	private int freeCount ;
+
+	// the slot of each Sprite stored, by id, or NO_SLOT for ids not stored
+	private int[] slotsById ;
+
+	// the components, each holding slots in the order their Sprites joined the level
+	private Component units ;
+	private Component explosives ;
+	private Component features ;
+	private Component drawables ;
+
+	/**
+	 * Creates an EntityStore holding no Sprites.
+	 */
+	public EntityStore() {
+		sprites = new Sprite[INIT_CAPACITY] ;
+		types = new int[INIT_CAPACITY] ;
+		xs = new int[INIT_CAPACITY] ;
+		ys = new int[INIT_CAPACITY] ;
+		layers = new int[INIT_CAPACITY] ;
+		flags = new int[INIT_CAPACITY] ;
+		coverings = new int[INIT_CAPACITY] ;
+		slotCount = 0 ;
+
+		freeSlots = new int[INIT_CAPACITY] ;
+		freeCount = 0 ;
+		slotsById = new int[INIT_CAPACITY] ;
+		Arrays.fill(slotsById, NO_SLOT) ;
+
+		units = new Component() ;
+		explosives = new Component() ;
+		features = new Component() ;
+		drawables = new Component() ;
+	}
+
+	/**
+	 * Stores a Sprite joining the level, giving it a slot if it has none, filling in its columns
+	 * and adding it to each component it belongs to.
+	 *
+	 * @param sprite	the Sprite joining the level, which must already have an id
+	 */
+	public void add(Sprite sprite) {
+		int slot = sprite.getSlot() ;
+		if (slot == NO_SLOT) {
+			slot = takeSlot() ;
+			sprite.setSlot(slot) ;
+			if (sprite.getId() >= slotsById.length) {
+				int oldLength = slotsById.length ;
+				slotsById = Arrays.copyOf(slotsById, Math.max(oldLength * 2, sprite.getId() + 1)) ;
+				Arrays.fill(slotsById, oldLength, slotsById.length, NO_SLOT) ;
+			}
+			slotsById[sprite.getId()] = slot ;
+		}
+
+		sprites[slot] = sprite ;
+		types[slot] = typeOf(sprite) ;
+		xs[slot] = sprite.getX() ;
+		ys[slot] = sprite.getY() ;
+		layers[slot] = sprite.getLayer() ;
+		flags[slot] = flagsOf(sprite) ;
+		coverings[slot] = (sprite instanceof Block && ((Block) sprite).getCovering() != null)
+				? ((Block) sprite).getCovering().getId() : Sprite.NO_ID ;
+
+		if (hasFlag(slot, FLAG_UNIT)) {
+			units.add(slot) ;
+		}
+		if (hasFlag(slot, FLAG_EXPLOSIVE)) {
+			explosives.add(slot) ;
+		}
+		if (hasFlag(slot, FLAG_FEATURE)) {
+			features.add(slot) ;
+		}
+		if (!hasFlag(slot, FLAG_STATIC)) {
+			drawables.add(slot) ;
+		}
+	}
+
+	/**
+	 * Records a Sprite's new coordinates.
+	 *
+	 * @param slot	the slot of the Sprite which has moved
+	 * @param x		the Sprite's new x coordinate
+	 * @param y		the Sprite's new y coordinate
+	 */
+	public void move(int slot, int x, int y) {
+		xs[slot] = x ;
+		ys[slot] = y ;
+	}
+
+	/**
+	 * Records the Switch or Target a Block now covers.
+	 *
+	 * @param slot			the slot of the Block
+	 * @param coveringId	the id of the Sprite it covers, or Sprite.NO_ID if none
+	 */
+	public void setCovering(int slot, int coveringId) {
+		coverings[slot] = coveringId ;
+	}
+
+	/**
+	 * Sets or clears one of a Sprite's flags.
+	 *
+	 * @param slot	the slot of the Sprite
+	 * @param flag	the flag to change
+	 * @param isSet	a boolean indicating if the flag should be set
+	 */
+	public void setFlag(int slot, int flag, boolean isSet) {
+		flags[slot] = isSet ? (flags[slot] | flag) : (flags[slot] & ~flag) ;
+	}
+
+	/**
+	 * Records a Sprite leaving the level, taking it out of its components. The Sprite keeps its
+	 * slot, and can still be found by its id, so a move it made can be undone.
+	 *
+	 * @param slot	the slot of the Sprite leaving the level
+	 */
+	public void remove(int slot) {
+		if (hasFlag(slot, FLAG_UNIT)) {
+			units.remove(slot) ;
+		}
+		if (hasFlag(slot, FLAG_EXPLOSIVE)) {
+			explosives.remove(slot) ;
+		}
+		if (hasFlag(slot, FLAG_FEATURE)) {
+			features.remove(slot) ;
+		}
+		if (!hasFlag(slot, FLAG_STATIC)) {
+			drawables.remove(slot) ;
+		}
+	}
+
+	/**
+	 * Drops a Sprite which has left the level from the store entirely, such as one in an unloaded
+	 * chunk, so its slot can be given to another Sprite.
+	 *
+	 * @param slot	the slot of the Sprite to drop
+	 */
+	public void forget(int slot) {
+		Sprite sprite = sprites[slot] ;
+		slotsById[sprite.getId()] = NO_SLOT ;
+		sprite.setSlot(NO_SLOT) ;
+		sprites[slot] = null ;
+
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeCount * 2) ;
+		}
+		freeSlots[freeCount++] = slot ;
+	}
+
+	/**
+	 * @param id	the id of a Sprite
+	 * @return		the Sprite with the id, or null if it has been dropped or never stored
+	 */
+	public Sprite getSprite(int id) {
+		if (id < 0 || id >= slotsById.length || slotsById[id] == NO_SLOT) {
+			return null ;
+		}
+		return sprites[slotsById[id]] ;
+	}
+
+	/**
+	 * @param slot	a slot of this store
+	 * @return		the Sprite in the slot, or null if it is free
+	 */
+	public Sprite getSpriteInSlot(int slot) {
+		return sprites[slot] ;
+	}
+
+	/**
+	 * Counts the Switches or Targets in the level which are covered, from their columns.
+	 *
+	 * @param type	TYPE_SWITCH or TYPE_TARGET
+	 * @return		the number of Sprites of the type in the level which are covered
+	 */
+	public int countCovered(int type) {
+		int count = 0 ;
+		features.compact() ;
+		for (int i=0; i<features.count; i++) {
+			int slot = features.slots[i] ;
+			if (types[slot] == type && hasFlag(slot, FLAG_COVERED)) {
+				count++ ;
+			}
+		}
+		return count ;
+	}
+
+	/**
+	 * @return	the number of slots given out, whether or not they are now free
+	 */
+	public int getSlotCount() {
+		return slotCount ;
+	}
+
+	/**
+	 * @param slot	the slot of a Sprite
+	 * @param flag	the flag to check
+	 * @return		a boolean indicating if the flag is set for the Sprite
+	 */
+	public boolean hasFlag(int slot, int flag) {
+		return (flags[slot] & flag) != 0 ;
+	}
+
+	/* getters */
+	public int getType(int slot) {
+		return types[slot] ;
+	}
+	public int getX(int slot) {
+		return xs[slot] ;
+	}
+	public int getY(int slot) {
+		return ys[slot] ;
+	}
+	public int getLayer(int slot) {
+		return layers[slot] ;
+	}
+	public int getCovering(int slot) {
+		return coverings[slot] ;
+	}
+	/* ------- */
+
+	/* component getters, each taking the position of a slot among its component, from 0 to its count */
+	public int getUnit(int index) {
+		return units.slots[index] ;
+	}
+	public int getUnitCount() {
+		units.compact() ;
+		return units.count ;
+	}
+	public int getExplosive(int index) {
+		return explosives.slots[index] ;
+	}
+	public int getExplosiveCount() {
+		explosives.compact() ;
+		return explosives.count ;
+	}
+	public int getDrawable(int index) {
+		return drawables.slots[index] ;
+	}
+	public int getDrawableCount() {
+		drawables.compact() ;
+		return drawables.count ;
+	}
+	/* ----------------------------------------------------------------------- */
+
+	private int takeSlot() {
+		// reuses a forgotten Sprite's slot if there is one, otherwise grows the columns by one slot
+		if (freeCount > 0) {
+			return freeSlots[--freeCount] ;
+		}
+		if (slotCount == sprites.length) {
+			int newLength = sprites.length * 2 ;
+			sprites = Arrays.copyOf(sprites, newLength) ;
+			types = Arrays.copyOf(types, newLength) ;
+			xs = Arrays.copyOf(xs, newLength) ;
+			ys = Arrays.copyOf(ys, newLength) ;
+			layers = Arrays.copyOf(layers, newLength) ;
+			flags = Arrays.copyOf(flags, newLength) ;
+			coverings = Arrays.copyOf(coverings, newLength) ;
+		}
+		return slotCount++ ;
+	}
+
+	private static int typeOf(Sprite sprite) {
+		// the one place each Sprite's class is looked at, to give it its type
+		if (sprite instanceof Floor) {
+			return TYPE_FLOOR ;
+		}
+		if (sprite instanceof CrackedWall) {
+			return TYPE_CRACKED_WALL ;
+		}
+		if (sprite instanceof Wall) {
+			return TYPE_WALL ;
+		}
+		if (sprite instanceof Target) {
+			return TYPE_TARGET ;
+		}
+		if (sprite instanceof Switch) {
+			return TYPE_SWITCH ;
+		}
+		if (sprite instanceof Door) {
+			return TYPE_DOOR ;
+		}
+		if (sprite instanceof Stone) {
+			return TYPE_STONE ;
+		}
+		if (sprite instanceof Ice) {
+			return TYPE_ICE ;
+		}
+		if (sprite instanceof Tnt) {
+			return TYPE_TNT ;
+		}
+		if (sprite instanceof Player) {
+			return TYPE_PLAYER ;
+		}
+		if (sprite instanceof Skeleton) {
+			return TYPE_SKELETON ;
+		}
+		if (sprite instanceof Rogue) {
+			return TYPE_ROGUE ;
+		}
+		if (sprite instanceof Mage) {
+			return TYPE_MAGE ;
+		}
+		if (sprite instanceof Explosion) {
+			return TYPE_EXPLOSION ;
+		}
+		if (sprite instanceof Blood) {
+			return TYPE_BLOOD ;
+		}
+		return TYPE_OTHER ;
+	}
+
+	private static int flagsOf(Sprite sprite) {
+		// works out a Sprite's flags from the Sprite as it joins the level, such as from a snapshot
+		int spriteFlags = sprite.isStatic() ? FLAG_STATIC : 0 ;
+		spriteFlags |= (sprite instanceof Unit) ? FLAG_UNIT : 0 ;
+		spriteFlags |= (sprite instanceof Block) ? FLAG_BLOCK : 0 ;
+
+		if (sprite instanceof CrackedWall || sprite instanceof Tnt || sprite instanceof Explosion) {
+			spriteFlags |= FLAG_EXPLOSIVE ;
+			boolean isEnding = sprite.isExploding() || (sprite instanceof Explosion && ((Explosion) sprite).isExplosionOver()) ;
+			spriteFlags |= isEnding ? FLAG_ENDING : 0 ;
+		}
+		if (sprite instanceof Switch) {
+			spriteFlags |= FLAG_FEATURE | (((Switch) sprite).isCovered() ? FLAG_COVERED : 0) ;
+		}
+		if (sprite instanceof Target) {
+			spriteFlags |= FLAG_FEATURE | (((Target) sprite).isCovered() ? FLAG_COVERED : 0) ;
+		}
+		return spriteFlags ;
+	}
+
+	/* the slots of one component, in the order they joined it */
+	private static class Component {
+
+		private int[] slots = new int[INIT_CAPACITY] ;
+		private int count = 0 ;
+
+		// the position of each slot in the component, and the number of gaps left by removals
+		private int[] positions = new int[INIT_CAPACITY] ;
+		private int gaps = 0 ;
+
+		private void add(int slot) {
+			if (count == slots.length) {
+				compact() ;
+				if (count == slots.length) {
+					slots = Arrays.copyOf(slots, count * 2) ;
+				}
+			}
+			if (slot >= positions.length) {
+				positions = Arrays.copyOf(positions, Math.max(positions.length * 2, slot + 1)) ;
+			}
+			positions[slot] = count ;
+			slots[count++] = slot ;
+		}
+
+		private void remove(int slot) {
+			// leaves a gap, so that removing many Sprites at once, as an unloaded chunk does, stays cheap
+			slots[positions[slot]] = NO_SLOT ;
+			gaps++ ;
+		}
+
+		private void compact() {
+			// closes the gaps left by removals, keeping the component in level order
+			if (gaps == 0) {
+				return ;
+			}
+			int kept = 0 ;
+			for (int i=0; i<count; i++) {
+				if (slots[i] != NO_SLOT) {
+					slots[kept] = slots[i] ;
+					positions[slots[kept]] = kept ;
+					kept++ ;
+				}
+			}
+			count = kept ;
+			gaps = 0 ;
+		}
+	}
+}
@@ -1,24 +1,22 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * A subclass of Sprite which is created by World when another Sprite
- * explodes, and is destroyed once it completes its explosion.
+ * explodes, and is destroyed once it completes its explosion, timed by its level's TimerWheel.
  * 
  * @author Maxim Kirkman
  *
  */
-public class Explosion extends Sprite {
+public class Explosion extends Sprite implements Timed {
 	
 	private static final String NAME = "explosion" ;
 	private static final String IMAGE_SOURCE = "res/explosion.png" ;
 
-	private static final int NO_SECONDS = 0 ;
 	private static final int END_EXPLOSION = 400 ;
 	
-	private int existTime ;
+	private TimerWheel.Timer endTimer ;
 	private boolean isExplosionOver ;
 	
 	/**
@@ -26,33 +24,69 @@ public class Explosion extends Sprite {
 	 * 
 	 * @param x					Explosion's x coordinate
 	 * @param y					Explosion's y coordinate
-	 * @throws SlickException
 	 */
-	public Explosion(int x, int y) throws SlickException {
+	public Explosion(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y);
 
-		existTime = NO_SECONDS ;
+		endTimer = new TimerWheel.Timer(this) ;
 		isExplosionOver = false ;
 	}
 	
 	/**
-     * Update the Explosion Sprite.
-     * Checks if the Explosion has existed past its allowed time limit.
-     * Flags the Explosion for deletion from World if the limit is reached.
+	 * Attaches the Explosion to its level's TimerWheel, and sets it to end once it has
+	 * existed for its allowed time.
+	 * 
+	 * @param wheel		the TimerWheel of the Explosion's level
+	 */
+	@Override
+	public void setWheel(TimerWheel wheel) {
+		wheel.schedule(endTimer, World.toTicks(END_EXPLOSION)) ;
+	}
+	
+	/**
+	 * @return	the timer which ends the Explosion
+	 */
+	@Override
+	public TimerWheel.Timer getTimer() {
+		return endTimer ;
+	}
+	
+	/**
+     * Flags the Explosion for deletion from World, as it has reached its allowed time limit.
      * 
-     * @param input			The Slick user input object
-     * @param delta			Time passed since last frame (milliseconds)
-     * @param spriteArray	ArrayList of all Sprites in the level
+     * @param grid			SpriteGrid indexing all Sprites in the level by tile
 	 */
 	@Override
-	public void update(Input input, int delta, ArrayList<Sprite> spriteArray) {
-		existTime += delta ;
-
-		if (existTime >= END_EXPLOSION) {
-			isExplosionOver = true ;
+	public void onTimer(SpriteGrid grid) {
+		isExplosionOver = true ;
+		if (getGrid() != null) {
+			getGrid().explosionEnding(this) ;
 		}
 	}
 	
+	/**
+	 * Writes whether the Explosion has finished into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeBoolean(isExplosionOver) ;
+	}
+	
+	/**
+	 * Reads back whether the Explosion has finished from a World snapshot.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		isExplosionOver = in.readBoolean() ;
+	}
+	
 	/**
 	 * Shows if an Explosion has finished exploding to allow its deletion by World.
 	 * 
@@ -61,4 +95,24 @@ public class Explosion extends Sprite {
 	public boolean isExplosionOver() {
 		return isExplosionOver ;
 	}
+	
+	/**
+	 * Explosions are drawn over their tile, so are indexed in the overlay layer.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	@Override
+	public int getLayer() {
+		return SpriteGrid.OVERLAY_LAYER ;
+	}
+	
+	/**
+	 * An Explosion lasts only until its timer fires, so keeps its chunk loaded until then.
+	 * 
+	 * @return	true, as an Explosion keeps the chunks around it loaded
+	 */
+	@Override
+	public boolean keepsChunkLoaded() {
+		return true ;
+	}
 }
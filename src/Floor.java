@@ -1,5 +1,3 @@
-import org.newdawn.slick.SlickException ;
-
 /**
  * A subclass of Sprite which represents the floor tiles of a level.
  * Floor tiles can be moved over without restriction, and cannot be interacted with.
@@ -17,9 +15,19 @@ public class Floor extends Sprite {
 	 * 
 	 * @param x					Floor's x coordinate
 	 * @param y					Floor's y coordinate
-	 * @throws SlickException
 	 */
-	public Floor(int x, int y) throws SlickException {
+	public Floor(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 	}
+	
+	/**
+	 * Shows if a Sprite never moves or changes how it is drawn while it is in a level.
+	 * Always returns true for Floors, as they never move.
+	 * 
+	 * @return a boolean indicating that this Sprite can be drawn into a cached background
+	 */
+	@Override
+	public boolean isStatic() {
+		return true ;
+	}
 }
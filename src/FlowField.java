@@ -0,0 +1,193 @@
+import java.util.Arrays ;
+
+/**
+ * Holds the distance, in moves, from every walkable tile of a level to the tile the Player is
+ * moving to, shared by every Mage in the level so they can find their way around walls.
+ *
+ * World gives the field the Player's next tile on each Player move. The field is then found by
+ * one breadth-first search out from that tile over the tiles a Unit could walk onto, made the
+ * first time a Mage asks for a distance after the move, so each move costs one search however
+ * many Mages there are, and none in a level with no Mages. Each Mage then steps down the field
+ * from its own tile by looking at its neighbours.
+ *
+ * The search only covers the tiles within SEARCH_RADIUS of the target on each axis, and only
+ * those in loaded chunks, so its cost and memory stay the same however large the map is. A Mage
+ * outside that window finds no path, and chases the Player directly until it comes into range.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class FlowField {
+
+	/** the distance of a tile no path reaches from the Player's tile */
+	public static final int UNREACHED = -1 ;
+
+	// the furthest the search reaches from the target on each axis, in tiles: two chunks, which
+	// takes in the chunks a streamed level keeps loaded around the Player
+	private static final int SEARCH_RADIUS = 2 * SpriteGrid.CHUNK_SIZE ;
+
+	private SpriteGrid grid ;
+	private int width ;
+	private int height ;
+
+	private int targetX ;
+	private int targetY ;
+	private boolean hasTarget ;
+	private boolean isSearched ;
+
+	// the window of tiles the last search covered: its top left tile and its size
+	private int windowX ;
+	private int windowY ;
+	private int windowWidth ;
+	private int windowHeight ;
+
+	// the distance to each tile of the window, row by row, valid only where the tile's stamp
+	// matches the current search
+	private int[] distances ;
+	private int[] stamps ;
+	private int stamp ;
+	private int[] queue ;
+
+	/**
+	 * Creates a FlowField over the level indexed by the given SpriteGrid, with no target yet.
+	 *
+	 * @param grid		SpriteGrid indexing all Sprites in the level by tile
+	 */
+	public FlowField(SpriteGrid grid) {
+		this.grid = grid ;
+		width = grid.getWidth() ;
+		height = grid.getHeight() ;
+
+		hasTarget = false ;
+		isSearched = false ;
+		stamp = 0 ;
+	}
+
+	/**
+	 * Sets the tile the field leads to, such as the tile the Player is moving to. The field is
+	 * searched again when next read.
+	 *
+	 * @param x		the x coordinate of the target tile
+	 * @param y		the y coordinate of the target tile
+	 */
+	public void setTarget(int x, int y) {
+		targetX = x ;
+		targetY = y ;
+		hasTarget = isOnMap(x, y) ;
+		isSearched = false ;
+	}
+
+	/**
+	 * Clears the tile the field leads to, as when the level has just started, so every tile is
+	 * UNREACHED until a target is next set.
+	 */
+	public void clearTarget() {
+		hasTarget = false ;
+		isSearched = false ;
+	}
+
+	/**
+	 * Searches the field now if it has not been searched since its target was set, so that it
+	 * can then be read from several threads at once.
+	 */
+	public void prepare() {
+		if (hasTarget && !isSearched) {
+			search() ;
+		}
+	}
+
+	/**
+	 * @param x		the x coordinate of a tile
+	 * @param y		the y coordinate of a tile
+	 * @return		the number of moves from the tile to the target tile, or UNREACHED if there is
+	 * 				no path within the search window, or no target has been set
+	 */
+	public int getDistance(int x, int y) {
+		if (!hasTarget) {
+			return UNREACHED ;
+		}
+		if (!isSearched) {
+			search() ;
+		}
+		if (!isInWindow(x, y)) {
+			return UNREACHED ;
+		}
+		int tile = windowTile(x, y) ;
+		return (stamps[tile] == stamp) ? distances[tile] : UNREACHED ;
+	}
+
+	private void search() {
+		/* Spreads out from the target tile one ring of tiles at a time, giving each walkable *
+		 * tile reached its distance. Stamping each tile as it is reached means the arrays    *
+		 * never need clearing between searches.                                              */
+
+		if (distances == null) {
+			int capacity = Math.min(width, (2 * SEARCH_RADIUS) + 1) * Math.min(height, (2 * SEARCH_RADIUS) + 1) ;
+			distances = new int[capacity] ;
+			stamps = new int[capacity] ;
+			queue = new int[capacity] ;
+		}
+		if (++stamp == 0) {
+			Arrays.fill(stamps, 0) ;
+			stamp = 1 ;
+		}
+
+		// the window around the target, cut short at the edges of the map
+		windowX = Math.max(0, targetX - SEARCH_RADIUS) ;
+		windowY = Math.max(0, targetY - SEARCH_RADIUS) ;
+		windowWidth = Math.min(width, targetX + SEARCH_RADIUS + 1) - windowX ;
+		windowHeight = Math.min(height, targetY + SEARCH_RADIUS + 1) - windowY ;
+
+		int head = 0 ;
+		int tail = 0 ;
+		int targetTile = windowTile(targetX, targetY) ;
+		distances[targetTile] = 0 ;
+		stamps[targetTile] = stamp ;
+		queue[tail++] = targetTile ;
+
+		while (head < tail) {
+			int tile = queue[head++] ;
+			int x = windowX + (tile % windowWidth) ;
+			int y = windowY + (tile / windowWidth) ;
+			int next = distances[tile] + 1 ;
+
+			tail = visit(x, y - 1, next, tail) ;
+			tail = visit(x + 1, y, next, tail) ;
+			tail = visit(x, y + 1, next, tail) ;
+			tail = visit(x - 1, y, next, tail) ;
+		}
+		isSearched = true ;
+	}
+
+	private int visit(int x, int y, int distance, int tail) {
+		// queues a walkable, loaded tile in the window not yet reached, returning the new end of the queue
+		if (!isInWindow(x, y)) {
+			return tail ;
+		}
+		int tile = windowTile(x, y) ;
+		if (stamps[tile] == stamp || !grid.isTileLoaded(x, y)) {
+			return tail ;
+		}
+
+		Sprite sprite = grid.getSignificantSprite(x, y) ;
+		if (sprite == null || sprite.stopsMovement() || sprite instanceof Block) {
+			return tail ;
+		}
+		distances[tile] = distance ;
+		stamps[tile] = stamp ;
+		queue[tail] = tile ;
+		return tail + 1 ;
+	}
+
+	private boolean isOnMap(int x, int y) {
+		return (x >= 0 && x < width && y >= 0 && y < height) ;
+	}
+
+	private boolean isInWindow(int x, int y) {
+		return (x >= windowX && x < windowX + windowWidth && y >= windowY && y < windowY + windowHeight) ;
+	}
+
+	private int windowTile(int x, int y) {
+		return ((y - windowY) * windowWidth) + (x - windowX) ;
+	}
+}
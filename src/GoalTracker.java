@@ -0,0 +1,84 @@
+/**
+ * Keeps count of how many of a level's Targets are covered, so World can tell if a level
+ * is complete without checking every Sprite each frame.
+ *
+ * Each Target tells its level's GoalTracker when it becomes covered or uncovered, whether by a
+ * push, an undo, or a slide. Restoring a World from a snapshot sets Targets without reporting
+ * them, so the count is then taken again.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class GoalTracker {
+
+	private int totalTargets ;
+	private int coveredCount ;
+
+	/**
+	 * Creates a GoalTracker counting no Targets.
+	 */
+	public GoalTracker() {
+		totalTargets = 0 ;
+		coveredCount = 0 ;
+	}
+
+	/**
+	 * Adds a Target to the count, and attaches this tracker to the Target so that it
+	 * reports here when it is covered or uncovered.
+	 *
+	 * @param target	the Target to add
+	 */
+	public void addTarget(Target target) {
+		totalTargets++ ;
+		if (target.isCovered()) {
+			coveredCount++ ;
+		}
+		target.setTracker(this) ;
+	}
+
+	/**
+	 * Adds Targets which are not yet loaded to the count, such as those in the unloaded chunks
+	 * of a level streamed by a ChunkStore. Targets are never covered before they are loaded.
+	 *
+	 * @param count		the number of Targets to add
+	 */
+	public void addUnloadedTargets(int count) {
+		totalTargets += count ;
+	}
+
+	/**
+	 * Records that one Target has become covered or uncovered. Called by a Target when
+	 * its covered state changes.
+	 *
+	 * @param isCovered		a boolean indicating if the Target is now covered
+	 */
+	public void coverChanged(boolean isCovered) {
+		coveredCount += isCovered ? 1 : -1 ;
+	}
+
+	/**
+	 * Takes the count of covered Targets again from the level's EntityStore, such as once a World
+	 * has been restored from a snapshot without the Targets reporting their changes.
+	 *
+	 * @param store		the EntityStore holding every Target in the level
+	 */
+	public void recount(EntityStore store) {
+		coveredCount = store.countCovered(EntityStore.TYPE_TARGET) ;
+	}
+
+	/**
+	 * @return	a boolean indicating if every Target in the level is covered
+	 */
+	public boolean allTargetsCovered() {
+		return coveredCount == totalTargets ;
+	}
+
+	/* getters */
+	public int getTotalTargets() {
+		return totalTargets ;
+	}
+	public int getCoveredCount() {
+		return coveredCount ;
+	}
+	/* ------- */
+}
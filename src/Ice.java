@@ -1,81 +1,109 @@
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 import java.util.ArrayList ;
 
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
-
 /**
  * A subclass of Block which continuously moves in the direction it is pushed until
  * it reaches a Sprite that stops movement.
  * 
+ * A slide is resolved as soon as the Ice is pushed: one pass along the grid finds the tile it
+ * comes to rest on, and the Ice moves straight there, covering any Switch or Target on it. The
+ * Ice is then drawn sliding towards its tile at one tile per ICE_MOVE_THRESHOLD. Its level's
+ * TimerWheel fires as the Ice is drawn onto and off each Switch it passes over, covering the
+ * Switch for as long as the Ice is drawn on its tile, just as when Ice slid a tile at a time, and
+ * again at the end of the slide, when the Ice carries on if the way ahead has since cleared - such
+ * as once the chunk ahead of it has been loaded - or otherwise comes to rest.
  * If Player movement is undone, Ice returns to where it was before it was pushed last.
  * 
  * @author Maxim Kirkman
  *
  */
-public class Ice extends Block {
+public class Ice extends Block implements Timed {
 
 	private static final String NAME = "ice" ;
 	private static final String IMAGE_SOURCE = "res/ice.png" ;
 	
-	private static final int NO_SECONDS = 0 ;
 	private static final int ICE_MOVE_THRESHOLD = 250 ;
 	
-	private int timeSinceMove ;
+	private TimerWheel wheel ;
+	private TimerWheel.Timer slideTimer ;
 	private boolean isMoving ;
 	private int direction ;
 	
+	// the tile the slide being drawn started from, its length in tiles, and the tick it started
+	private int slideFromX ;
+	private int slideFromY ;
+	private int slideLength ;
+	private long slideStart ;
+	
+	// the Switches passed over on the slide being drawn, each covered while the Ice is drawn on it
+	private ArrayList<Switch> passedSwitches ;
+	
 	private Position originalPosition ;
 	private Sprite originalCovering ;
 	
-	private SaveStack<Ice> saves ;
-	
 	/**
 	 * Creates a still Ice Sprite at the given tile coordinates.
 	 * 
 	 * @param x					Ice's x coordinate
 	 * @param y					Ice's y coordinate
-	 * @throws SlickException
 	 */
-	public Ice(int x, int y) throws SlickException {
+	public Ice(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		
-		timeSinceMove = NO_SECONDS ;
+		slideTimer = new TimerWheel.Timer(this) ;
 		isMoving = false ;
 		this.direction = NO_DIRECTION ;
+		passedSwitches = new ArrayList<>() ;
 		
 		originalPosition = new Position(x, y) ;
 		originalCovering = null ;
-		
-		saves = new SaveStack<>() ;
+	}
+	
+	/**
+	 * Attaches the Ice to its level's TimerWheel, which times each step of its slides.
+	 * 
+	 * @param wheel		the TimerWheel of the Ice's level
+	 */
+	@Override
+	public void setWheel(TimerWheel wheel) {
+		this.wheel = wheel ;
+	}
+	
+	/**
+	 * @return	the timer which ends each of the Ice's slides
+	 */
+	@Override
+	public TimerWheel.Timer getTimer() {
+		return slideTimer ;
 	}
 	
     /**
-     * Update the Ice Sprite, monitoring total time since the last move.
-     * If time is over the movement threshold, attempts another move in the current direction.
-     * If the move fails, stops moving and sets direction to none.
+     * Covers or uncovers the Switches passed over as the Ice is drawn onto or off them, then at the
+     * end of the slide being drawn slides on if the way ahead has cleared since the slide was
+     * resolved, or otherwise comes to rest here and sets direction to none.
      * 
-     * @param input			The Slick user input object
-     * @param delta			Time passed since last frame (milliseconds)
-     * @param spriteArray	ArrayList of all Sprites in the level
+     * @param grid			SpriteGrid indexing all Sprites in the level by tile
      */
 	@Override
-	public void update(Input input, int delta, ArrayList<Sprite> spriteArray) {
-		
-		timeSinceMove += delta ;
-		
-		if (isMoving && (timeSinceMove >= ICE_MOVE_THRESHOLD) ) {
-			// if a move is attempted and fails, set originalPosition to here and cease movement
-			if (!super.bePushed(direction, spriteArray)) {
-				
-				setOriginalPosition(getPosition()) ;
-				setOriginalCovering(getCovering()) ;
-				
-				isMoving = false ;
-				this.direction = NO_DIRECTION ;
-			}
-			
-			timeSinceMove = NO_SECONDS ;
+	public void onTimer(SpriteGrid grid) {
+		if (!isMoving || !isInLevel()) {
+			return ;
+		}
+		int steps = (int) ((wheel.getTick() - slideStart) / World.toTicks(ICE_MOVE_THRESHOLD)) ;
+		coverPassedSwitches(steps, grid) ;
+		if (steps < slideLength) {
+			scheduleNextStep(steps) ;
+			return ;
 		}
+		passedSwitches.clear() ;
+		
+		if (WorldChecker.findSlideLength(getX(), getY(), direction, grid) > 0) {
+			slide(grid) ;
+			return ;
+		}
+		stopSliding() ;
 	}
 	
 	/**
@@ -86,13 +114,14 @@ public class Ice extends Block {
 	 * Returns true if the move is successful; false if it fails.
 	 * 
 	 * @param direction		the direction in which the Ice is attempting to move
-	 * @param spriteArray	ArrayList of all Sprites in the level
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
 	 * @return			a boolean indicating if a move was successfully made
 	 */
 	@Override
-	public boolean bePushed(int direction, ArrayList<Sprite> spriteArray) {
-		Position nextPosition = WorldChecker.getNextPosition(getPosition(), direction) ;
-		Sprite nextSprite = WorldChecker.getSignificantSprite(nextPosition, spriteArray) ;
+	public boolean bePushed(int direction, SpriteGrid grid) {
+		int nextX = WorldChecker.getNextX(getX(), direction) ;
+		int nextY = WorldChecker.getNextY(getY(), direction) ;
+		Sprite nextSprite = WorldChecker.getSignificantSprite(nextX, nextY, grid) ;
 
 		if (nextSprite.stopsMovement() || nextSprite instanceof Block) {
 			// save position
@@ -103,31 +132,110 @@ public class Ice extends Block {
 			return false ;
 		}
 		
-		// handle moving onto or off a Switch or Target
-		if (getCovering() != null) {
-			leaveCovering() ;
-		}
-		if (nextSprite instanceof Switch || nextSprite instanceof Target) {
-			startCovering(nextSprite) ;
-			setOriginalCovering(getCovering()) ;
-		}
-
-		// set ice to move
+		// starting to slide is itself a change that must be undoable
+		recordChange() ;
+		
+		// set ice to move, then resolve the whole slide at once
 		isMoving = true ;
 		this.direction = direction ;
-		// set movement to happen at next opportunity
-		timeSinceMove = ICE_MOVE_THRESHOLD ;
+		slide(grid) ;
 		return true ;
 	}
+	
+	/**
+	 * Finds where this Ice is drawn at the given time: part way along its slide, or on its tile
+	 * once the slide has been drawn in full.
+	 * 
+	 * @param time		the time the level has been played for (milliseconds)
+	 * @return			the x coordinate to draw this Ice at, in tiles
+	 */
+	@Override
+	public float getDrawX(long time) {
+		return slideFromX + ((getX() - slideFromX) * slideProgress(time)) ;
+	}
+	
+	/**
+	 * @param time		the time the level has been played for (milliseconds)
+	 * @return			the y coordinate to draw this Ice at, in tiles
+	 */
+	@Override
+	public float getDrawY(long time) {
+		return slideFromY + ((getY() - slideFromY) * slideProgress(time)) ;
+	}
+	
+	/**
+	 * @param time		the time the level has been played for (milliseconds)
+	 * @return			a boolean indicating if this Ice is still drawn sliding towards its tile
+	 */
+	public boolean isDrawnSliding(long time) {
+		return slideProgress(time) < 1 ;
+	}
+
+	/**
+	 * Writes the Ice's covered Sprite, its slide and the Switches passed over on it, and the Position and covered Sprite it returns
+	 * to on an undo, into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		super.writeState(out) ;
+		out.writeBoolean(isMoving) ;
+		out.writeByte(direction) ;
+		out.writeInt(slideFromX) ;
+		out.writeInt(slideFromY) ;
+		out.writeInt(slideLength) ;
+		out.writeLong(slideStart) ;
+		out.writeInt(passedSwitches.size()) ;
+		for (int i=0; i<passedSwitches.size(); i++) {
+			out.writeInt(passedSwitches.get(i).getId()) ;
+		}
+		out.writeInt(originalPosition.getX()) ;
+		out.writeInt(originalPosition.getY()) ;
+		out.writeInt((originalCovering != null) ? originalCovering.getId() : NO_ID) ;
+	}
+	
+	/**
+	 * Reads back the Ice's covered Sprite, its slide and the Switches passed over on it, and the Position and covered Sprite it
+	 * returns to on an undo, from a World snapshot.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level, to find the covered Sprites by id
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		super.readState(in, grid) ;
+		isMoving = in.readBoolean() ;
+		direction = in.readByte() ;
+		slideFromX = in.readInt() ;
+		slideFromY = in.readInt() ;
+		slideLength = in.readInt() ;
+		slideStart = in.readLong() ;
+		passedSwitches.clear() ;
+		int passedCount = in.readInt() ;
+		for (int i=0; i<passedCount; i++) {
+			passedSwitches.add((Switch) grid.getSprite(in.readInt())) ;
+		}
+		
+		int originalX = in.readInt() ;
+		int originalY = in.readInt() ;
+		if (!originalPosition.isAt(originalX, originalY)) {
+			originalPosition = new Position(originalX, originalY) ;
+		}
+		int originalId = in.readInt() ;
+		originalCovering = (originalId != NO_ID) ? grid.getSprite(originalId) : null ;
+	}
 
 	/**
 	 * Takes a Position, and sets Ice's originalPosition variable, which tracks the
-	 * Position the Block had before a push, to a copy of the passed in Position.
+	 * Position the Block had before a push, to the passed in Position.
 	 * 
 	 * @param newOriginalPosition	the Position to save as Ice's originalPosition
 	 */
 	public void setOriginalPosition(Position newOriginalPosition) {
-		originalPosition = new Position (newOriginalPosition.getX(), newOriginalPosition.getY()) ;
+		originalPosition = newOriginalPosition ;
 	}
 	
 	/**
@@ -148,51 +256,184 @@ public class Ice extends Block {
 	}
 	
 	/**
-	 * Steps Ice back one in its saved states, to its most recent static Position.
+	 * @return	the Position this Ice was at before its last push, which it returns to if the move is undone
 	 */
 	@Override
-	public void undo() {
+	public Position getUndoPosition() {
+		return originalPosition ;
+	}
+	
+	/**
+	 * @return	the Sprite this Ice was covering before its last push
+	 */
+	@Override
+	public Sprite getUndoCovering() {
+		return originalCovering ;
+	}
+	
+	/**
+	 * Steps Ice back to a static Position and covered Sprite recorded in its level's MoveJournal,
+	 * halting any movement.
+	 * 
+	 * @param position	the Position to return to
+	 * @param covering	the Switch or Target to cover again, or null
+	 */
+	@Override
+	public void undo(Position position, Sprite covering) {
 		
-		// take retrieved Ice's position
-		Ice undoIce = saves.load() ;
-		setSpritePosition(undoIce.getPosition()) ;
+		// take recorded position
+		setSpritePosition(position) ;
 		
 		// stop movement
 		isMoving = false ;
 		direction = NO_DIRECTION ;
+		slideLength = 0 ;
+		if (wheel != null) {
+			wheel.cancel(slideTimer) ;
+		}
+		uncoverPassedSwitches() ;
 		setOriginalPosition(getPosition()) ;
 		
 		// adjust covering Switch/Target data
 		leaveCovering() ;
-		startCovering(undoIce.getOriginalCovering()) ;
+		startCovering(covering) ;
 		setOriginalCovering(getCovering()) ;
 	}
 	
 	/**
-	 * Saves Ice's current state in its SaveStack, to be retrieved if an undo command is given.
+	 * Ice is only settled once it has stopped sliding.
 	 * 
-	 * @throws SlickException
+	 * @return	a boolean indicating if this Ice has stopped moving
 	 */
 	@Override
-	public void save() throws SlickException {
-		saves.add(copy()) ;
+	public boolean isSettled() {
+		return !isMoving ;
 	}
-
+	
 	/**
-	 * Copies this Ice's data into a new Ice object. If this Ice is still, the copy will be in the
-	 * same Position; if this Ice is currently moving, the copy will be at the position this Ice
-	 * was at before it was pushed.
+	 * Sliding Ice may travel far from the Player, so keeps the chunks around it loaded until it stops.
 	 * 
-	 * Used to allow Ice to save and access its own past data in its SaveStack.
-	 * 
-	 * @return	a new Ice Sprite containing copies of this Player's data
-	 * @throws 	SlickException
+	 * @return	a boolean indicating if this Ice is sliding
 	 */
 	@Override
-	public Ice copy() throws SlickException {
-		Ice iceCopy =  new Ice(originalPosition.getX(), originalPosition.getY()) ;
-		iceCopy.setOriginalCovering(originalCovering) ;
+	public boolean keepsChunkLoaded() {
+		return isMoving ;
+	}
+	
+	private void slide(SpriteGrid grid) {
+		/* Moves the Ice straight to the end of its slide, covering any Switch or Target there, *
+		 * and times each Switch passed over and the end of the slide for when they are drawn. *
+		 * Without a TimerWheel, such as in a level not being played, the Ice comes to rest at *
+		 * once. A slide pushed on before the last was drawn in full leaves its Switches.      */
+		
+		uncoverPassedSwitches() ;
+		int length = WorldChecker.findSlideLength(getX(), getY(), direction, grid) ;
+		slideFromX = getX() ;
+		slideFromY = getY() ;
+		slideLength = length ;
+		
+		// handle moving off a Switch or Target
+		if (getCovering() != null) {
+			leaveCovering() ;
+		}
+		
+		// note the Switches passed over, to cover each while the Ice is drawn on it
+		int endX = getX() ;
+		int endY = getY() ;
+		for (int i=0; i<length; i++) {
+			endX = WorldChecker.getNextX(endX, direction) ;
+			endY = WorldChecker.getNextY(endY, direction) ;
+			
+			Sprite passedSprite = WorldChecker.getSignificantSprite(endX, endY, grid) ;
+			if (i < length - 1 && passedSprite instanceof Switch) {
+				passedSwitches.add((Switch) passedSprite) ;
+			}
+		}
+		Sprite endSprite = WorldChecker.getSignificantSprite(endX, endY, grid) ;
+		
+		// handle moving onto another Switch or Target
+		if (endSprite instanceof Switch || endSprite instanceof Target) {
+			startCovering(endSprite) ;
+		}
+		setSpritePosition(new Position(endX, endY)) ;
 		
-		return iceCopy ;
+		if (wheel == null) {
+			// with no slide drawn, each Switch passed over is covered and uncovered at once
+			for (int i=0; i<passedSwitches.size(); i++) {
+				passedSwitches.get(i).setCovered(true) ;
+			}
+			uncoverPassedSwitches() ;
+			stopSliding() ;
+			return ;
+		}
+		slideStart = wheel.getTick() ;
+		scheduleNextStep(0) ;
+	}
+	
+	private void coverPassedSwitches(int steps, SpriteGrid grid) {
+		/* Covers the Switch the Ice is now drawn on, if any, and uncovers those it has been drawn *
+		 * past - unless a Block has since been pushed onto one, which then keeps it covered.     */
+		
+		for (int i=0; i<passedSwitches.size(); i++) {
+			Switch passedSwitch = passedSwitches.get(i) ;
+			int switchSteps = stepsTo(passedSwitch) ;
+			if (switchSteps == steps) {
+				passedSwitch.setCovered(true) ;
+			}
+			else if (switchSteps < steps && !(grid.getSignificantSprite(passedSwitch.getX(), passedSwitch.getY()) instanceof Block)) {
+				passedSwitch.setCovered(false) ;
+			}
+		}
+	}
+	
+	private void uncoverPassedSwitches() {
+		// uncovers any Switch the Ice is drawn on, as the slide is cut short
+		SpriteGrid grid = getGrid() ;
+		for (int i=0; i<passedSwitches.size(); i++) {
+			Switch passedSwitch = passedSwitches.get(i) ;
+			if (grid == null || !(grid.getSignificantSprite(passedSwitch.getX(), passedSwitch.getY()) instanceof Block)) {
+				passedSwitch.setCovered(false) ;
+			}
+		}
+		passedSwitches.clear() ;
+	}
+	
+	private void scheduleNextStep(int steps) {
+		// sets the timer for the next tile the Ice is drawn onto or off a Switch, or the end of the slide
+		int nextSteps = slideLength ;
+		for (int i=0; i<passedSwitches.size(); i++) {
+			int switchSteps = stepsTo(passedSwitches.get(i)) ;
+			if (switchSteps > steps) {
+				nextSteps = Math.min(nextSteps, switchSteps) ;
+			}
+			else if (switchSteps == steps) {
+				nextSteps = Math.min(nextSteps, switchSteps + 1) ;
+			}
+		}
+		long due = slideStart + ((long) nextSteps * World.toTicks(ICE_MOVE_THRESHOLD)) ;
+		wheel.schedule(slideTimer, due - wheel.getTick()) ;
+	}
+	
+	private int stepsTo(Switch passedSwitch) {
+		// the number of tiles along the slide the Switch lies
+		return Math.abs(passedSwitch.getX() - slideFromX) + Math.abs(passedSwitch.getY() - slideFromY) ;
+	}
+	
+	private void stopSliding() {
+		// the Ice has come to rest, so a later push is undone back to here
+		setOriginalPosition(getPosition()) ;
+		setOriginalCovering(getCovering()) ;
+		
+		isMoving = false ;
+		this.direction = NO_DIRECTION ;
+	}
+	
+	private float slideProgress(long time) {
+		// the share of the slide drawn so far, moving one tile per ICE_MOVE_THRESHOLD
+		if (slideLength == 0) {
+			return 1 ;
+		}
+		float tiles = (float) (time - (slideStart * World.TICK_LENGTH)) / ICE_MOVE_THRESHOLD ;
+		return Math.max(0, Math.min(1, tiles / slideLength)) ;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,323 @@
+import java.io.BufferedOutputStream ;
+import java.io.DataOutputStream ;
+import java.io.File ;
+import java.io.FileOutputStream ;
+import java.io.IOException ;
+import java.nio.charset.StandardCharsets ;
+import java.util.ArrayList ;
+import java.util.Arrays ;
+
+/**
+ * Static class which compiles text lvl files into the binary blvl format, which Loader can
+ * read straight from a memory-mapped file without splitting or parsing any text.
+ *
+ * A blvl file holds, in big-endian order:
+ * a header - the magic number, format version, and the map's width and height (2 bytes each);
+ * a palette - the number of entries (1 byte), then each as a length (1 byte) and ASCII bytes, holding
+ * a Sprite name and any extra columns after its coordinates, such as a Switch's channel;
+ * and the Sprite records - their count (4 bytes), then one int per Sprite, in drawing order,
+ * packing its palette index, x and y coordinates.
+ *
+ * Levels too large to hold in memory at once can instead be compiled into the chunk-indexed clvl
+ * format, which a ChunkStore streams in one chunk of SpriteGrid.CHUNK_SIZE tiles square at a time.
+ * A clvl file holds, in big-endian order:
+ * a header - its own magic number, the format version, the map's width and height, and the
+ * Player's starting x and y coordinates (2 bytes each);
+ * a palette - as in a blvl file, but with the number of records using each entry (4 bytes) after it;
+ * a chunk index - for each chunk, row by row, the index of its first record and its record count
+ * (4 bytes each);
+ * and the Sprite records - packed as in a blvl file, grouped by chunk and in drawing order within each.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class LevelCompiler {
+
+	public static final int MAGIC = 0x53424C56 ;	// "SBLV"
+	public static final int VERSION = 2 ;
+	public static final String SOURCE_SUFFIX = ".lvl" ;
+	public static final String COMPILED_SUFFIX = ".blvl" ;
+	public static final int CHUNKED_MAGIC = 0x5342434B ;	// "SBCK"
+	public static final int CHUNKED_VERSION = 1 ;
+	public static final String CHUNKED_SUFFIX = ".clvl" ;
+
+	// each record packs an 8 bit palette index above 12 bit x and y coordinates
+	public static final int TYPE_SHIFT = 24 ;
+	public static final int X_SHIFT = 12 ;
+	public static final int COORDINATE_MASK = 0xFFF ;
+	public static final int MAX_PALETTE_SIZE = 0xFF ;
+
+	private static final String LEVEL_DIRECTORY = "res/levels" ;
+	private static final String CHUNKED_OPTION = "-chunked" ;
+	private static final String PLAYER = "player" ;
+	private static final int SPRITE_INDEX = 0 ;
+	private static final int X_INDEX = 1 ;
+	private static final int Y_INDEX = 2 ;
+	private static final int EXTRA_INDEX = 3 ;
+	private static final int WIDTH_INDEX = 0 ;
+	private static final int HEIGHT_INDEX = 1 ;
+
+	/**
+	 * Returns the name of the compiled blvl file for a text lvl file.
+	 *
+	 * @param fileName	name of a lvl file
+	 * @return			name of the matching blvl file
+	 */
+	public static String compiledName(String fileName) {
+		if (fileName.endsWith(SOURCE_SUFFIX)) {
+			fileName = fileName.substring(0, fileName.length() - SOURCE_SUFFIX.length()) ;
+		}
+		return fileName + COMPILED_SUFFIX ;
+	}
+
+	/**
+	 * Returns the name of the chunk-indexed clvl file for a text lvl file.
+	 *
+	 * @param fileName	name of a lvl file
+	 * @return			name of the matching clvl file
+	 */
+	public static String chunkedName(String fileName) {
+		if (fileName.endsWith(SOURCE_SUFFIX)) {
+			fileName = fileName.substring(0, fileName.length() - SOURCE_SUFFIX.length()) ;
+		}
+		return fileName + CHUNKED_SUFFIX ;
+	}
+
+	/**
+	 * Compiles a text lvl file, writing the result to its matching blvl file.
+	 *
+	 * @param fileName	name of a lvl file containing level/Sprite data
+	 * @return			name of the blvl file written
+	 * @throws IOException
+	 */
+	public static String compile(String fileName) throws IOException {
+		return compile(fileName, compiledName(fileName)) ;
+	}
+
+	/**
+	 * Compiles a text lvl file, writing the result to the given blvl file.
+	 *
+	 * @param fileName		name of a lvl file containing level/Sprite data
+	 * @param compiledName	name of the blvl file to write
+	 * @return				name of the blvl file written
+	 * @throws IOException
+	 */
+	public static String compile(String fileName, String compiledName) throws IOException {
+
+		String[] lines = Loader.loadSprites(fileName) ;
+		if (lines == null) {
+			throw new IOException("could not read " + fileName) ;
+		}
+		String[] header = lines[0].split(",") ;
+		int width = Integer.parseInt(header[WIDTH_INDEX]) ;
+		int height = Integer.parseInt(header[HEIGHT_INDEX]) ;
+		checkCoordinate(width, fileName) ;
+		checkCoordinate(height, fileName) ;
+
+		// gather each distinct Sprite name and extra columns, and pack each line into one record
+		ArrayList<String> palette = new ArrayList<>() ;
+		int[] records = new int[lines.length - 1] ;
+
+		for (int i=1; i<lines.length; i++) {
+			String[] spriteLine = lines[i].split(",") ;
+			String entry = packPaletteEntry(spriteLine) ;
+			int tileX = Integer.parseInt(spriteLine[X_INDEX]) ;
+			int tileY = Integer.parseInt(spriteLine[Y_INDEX]) ;
+			checkCoordinate(tileX, fileName) ;
+			checkCoordinate(tileY, fileName) ;
+
+			int type = palette.indexOf(entry) ;
+			if (type == -1) {
+				type = palette.size() ;
+				palette.add(entry) ;
+				if (palette.size() > MAX_PALETTE_SIZE) {
+					throw new IOException("too many Sprite types in " + fileName) ;
+				}
+			}
+			records[i - 1] = (type << TYPE_SHIFT) | (tileX << X_SHIFT) | tileY ;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compiledName)))) {
+			out.writeInt(MAGIC) ;
+			out.writeShort(VERSION) ;
+			out.writeShort(width) ;
+			out.writeShort(height) ;
+
+			out.writeByte(palette.size()) ;
+			for (String entry : palette) {
+				byte[] bytes = entry.getBytes(StandardCharsets.US_ASCII) ;
+				out.writeByte(bytes.length) ;
+				out.write(bytes) ;
+			}
+
+			out.writeInt(records.length) ;
+			for (int record : records) {
+				out.writeInt(record) ;
+			}
+		}
+		return compiledName ;
+	}
+
+	/**
+	 * Compiles a text lvl file into the chunk-indexed clvl format, writing the result to the given file.
+	 *
+	 * @param fileName		name of a lvl file containing level/Sprite data
+	 * @param chunkedName	name of the clvl file to write
+	 * @return				name of the clvl file written
+	 * @throws IOException
+	 */
+	public static String compileChunked(String fileName, String chunkedName) throws IOException {
+
+		String[] lines = Loader.loadSprites(fileName) ;
+		if (lines == null) {
+			throw new IOException("could not read " + fileName) ;
+		}
+		String[] header = lines[0].split(",") ;
+		int width = Integer.parseInt(header[WIDTH_INDEX]) ;
+		int height = Integer.parseInt(header[HEIGHT_INDEX]) ;
+		checkCoordinate(width, fileName) ;
+		checkCoordinate(height, fileName) ;
+
+		int chunkColumns = (width + SpriteGrid.CHUNK_SIZE - 1) / SpriteGrid.CHUNK_SIZE ;
+		int chunkRows = (height + SpriteGrid.CHUNK_SIZE - 1) / SpriteGrid.CHUNK_SIZE ;
+		int[] chunkCounts = new int[chunkColumns * chunkRows] ;
+
+		// pack each line as for a blvl file, counting the records of each palette entry and chunk
+		ArrayList<String> palette = new ArrayList<>() ;
+		int[] paletteCounts = new int[MAX_PALETTE_SIZE] ;
+		int[] records = new int[lines.length - 1] ;
+		int[] recordChunks = new int[lines.length - 1] ;
+		int playerX = 0 ;
+		int playerY = 0 ;
+
+		for (int i=1; i<lines.length; i++) {
+			String[] spriteLine = lines[i].split(",") ;
+			String entry = packPaletteEntry(spriteLine) ;
+			int tileX = Integer.parseInt(spriteLine[X_INDEX]) ;
+			int tileY = Integer.parseInt(spriteLine[Y_INDEX]) ;
+			checkCoordinate(tileX, fileName) ;
+			checkCoordinate(tileY, fileName) ;
+			if (tileX >= width || tileY >= height) {
+				throw new IOException("coordinate (" + tileX + ", " + tileY + ") off the map in " + fileName) ;
+			}
+			if (spriteLine[SPRITE_INDEX].equals(PLAYER)) {
+				playerX = tileX ;
+				playerY = tileY ;
+			}
+
+			int type = palette.indexOf(entry) ;
+			if (type == -1) {
+				type = palette.size() ;
+				palette.add(entry) ;
+				if (palette.size() > MAX_PALETTE_SIZE) {
+					throw new IOException("too many Sprite types in " + fileName) ;
+				}
+			}
+			paletteCounts[type]++ ;
+
+			int chunk = ((tileY / SpriteGrid.CHUNK_SIZE) * chunkColumns) + (tileX / SpriteGrid.CHUNK_SIZE) ;
+			chunkCounts[chunk]++ ;
+			records[i - 1] = (type << TYPE_SHIFT) | (tileX << X_SHIFT) | tileY ;
+			recordChunks[i - 1] = chunk ;
+		}
+
+		// find where each chunk's records start, then sort the records into their chunks, keeping their order
+		int[] chunkStarts = new int[chunkCounts.length] ;
+		for (int chunk=1; chunk<chunkCounts.length; chunk++) {
+			chunkStarts[chunk] = chunkStarts[chunk - 1] + chunkCounts[chunk - 1] ;
+		}
+		int[] sorted = new int[records.length] ;
+		int[] nextSlot = Arrays.copyOf(chunkStarts, chunkStarts.length) ;
+		for (int i=0; i<records.length; i++) {
+			sorted[nextSlot[recordChunks[i]]++] = records[i] ;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunkedName)))) {
+			out.writeInt(CHUNKED_MAGIC) ;
+			out.writeShort(CHUNKED_VERSION) ;
+			out.writeShort(width) ;
+			out.writeShort(height) ;
+			out.writeShort(playerX) ;
+			out.writeShort(playerY) ;
+
+			out.writeByte(palette.size()) ;
+			for (int type=0; type<palette.size(); type++) {
+				byte[] bytes = palette.get(type).getBytes(StandardCharsets.US_ASCII) ;
+				out.writeByte(bytes.length) ;
+				out.write(bytes) ;
+				out.writeInt(paletteCounts[type]) ;
+			}
+
+			for (int chunk=0; chunk<chunkCounts.length; chunk++) {
+				out.writeInt(chunkStarts[chunk]) ;
+				out.writeInt(chunkCounts[chunk]) ;
+			}
+			for (int record : sorted) {
+				out.writeInt(record) ;
+			}
+		}
+		return chunkedName ;
+	}
+
+	/**
+	 * Compiles the given lvl files, or every lvl file in res/levels if none are given.
+	 * Given -chunked as the first argument, compiles them into clvl files instead.
+	 *
+	 * @param args	Command-line arguments: optionally -chunked, then optionally the lvl files to compile
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		ArrayList<String> fileNames = new ArrayList<>() ;
+		boolean chunked = (args.length > 0 && args[0].equals(CHUNKED_OPTION)) ;
+		for (int i=(chunked ? 1 : 0); i<args.length; i++) {
+			fileNames.add(args[i]) ;
+		}
+		if (fileNames.isEmpty()) {
+			File[] files = new File(LEVEL_DIRECTORY).listFiles() ;
+			files = (files != null) ? files : new File[0] ;
+			Arrays.sort(files) ;
+			for (File file : files) {
+				if (file.getName().endsWith(SOURCE_SUFFIX)) {
+					fileNames.add(file.getPath()) ;
+				}
+			}
+		}
+
+		for (String fileName : fileNames) {
+			String compiledName = chunked ? compileChunked(fileName, chunkedName(fileName)) : compile(fileName) ;
+			System.out.println(fileName + " -> " + compiledName) ;
+		}
+	}
+
+	/**
+	 * Turns a palette entry back into the columns of a lvl line, with empty coordinates,
+	 * so it can be read in the same way as a line of a lvl file.
+	 *
+	 * @param entry		a palette entry read from a blvl file
+	 * @return			the entry's Sprite name and extra columns, in their lvl line positions
+	 */
+	public static String[] unpackPaletteEntry(String entry) {
+		String[] columns = entry.split(",") ;
+		String[] spriteLine = new String[Math.max(EXTRA_INDEX, columns.length + EXTRA_INDEX - 1)] ;
+		Arrays.fill(spriteLine, "") ;
+
+		spriteLine[SPRITE_INDEX] = columns[0] ;
+		System.arraycopy(columns, 1, spriteLine, EXTRA_INDEX, columns.length - 1) ;
+		return spriteLine ;
+	}
+
+	private static String packPaletteEntry(String[] spriteLine) {
+		// the Sprite name, followed by any columns after its coordinates
+		StringBuilder entry = new StringBuilder(spriteLine[SPRITE_INDEX]) ;
+		for (int i=EXTRA_INDEX; i<spriteLine.length; i++) {
+			entry.append(",").append(spriteLine[i]) ;
+		}
+		return entry.toString() ;
+	}
+
+	private static void checkCoordinate(int value, String fileName) throws IOException {
+		if (value < 0 || value > COORDINATE_MASK) {
+			throw new IOException("coordinate " + value + " out of range in " + fileName) ;
+		}
+	}
+}
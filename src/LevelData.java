@@ -0,0 +1,151 @@
+import java.util.ArrayList ;
+
+/**
+ * Holds everything read from one level file: the size of its map, and its Sprites in drawing order.
+ * Once prepared, also holds the structures World plays the level with, so a level can be made
+ * ready to play away from the game thread.
+ *
+ * A level streamed from a clvl file starts with no Sprites; once prepared, its ChunkStore adds and
+ * removes Sprites chunk by chunk as the level is played.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class LevelData {
+
+	private int width ;
+	private int height ;
+	private ArrayList<Sprite> spriteArray ;
+	private SpritePartitions partitions ;
+	private SpriteGrid grid ;
+	private FlowField field ;
+	private MoveJournal journal ;
+	private SignalBoard board ;
+	private GoalTracker goals ;
+	private TimerWheel wheel ;
+	private ChunkStore chunks ;
+
+	/**
+	 * Creates a LevelData holding a map's size and Sprites.
+	 *
+	 * @param width			the width of the map in tiles
+	 * @param height			the height of the map in tiles
+	 * @param spriteArray	ArrayList of every Sprite in the level, in drawing order
+	 */
+	public LevelData(int width, int height, ArrayList<Sprite> spriteArray) {
+		this.width = width ;
+		this.height = height ;
+		this.spriteArray = spriteArray ;
+	}
+
+	/**
+	 * Creates a LevelData for a level streamed in by the given ChunkStore, holding no Sprites until prepared.
+	 *
+	 * @param width			the width of the map in tiles
+	 * @param height			the height of the map in tiles
+	 * @param chunks			the ChunkStore which streams the level's Sprites
+	 */
+	public LevelData(int width, int height, ChunkStore chunks) {
+		this(width, height, new ArrayList<>()) ;
+		this.chunks = chunks ;
+	}
+
+	/**
+	 * Builds the structures World needs to play this level: SpritePartitions sorting its Sprites by
+	 * type, a SpriteGrid indexing every Sprite, a FlowField shared by its Mages, a MoveJournal
+	 * attached to every Undoable Sprite, a SignalBoard connecting its Switches to its Doors, a
+	 * GoalTracker counting its covered Targets, and a TimerWheel timing its timed Sprites. A streamed level then loads the chunks around its
+	 * Player. May be called from any thread, so long as the level is not yet being played.
+	 */
+	public void prepare() {
+
+		// sort the Sprites by type and index every Sprite by tile, in one pass over the level
+		partitions = new SpritePartitions() ;
+		grid = new SpriteGrid(width, height, chunks != null) ;
+		for (Sprite sprite : spriteArray) {
+			partitions.add(sprite) ;
+			grid.add(sprite) ;
+		}
+
+		// lead every Mage to the Player along one field, searched once per Player move
+		field = new FlowField(grid) ;
+		for (Mage mage : partitions.getMages()) {
+			mage.setField(field) ;
+		}
+
+		// record the changes made to Undoable Sprites on each move, so moves can be undone
+		journal = new MoveJournal(grid) ;
+		for (Sprite sprite : partitions.getUndoables()) {
+			sprite.setJournal(journal) ;
+		}
+
+		// connect Switches to the Doors listening on their channels
+		board = new SignalBoard() ;
+		for (Switch source : partitions.getSwitches()) {
+			board.addSource(source) ;
+		}
+		for (Door door : partitions.getDoors()) {
+			board.subscribe(door) ;
+		}
+
+		// count covered Targets as they change, so the level's completion is known at once
+		goals = new GoalTracker() ;
+		for (Target target : partitions.getTargets()) {
+			goals.addTarget(target) ;
+		}
+
+		// schedule the first actions of timed Sprites
+		wheel = new TimerWheel() ;
+		for (Timed timed : partitions.getTimed()) {
+			timed.setWheel(wheel) ;
+		}
+
+		// stream in the first chunks of a streamed level
+		if (chunks != null) {
+			chunks.attach(this) ;
+		}
+	}
+
+	/**
+	 * @return	a boolean indicating if prepare has been called on this level
+	 */
+	public boolean isPrepared() {
+		return grid != null ;
+	}
+
+	/* getters */
+	public int getWidth() {
+		return width ;
+	}
+	public int getHeight() {
+		return height ;
+	}
+	public ArrayList<Sprite> getSprites() {
+		return spriteArray ;
+	}
+	public SpritePartitions getPartitions() {
+		return partitions ;
+	}
+	public SpriteGrid getGrid() {
+		return grid ;
+	}
+	public FlowField getField() {
+		return field ;
+	}
+	public MoveJournal getJournal() {
+		return journal ;
+	}
+	public SignalBoard getBoard() {
+		return board ;
+	}
+	public GoalTracker getGoals() {
+		return goals ;
+	}
+	public TimerWheel getWheel() {
+		return wheel ;
+	}
+	public ChunkStore getChunks() {
+		return chunks ;
+	}
+	/* ------- */
+}
@@ -0,0 +1,91 @@
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+
+/**
+ * Loads and prepares a level on a background thread, so it is ready to play the moment it is needed.
+ *
+ * Every LevelPrefetcher shares one daemon loading thread. A World asks for the next level to be
+ * prefetched while the current one is played, and later takes it; if the level asked for is not
+ * the one prefetched, or its loading failed, it is instead loaded on the calling thread.
+ * Only Sprites and their game structures are built in the background: Images are still loaded
+ * by WorldRenderer on the render thread, which owns the GL context.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class LevelPrefetcher {
+
+	private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "level-prefetcher") ;
+		thread.setDaemon(true) ;
+		return thread ;
+	}) ;
+
+	private String pendingName ;
+	private Future<LevelData> pending ;
+
+	/**
+	 * Starts loading and preparing the given level in the background, replacing any
+	 * level previously prefetched but not yet taken.
+	 *
+	 * @param levelName	name of a lvl file containing level/Sprite data
+	 */
+	public synchronized void prefetch(String levelName) {
+		if (levelName.equals(pendingName)) {
+			return ;
+		}
+		cancel() ;
+
+		pendingName = levelName ;
+		pending = LOADER.submit(() -> loadLevel(levelName)) ;
+	}
+
+	/**
+	 * Returns the given level, loaded and prepared ready to play. Uses the prefetched level if it
+	 * is the one asked for, waiting for it to finish if needed; otherwise loads it now.
+	 *
+	 * @param levelName	name of a lvl file containing level/Sprite data
+	 * @return			the prepared level, or null if it could not be read
+	 */
+	public synchronized LevelData take(String levelName) {
+		LevelData level = null ;
+
+		if (levelName.equals(pendingName)) {
+			try {
+				level = pending.get() ;
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt() ;
+			}
+			catch (ExecutionException e) {
+				e.printStackTrace() ;
+			}
+			pendingName = null ;
+			pending = null ;
+		}
+
+		// a prefetched level can only be played once, so anything else is loaded fresh
+		return (level != null) ? level : loadLevel(levelName) ;
+	}
+
+	/**
+	 * Abandons any level prefetched but not yet taken.
+	 */
+	public synchronized void cancel() {
+		if (pending != null) {
+			pending.cancel(false) ;
+		}
+		pendingName = null ;
+		pending = null ;
+	}
+
+	private static LevelData loadLevel(String levelName) {
+		LevelData level = Loader.loadLevel(levelName) ;
+		if (level != null) {
+			level.prepare() ;
+		}
+		return level ;
+	}
+}
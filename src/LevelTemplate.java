@@ -0,0 +1,90 @@
+import java.util.ArrayList ;
+import java.util.Arrays ;
+
+/**
+ * A level read and parsed once, from which any number of fresh copies can be built.
+ *
+ * A LevelTemplate only holds the level's size and the columns of each of its lvl file lines, and
+ * is never changed once loaded, so one template can be shared by Worlds on many threads at once.
+ * Each copy built from it has its own Sprites and game structures, none of which hold Slick resources.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class LevelTemplate {
+
+	private static final int X_INDEX = 1 ;
+	private static final int Y_INDEX = 2 ;
+	private static final int WIDTH_INDEX = 0 ;
+	private static final int HEIGHT_INDEX = 1 ;
+
+	private String name ;
+	private int width ;
+	private int height ;
+
+	// the columns of each Sprite's line, and its coordinates, in drawing order
+	private String[][] spriteLines ;
+	private int[] tileXs ;
+	private int[] tileYs ;
+
+	private LevelTemplate(String name, String[] lines) {
+		this.name = name ;
+
+		String[] header = lines[0].split(",") ;
+		width = Integer.parseInt(header[WIDTH_INDEX]) ;
+		height = Integer.parseInt(header[HEIGHT_INDEX]) ;
+
+		String[] sprites = Arrays.copyOfRange(lines, 1, lines.length) ;
+		spriteLines = new String[sprites.length][] ;
+		tileXs = new int[sprites.length] ;
+		tileYs = new int[sprites.length] ;
+		for (int i=0; i<sprites.length; i++) {
+			spriteLines[i] = sprites[i].split(",") ;
+			tileXs[i] = Integer.parseInt(spriteLines[i][X_INDEX]) ;
+			tileYs[i] = Integer.parseInt(spriteLines[i][Y_INDEX]) ;
+		}
+	}
+
+	/**
+	 * Reads and parses the level in the given lvl file.
+	 *
+	 * @param fileName	name of a lvl file containing level/Sprite data
+	 * @return			the parsed level, or null if it could not be read
+	 */
+	public static LevelTemplate load(String fileName) {
+		String[] lines = Loader.loadSprites(fileName) ;
+		if (lines == null) {
+			return null ;
+		}
+		return new LevelTemplate(fileName, lines) ;
+	}
+
+	/**
+	 * Builds a fresh copy of the level, with new Sprites, prepared ready to play.
+	 * May be called from any thread.
+	 *
+	 * @return	a new prepared copy of the level
+	 */
+	public LevelData createLevel() {
+		ArrayList<Sprite> spriteArray = new ArrayList<>(spriteLines.length) ;
+		for (int i=0; i<spriteLines.length; i++) {
+			spriteArray.add(Loader.createSprite(spriteLines[i], tileXs[i], tileYs[i])) ;
+		}
+
+		LevelData level = new LevelData(width, height, spriteArray) ;
+		level.prepare() ;
+		return level ;
+	}
+
+	/* getters */
+	public String getName() {
+		return name ;
+	}
+	public int getWidth() {
+		return width ;
+	}
+	public int getHeight() {
+		return height ;
+	}
+	/* ------- */
+}
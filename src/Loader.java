@@ -1,9 +1,14 @@
 import java.util.ArrayList ;
 import java.util.Arrays ;
 import java.io.BufferedReader ;
+import java.io.File ;
 import java.io.FileReader ;
-
-import org.newdawn.slick.SlickException ;
+import java.io.IOException ;
+import java.nio.ByteBuffer ;
+import java.nio.channels.FileChannel ;
+import java.nio.charset.StandardCharsets ;
+import java.nio.file.Paths ;
+import java.nio.file.StandardOpenOption ;
 
 /**
  * Static class containing methods to gather sprite data and create basic larger structures of Sprites.
@@ -18,6 +23,12 @@ public class Loader {
 	private static final int SPRITE_INDEX = 0 ;
 	private static final int X_INDEX = 1 ;
 	private static final int Y_INDEX = 2 ;
+	private static final int CHANNEL_INDEX = 3 ;
+	private static final int GATE_INDEX = 4 ;
+	private static final int WIDTH_INDEX = 0 ;
+	private static final int HEIGHT_INDEX = 1 ;
+	private static final int BYTE_MASK = 0xFF ;
+	private static final int SHORT_MASK = 0xFFFF ;
 	
 	private static final String PLAYER = "player" ;
 	private static final String SKELETON = "skeleton" ;
@@ -34,12 +45,130 @@ public class Loader {
 	private static final String TARGET = "target" ;
 	private static final String DOOR = "door" ;
 	private static final String SWITCH = "switch" ;
+	private static final String BLOOD = "blood" ;
+	
+	private static final String GATE_ALL = "all" ;
 
 	
+	/**
+	 * Loads a level, reading its compiled blvl file if one is present and up to date,
+	 * and otherwise its text lvl file.
+	 * 
+	 * @param	fileName		name of a lvl file containing level/Sprite data
+	 * @return	the level's size and Sprites, or null if it could not be read
+	 */
+	public static LevelData loadLevel(String fileName) {
+		
+		// a chunk-indexed level is streamed in as it is played, rather than loaded whole
+		if (fileName.endsWith(LevelCompiler.CHUNKED_SUFFIX)) {
+			return loadChunkedLevel(fileName) ;
+		}
+		
+		File source = new File(fileName) ;
+		File compiled = new File(LevelCompiler.compiledName(fileName)) ;
+		
+		// a compiled file older than its source is stale, so fall back to the text
+		if (compiled.exists() && (!source.exists() || compiled.lastModified() >= source.lastModified())) {
+			LevelData level = loadCompiledLevel(compiled.getPath()) ;
+			if (level != null) {
+				return level ;
+			}
+		}
+		return loadTextLevel(fileName) ;
+	}
+	
+	/**
+	 * Loads a level from a text lvl file, in the format described by loadSprites.
+	 * 
+	 * @param	fileName		name of a lvl file containing level/Sprite data
+	 * @return	the level's size and Sprites, or null if it could not be read
+	 */
+	public static LevelData loadTextLevel(String fileName) {
+		
+		String[] lines = loadSprites(fileName) ;
+		if (lines == null) {
+			return null ;
+		}
+		
+		// gather width and height from header row, and create Sprites from the rest
+		String[] header = lines[0].split(",") ;
+		int width = Integer.parseInt(header[WIDTH_INDEX]) ;
+		int height = Integer.parseInt(header[HEIGHT_INDEX]) ;
+		lines = Arrays.copyOfRange(lines, 1, lines.length) ;
+		
+		return new LevelData(width, height, createSpriteArray(lines)) ;
+	}
+	
+	/**
+	 * Loads a level from a binary blvl file written by LevelCompiler.
+	 * The file is memory-mapped and its packed records read in place, so no text is parsed.
+	 * 
+	 * @param	fileName		name of a blvl file containing level/Sprite data
+	 * @return	the level's size and Sprites, or null if it could not be read
+	 */
+	public static LevelData loadCompiledLevel(String fileName) {
+		
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) ;
+			
+			// check the header, then read the map's size
+			if (buffer.getInt() != LevelCompiler.MAGIC || (buffer.getShort() & SHORT_MASK) != LevelCompiler.VERSION) {
+				throw new IOException("not a compiled level: " + fileName) ;
+			}
+			int width = buffer.getShort() & SHORT_MASK ;
+			int height = buffer.getShort() & SHORT_MASK ;
+			
+			// read the palette of Sprite names, each with any extra columns
+			String[][] palette = new String[buffer.get() & BYTE_MASK][] ;
+			for (int i=0; i<palette.length; i++) {
+				byte[] name = new byte[buffer.get() & BYTE_MASK] ;
+				buffer.get(name) ;
+				palette[i] = LevelCompiler.unpackPaletteEntry(new String(name, StandardCharsets.US_ASCII)) ;
+			}
+			
+			// create a Sprite from each packed record
+			int spriteCount = buffer.getInt() ;
+			ArrayList<Sprite> spriteArray = new ArrayList<>(spriteCount) ;
+			for (int i=0; i<spriteCount; i++) {
+				int record = buffer.getInt() ;
+				String[] spriteLine = palette[record >>> LevelCompiler.TYPE_SHIFT] ;
+				int tileX = (record >>> LevelCompiler.X_SHIFT) & LevelCompiler.COORDINATE_MASK ;
+				int tileY = record & LevelCompiler.COORDINATE_MASK ;
+				
+				spriteArray.add(createSprite(spriteLine, tileX, tileY)) ;
+			}
+			return new LevelData(width, height, spriteArray) ;
+		}
+		catch (Exception e) {
+			e.printStackTrace() ;
+		}
+		return null ;
+	}
+	
+	/**
+	 * Opens a level from a chunk-indexed clvl file written by LevelCompiler. No Sprites are read
+	 * until the level is prepared, when its ChunkStore loads the chunks around the Player.
+	 * 
+	 * @param	fileName		name of a clvl file containing level/Sprite data
+	 * @return	the level's size and ChunkStore, or null if it could not be read
+	 */
+	public static LevelData loadChunkedLevel(String fileName) {
+		
+		try {
+			ChunkStore chunks = new ChunkStore(fileName) ;
+			return new LevelData(chunks.getWidth(), chunks.getHeight(), chunks) ;
+		}
+		catch (IOException e) {
+			e.printStackTrace() ;
+		}
+		return null ;
+	}
+	
 	/**
 	 * Returns an array of sprite data to be used in creating Sprites for a map
 	 * Takes a lvl file which holds csv lines with a header, "width,height",
-	 * then each line the data for one Sprite in format: "name,x,y".
+	 * then each line the data for one Sprite in format: "name,x,y". Switches may add a
+	 * signal channel, "switch,x,y,channel", and Doors a channel and gate, "door,x,y,channel,all".
 	 *  
 	 * @param	fileName		name of a lvl file containing level/Sprite data
 	 * @return	an array of each line from the input file
@@ -81,25 +210,37 @@ public class Loader {
 	 * @param	lines	an array containing each line from a lvl file
 	 * @return			an ArrayList of Sprite objects built with the lvl file's data
 	 */
-	public static ArrayList<Sprite> createSpriteArray(String[] lines) throws SlickException {
+	public static ArrayList<Sprite> createSpriteArray(String[] lines) {
 		
 		ArrayList<Sprite> spriteArray = new ArrayList<>() ;
 		
 		for (String line : lines) {
 			String[] spriteLine = line.split(",") ;
 			
-			String spriteName = spriteLine[SPRITE_INDEX] ;
 			int tileX = Integer.parseInt(spriteLine[X_INDEX]) ;
 			int tileY = Integer.parseInt(spriteLine[Y_INDEX]) ;
 
-			spriteArray.add(createSprite(spriteName, tileX, tileY)) ;
+			spriteArray.add(createSprite(spriteLine, tileX, tileY)) ;
 		}
 		return spriteArray ;
 	}
 
-	private static Sprite createSprite(String spriteName, int tileX, int tileY) throws SlickException {
+	/**
+	 * Creates one Sprite from the columns of its line in a lvl file.
+	 * Switches and Doors may also name a signal channel, and Doors a gate, in optional extra columns.
+	 * 
+	 * @param	spriteLine	the columns of a lvl file line: name, x, y, then any extra columns
+	 * @param	tileX		the Sprite's x coordinate
+	 * @param	tileY		the Sprite's y coordinate
+	 * @return				a new Sprite of the named type
+	 */
+	public static Sprite createSprite(String[] spriteLine, int tileX, int tileY) {
 		
 		/* create a new sprite of given type with gathered data */
+		String spriteName = spriteLine[SPRITE_INDEX] ;
+		String channel = (spriteLine.length > CHANNEL_INDEX) ? spriteLine[CHANNEL_INDEX] : SignalBoard.DEFAULT_CHANNEL ;
+		int gate = (spriteLine.length > GATE_INDEX && spriteLine[GATE_INDEX].equals(GATE_ALL)) ? Door.GATE_ALL : Door.GATE_ANY ;
+		
 		switch (spriteName) {
 			case PLAYER :
 				return new Player(tileX, tileY) ;
@@ -135,10 +276,13 @@ public class Loader {
 				return new Target(tileX, tileY) ;
 			
 			case DOOR :
-				return new Door(tileX, tileY) ;
+				return new Door(tileX, tileY, channel, gate) ;
 				
 			case SWITCH :
-				return new Switch(tileX, tileY) ;
+				return new Switch(tileX, tileY, channel) ;
+				
+			case BLOOD :
+				return new Blood(tileX, tileY) ;
 			
 			// base case, make any unknown input a player so it can be easily seen and fixed
 			default :
@@ -148,22 +292,21 @@ public class Loader {
 	}
 	
 	/**
-	 * Creates an ArrayList of Unit subtype Objects.
-	 * Used by a World to perform checks on its Units more efficiently.
-	 * Takes the Sprites that form one level, as an ArrayList, and
-	 * finds every Unit type Sprite within, adding them to an additional Unit ArrayList.
-	 *  
-	 * @param	spriteArray		an ArrayList containing each Sprite in a level
-	 * @return					an ArrayList of all Unit objects contained in the given Sprite Array
+	 * Describes a Sprite as the columns of a lvl file line other than its coordinates, joined as
+	 * a palette entry, so that createSprite can build the same type of Sprite again.
+	 * 
+	 * @param	sprite	the Sprite to describe
+	 * @return			the Sprite's name, then any channel and gate, separated by commas
 	 */
-	public static ArrayList<Unit> createUnitArray(ArrayList<Sprite> spriteArray) throws SlickException {
-		ArrayList<Unit> unitArray = new ArrayList<>() ;
+	public static String describeSprite(Sprite sprite) {
 		
-		for (Sprite sprite : spriteArray) {
-			if (sprite instanceof Unit) {
-				unitArray.add((Unit) sprite) ;
-			}
+		if (sprite instanceof Switch) {
+			return SWITCH + "," + ((Switch) sprite).getChannel() ;
+		}
+		else if (sprite instanceof Door) {
+			Door door = (Door) sprite ;
+			return DOOR + "," + door.getChannel() + ((door.getGate() == Door.GATE_ALL) ? "," + GATE_ALL : "") ;
 		}
-		return unitArray ;
+		return sprite.getName() ;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
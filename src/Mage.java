@@ -1,12 +1,12 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * A subclass of Unit which represents the 'Mage' class of enemy.
- * A Mage moves one tile whenever the Player does,
- * choosing the direction to move depending its distance from the Player on each axis.
+ * A Mage moves one tile whenever the Player does, along the shortest path to the Player
+ * found from its level's FlowField, preferring to close the axis it is furthest from the Player on.
+ * If no path reaches the Player, it moves depending on its distance from the Player on each axis.
  * 
  * @author Maxim Kirkman
  *
@@ -18,15 +18,15 @@ public class Mage extends Unit {
 
 	private float distX ;
 	private float distY ;
+	private FlowField field ;
 
 	/**
 	 * Creates a Mage Sprite at the given tile coordinates.
 	 * 
 	 * @param x					Mage's x coordinate
 	 * @param y					Mage's y coordinate
-	 * @throws SlickException
 	 */
-	public Mage(int x, int y) throws SlickException {
+	public Mage(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		distX = 0 ;
 		distY = 0 ;
@@ -36,14 +36,14 @@ public class Mage extends Unit {
      * Update the Mage Sprite.
      * If World has allowed movement, makes one move attempt.
      * 
-     * @param input			The Slick user input object
-     * @param delta			Time passed since last frame (milliseconds)
-     * @param spriteArray	ArrayList of all Sprites in the level
+     * @param command		The Command given for this tick
+     * @param delta			Time passed since last tick (milliseconds)
+     * @param grid			SpriteGrid indexing all Sprites in the level by tile
      */
 	@Override
-	public void update(Input input, int delta, ArrayList<Sprite> spriteArray) {
+	public void update(int command, int delta, SpriteGrid grid) {
 		if (canMove()) {
-			move(spriteArray) ;
+			move(grid) ;
 			allowMove(false) ;
 		}
 
@@ -60,7 +60,43 @@ public class Mage extends Unit {
 	@Override
 	public void playerHasMoved(Position playerPosition, int width, int height) {
 		allowMove(true) ;
-		findPixelDistance(playerPosition, width, height) ;
+		findPixelDistance(playerPosition) ;
+	}
+
+	/**
+	 * Writes the Mage's direction, and its distance from the Player, into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		super.writeState(out) ;
+		out.writeFloat(distX) ;
+		out.writeFloat(distY) ;
+	}
+	
+	/**
+	 * Reads back the Mage's direction, and its distance from the Player, from a World snapshot.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		super.readState(in, grid) ;
+		distX = in.readFloat() ;
+		distY = in.readFloat() ;
+	}
+	
+	/**
+	 * Attaches the Mage to the FlowField of its level, shared by every Mage in it.
+	 * 
+	 * @param field		the FlowField leading to the Player of the Mage's level
+	 */
+	public void setField(FlowField field) {
+		this.field = field ;
 	}
 
 	private int sgn(float num) {
@@ -71,38 +107,101 @@ public class Mage extends Unit {
 		else return 1 ;
 	}
 		
-	private void move(ArrayList<Sprite> spriteArray) {
+	/**
+	 * Plans the Mage's step towards Player, which never turns it.
+	 * 
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return				the planned step
+	 */
+	@Override
+	public int planMove(SpriteGrid grid) {
+		int direction = findStep(grid) ;
+		return (direction != NO_DIRECTION) ? (direction | PLAN_MOVES) : NO_DIRECTION ;
+	}
+	
+	/**
+	 * Takes a step planned by planMove.
+	 * 
+	 * @param plan			a plan returned by planMove
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 */
+	@Override
+	public void applyMove(int plan, SpriteGrid grid) {
+		if ((plan & PLAN_MOVES) != 0) {
+			int direction = plan & PLAN_DIRECTION_MASK ;
+			makeMove(WorldChecker.getNextX(getX(), direction), WorldChecker.getNextY(getY(), direction), grid) ;
+		}
+		allowMove(false) ;
+	}
 		
-		// move along the axis with the greatest distance from Player
-		if (Math.abs(distX) > Math.abs(distY)) {
-			// find position	 on x axis
-			int newX = getPosition().getX() + (sgn(distX)) ;
-			int newY = getPosition().getY() ;
-			Position newPosition = new Position(newX, newY) ;
-			
-			// attempt move, return if successful
-			if (makeMove(newPosition, spriteArray)) {
-				return ;
-			}
+	private void move(SpriteGrid grid) {
+		int direction = findStep(grid) ;
+		if (direction != NO_DIRECTION) {
+			makeMove(WorldChecker.getNextX(getX(), direction), WorldChecker.getNextY(getY(), direction), grid) ;
 		}
-		// attempt to move along y axis
-		int newX = getPosition().getX() ;
-		int newY = getPosition().getY() + (sgn(distY)) ;
-		Position newPosition = new Position(newX, newY) ;
+	}
+	
+	private int findStep(SpriteGrid grid) {
+		/* Finds the direction of the Mage's next step, or no direction if it cannot move. *
+		 * Only reads the level, so steps can be found on several threads at once.        */
+		
+		int towardsX = (sgn(distX) < 0) ? DIRECTION_LEFT : DIRECTION_RIGHT ;
+		int towardsY = (sgn(distY) < 0) ? DIRECTION_UP : DIRECTION_DOWN ;
+		boolean xFirst = Math.abs(distX) > Math.abs(distY) ;
 		
-		makeMove(newPosition, spriteArray) ;
+		// step down the field towards Player, if a path reaches Player
+		if (field != null) {
+			int distance = field.getDistance(getX(), getY()) ;
+			if (distance != FlowField.UNREACHED) {
+				
+				// try the tiles towards Player along each axis first, the axis with the greatest distance first
+				if (xFirst && isStepCloser(towardsX, distance, grid)) {
+					return towardsX ;
+				}
+				if (isStepCloser(towardsY, distance, grid)) {
+					return towardsY ;
+				}
+				if (!xFirst && isStepCloser(towardsX, distance, grid)) {
+					return towardsX ;
+				}
+				
+				// otherwise take the way round whatever stands between Mage and Player
+				for (int direction=DIRECTION_UP; direction<=DIRECTION_LEFT; direction++) {
+					if (isStepCloser(direction, distance, grid)) {
+						return direction ;
+					}
+				}
+				return NO_DIRECTION ;
+			}
+		}
 		
+		// move along the axis with the greatest distance from Player, otherwise along the y axis
+		if (xFirst && canStep(towardsX, grid)) {
+			return towardsX ;
+		}
+		return canStep(towardsY, grid) ? towardsY : NO_DIRECTION ;
+	}
+	
+	private boolean canStep(int direction, SpriteGrid grid) {
+		return canMoveTo(WorldChecker.getNextX(getX(), direction), WorldChecker.getNextY(getY(), direction), grid) ;
+	}
+	
+	private boolean isStepCloser(int direction, int distance, SpriteGrid grid) {
+		// shows if a step would bring Mage nearer Player along the field, and can be taken
+		int newX = WorldChecker.getNextX(getX(), direction) ;
+		int newY = WorldChecker.getNextY(getY(), direction) ;
+		return isCloser(newX, newY, distance) && canMoveTo(newX, newY, grid) ;
+	}
+	
+	private boolean isCloser(int x, int y, int distance) {
+		// shows if the tile is nearer Player along the field than a tile at the given distance
+		int tileDistance = field.getDistance(x, y) ;
+		return tileDistance != FlowField.UNREACHED && tileDistance < distance ;
 	}
 
-	private void findPixelDistance(Position playerPosition, int width, int height) {
+	private void findPixelDistance(Position playerPosition) {
 		// updates the distance in pixels on each axis from Mage to Player
-		float playerPixelX = ( (playerPosition.getX() - width/2) * App.TILE_SIZE) + (App.SCREEN_WIDTH /2) ;
-		float playerPixelY = ( (playerPosition.getY() - height/2) * App.TILE_SIZE) + (App.SCREEN_HEIGHT /2) ;
-		
-		float pixelX = ( (getPosition().getX() - width/2) * App.TILE_SIZE) + (App.SCREEN_WIDTH /2) ;
-		float pixelY = ( (getPosition().getY() - height/2) * App.TILE_SIZE) + (App.SCREEN_HEIGHT /2) ;
-		
-		distX = playerPixelX - pixelX ;
-		distY = playerPixelY - pixelY ;		
+		distX = (playerPosition.getX() - getX()) * App.TILE_SIZE ;
+		distY = (playerPosition.getY() - getY()) * App.TILE_SIZE ;		
 	}
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
+import java.util.Arrays ;
+
+/**
+ * Records the changes made to Undoable Sprites during each Player move, so that moves
+ * can be undone one at a time.
+ *
+ * Rather than saving a copy of every Undoable on every move, the journal stores one compact
+ * entry - Sprite id, x, y and covered Sprite id - the first time each Sprite changes during a
+ * move. Undoing a move then only touches the Sprites which actually changed in it.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class MoveJournal {
+
+	private static final int INIT_CAPACITY = 64 ;
+	private static final int NO_COVERING = -1 ;
+	private static final int NOT_RECORDED = -1 ;
+	private static final int NO_SLOT = EntityStore.NO_SLOT ;
+
+	private SpriteGrid grid ;
+
+	// one entry per changed Sprite per move, stored as parallel arrays
+	private int[] spriteIds ;
+	private int[] oldX ;
+	private int[] oldY ;
+	private int[] coveringIds ;
+	private int entryCount ;
+
+	// the first entry of each move still on the journal
+	private int[] moveStarts ;
+	private int moveCount ;
+
+	// the entry each Sprite was last recorded in, indexed by the Sprite's EntityStore slot, so it
+	// stays as small as the Sprites loaded; an entry only counts if it still names the Sprite
+	private int[] recordedEntry ;
+	private boolean isUndoing ;
+
+	/**
+	 * Creates an empty MoveJournal for the level indexed by the given SpriteGrid.
+	 *
+	 * @param grid	SpriteGrid indexing all Sprites in the level, used to find Sprites by id
+	 */
+	public MoveJournal(SpriteGrid grid) {
+		this.grid = grid ;
+
+		spriteIds = new int[INIT_CAPACITY] ;
+		oldX = new int[INIT_CAPACITY] ;
+		oldY = new int[INIT_CAPACITY] ;
+		coveringIds = new int[INIT_CAPACITY] ;
+		entryCount = 0 ;
+
+		moveStarts = new int[INIT_CAPACITY] ;
+		moveCount = 0 ;
+
+		recordedEntry = new int[INIT_CAPACITY] ;
+		Arrays.fill(recordedEntry, NOT_RECORDED) ;
+		isUndoing = false ;
+	}
+
+	/**
+	 * Begins a new move. Any Sprite which was still changing at the end of the last move,
+	 * such as sliding Ice, is recorded straight away, so undoing this move also halts it.
+	 */
+	public void startMove() {
+
+		int lastStart = (moveCount > 0) ? moveStarts[moveCount - 1] : entryCount ;
+		int lastEnd = entryCount ;
+
+		if (moveCount == moveStarts.length) {
+			moveStarts = Arrays.copyOf(moveStarts, moveCount * 2) ;
+		}
+		moveStarts[moveCount] = entryCount ;
+		moveCount++ ;
+
+		// carry forward anything from the last move which has not yet come to rest
+		for (int i=lastStart; i<lastEnd; i++) {
+			Sprite sprite = grid.getSprite(spriteIds[i]) ;
+
+			if (sprite != null && sprite.isInLevel() && !((Undoable) sprite).isSettled()) {
+				record(sprite) ;
+			}
+		}
+	}
+
+	/**
+	 * Records the state an Undoable Sprite should return to if the current move is undone.
+	 * Only the first call for each Sprite in a move is kept. Called by a Sprite just before it changes.
+	 *
+	 * @param sprite	the Undoable Sprite about to change
+	 */
+	public void record(Sprite sprite) {
+
+		// nothing to record before the first move, or while a move is being undone
+		if (moveCount == 0 || isUndoing) {
+			return ;
+		}
+
+		int id = sprite.getId() ;
+		int slot = sprite.getSlot() ;
+		if (slot != NO_SLOT) {
+			if (isRecorded(slot, id)) {
+				return ;
+			}
+			ensureRecordable(slot) ;
+			recordedEntry[slot] = entryCount ;
+		}
+
+		if (entryCount == spriteIds.length) {
+			spriteIds = Arrays.copyOf(spriteIds, entryCount * 2) ;
+			oldX = Arrays.copyOf(oldX, entryCount * 2) ;
+			oldY = Arrays.copyOf(oldY, entryCount * 2) ;
+			coveringIds = Arrays.copyOf(coveringIds, entryCount * 2) ;
+		}
+
+		Undoable undoable = (Undoable) sprite ;
+		Position undoPosition = undoable.getUndoPosition() ;
+		Sprite undoCovering = undoable.getUndoCovering() ;
+
+		spriteIds[entryCount] = id ;
+		oldX[entryCount] = undoPosition.getX() ;
+		oldY[entryCount] = undoPosition.getY() ;
+		coveringIds[entryCount] = (undoCovering != null) ? undoCovering.getId() : NO_COVERING ;
+		entryCount++ ;
+	}
+
+	/**
+	 * Reverts every Sprite changed in the most recent move, and removes the move from the journal.
+	 * Sprites which have since left the level, such as exploded Tnt, are not restored; nor are those
+	 * in, or returning to, a chunk which a ChunkStore has unloaded.
+	 *
+	 * @return	a boolean indicating if there was a move to undo
+	 */
+	public boolean undoMove() {
+
+		if (moveCount == 0) {
+			return false ;
+		}
+		moveCount-- ;
+		int start = moveStarts[moveCount] ;
+
+		isUndoing = true ;
+		for (int i=entryCount - 1; i>=start; i--) {
+			Sprite sprite = grid.getSprite(spriteIds[i]) ;
+			if (sprite == null || !sprite.isInLevel() || !grid.isTileLoaded(oldX[i], oldY[i])) {
+				continue ;
+			}
+
+			Sprite covering = (coveringIds[i] != NO_COVERING) ? grid.getSprite(coveringIds[i]) : null ;
+			((Undoable) sprite).undo(new Position(oldX[i], oldY[i]), covering) ;
+		}
+		isUndoing = false ;
+
+		entryCount = start ;
+		return true ;
+	}
+
+	/**
+	 * Writes every entry and move on the journal into a World snapshot.
+	 *
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(entryCount) ;
+		for (int i=0; i<entryCount; i++) {
+			out.writeInt(spriteIds[i]) ;
+			out.writeInt(oldX[i]) ;
+			out.writeInt(oldY[i]) ;
+			out.writeInt(coveringIds[i]) ;
+		}
+
+		out.writeInt(moveCount) ;
+		for (int i=0; i<moveCount; i++) {
+			out.writeInt(moveStarts[i]) ;
+		}
+	}
+
+	/**
+	 * Replaces the journal with the entries and moves written by write. Which Sprites are already
+	 * recorded in the current move is found again from its entries, so the Sprites must already
+	 * be back in the grid.
+	 *
+	 * @param in			the snapshot being read
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	public void read(DataInput in) throws IOException {
+		entryCount = in.readInt() ;
+		if (entryCount > spriteIds.length) {
+			spriteIds = new int[entryCount] ;
+			oldX = new int[entryCount] ;
+			oldY = new int[entryCount] ;
+			coveringIds = new int[entryCount] ;
+		}
+		for (int i=0; i<entryCount; i++) {
+			spriteIds[i] = in.readInt() ;
+			oldX[i] = in.readInt() ;
+			oldY[i] = in.readInt() ;
+			coveringIds[i] = in.readInt() ;
+		}
+
+		moveCount = in.readInt() ;
+		if (moveCount > moveStarts.length) {
+			moveStarts = new int[moveCount] ;
+		}
+		for (int i=0; i<moveCount; i++) {
+			moveStarts[i] = in.readInt() ;
+		}
+
+		// note again the Sprites recorded in the current move, whose Sprites are back in the level
+		Arrays.fill(recordedEntry, NOT_RECORDED) ;
+		if (moveCount > 0) {
+			for (int i=moveStarts[moveCount - 1]; i<entryCount; i++) {
+				Sprite sprite = grid.getSprite(spriteIds[i]) ;
+				if (sprite != null && sprite.getSlot() != NO_SLOT) {
+					ensureRecordable(sprite.getSlot()) ;
+					recordedEntry[sprite.getSlot()] = i ;
+				}
+			}
+		}
+		isUndoing = false ;
+	}
+
+	/**
+	 * @return	the number of moves which can currently be undone
+	 */
+	public int getMoveCount() {
+		return moveCount ;
+	}
+
+	private boolean isRecorded(int slot, int id) {
+		// a slot's entry only counts if it is in the current move and names the same Sprite,
+		// as the slot may since have been given to another Sprite
+		if (slot >= recordedEntry.length) {
+			return false ;
+		}
+		int entry = recordedEntry[slot] ;
+		return entry >= moveStarts[moveCount - 1] && entry < entryCount && spriteIds[entry] == id ;
+	}
+
+	private void ensureRecordable(int slot) {
+		// grows recordedEntry to hold the given slot
+		if (slot >= recordedEntry.length) {
+			int oldLength = recordedEntry.length ;
+			recordedEntry = Arrays.copyOf(recordedEntry, Math.max(oldLength * 2, slot + 1)) ;
+			Arrays.fill(recordedEntry, oldLength, recordedEntry.length, NOT_RECORDED) ;
+		}
+	}
+}
@@ -1,12 +1,11 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * A subclass of Unit which represents the player character on-screen.
  * 
- * Player moves with user input, but must indicate to World that it has received input
+ * Player moves with movement Commands, but must indicate to World that it has received input
  * before a move can be made. It does this with a boolean which is checked by World.
  * 
  * @author Maxim Kirkman
@@ -19,65 +18,48 @@ public class Player extends Unit implements Undoable {
 	
 	private boolean isMoving ;
 	private Position nextPosition ;
-	
-	private SaveStack<Player> saves ;
 
 	/**
 	 * Creates a Player Sprite at the given tile coordinates.
 	 * 
 	 * @param x					Player's x coordinate
 	 * @param y					Player's y coordinate
-	 * @throws SlickException
 	 */
-	public Player(int x, int y) throws SlickException {
+	public Player(int x, int y) {
 		super (NAME, IMAGE_SOURCE, x, y) ;
 		
 		isMoving = false ;
 		nextPosition = WorldChecker.getNextPosition(getPosition(), getDirection()) ;
-		saves = new SaveStack<>() ;
-		
 	}
 	
     /**
      * Update the Player Sprite.
      * 
-     * Calls the move function to check user input and save its direction.
+     * Calls the move function to check the tick's command and save its direction.
      * If World has allowed movement, makes a push move.
      * 
-     * @param input			The Slick user input object
-     * @param delta			Time passed since last frame (milliseconds)
-     * @param spriteArray	ArrayList of all Sprites in the level
-     * @throws SlickException 
+     * @param command		The Command given for this tick
+     * @param delta			Time passed since last tick (milliseconds)
+     * @param grid			SpriteGrid indexing all Sprites in the level by tile
      */
 	@Override
-	public void update(Input input, int delta, ArrayList<Sprite> spriteArray) throws SlickException {
+	public void update(int command, int delta, SpriteGrid grid) {
 		isMoving = false ;
-		move(input, spriteArray) ;
+		move(command) ;
 		
 		if (canMove()) {
-			makePushMove(getDirection(), spriteArray) ;
+			makePushMove(getDirection(), grid) ;
 			isMoving = false ;
 			allowMove(false) ;
 		}
 	}
 		
-	private void move (Input input, ArrayList<Sprite> spriteArray) {
-		
-		// declares Player's intention to move if a direction key is pressed.
-		if (input.isKeyPressed(Input.KEY_UP)) {
-			declareMove(DIRECTION_UP) ;
-		}
-
-		if (input.isKeyPressed(Input.KEY_DOWN)) {
-			declareMove(DIRECTION_DOWN) ;
-		}
-		
-		if (input.isKeyPressed(Input.KEY_LEFT)) {
-			declareMove(DIRECTION_LEFT) ;
-		}
+	private void move (int command) {
 		
-		if (input.isKeyPressed(Input.KEY_RIGHT)) {
-			declareMove(DIRECTION_RIGHT) ;
+		// declares Player's intention to move if a movement command is given.
+		// movement commands share their values with the direction constants
+		if (Command.isMove(command)) {
+			declareMove(command) ;
 		}
 	}
 		
@@ -104,44 +86,89 @@ public class Player extends Unit implements Undoable {
 	}
 	
 	/**
-	 * Returns a copy of the Position Player is attempting to move to.
+	 * Returns the Position Player is attempting to move to.
 	 * This will be the current Position of Player is no attempt is being made.
 	 * 
-	 * @return a copy of Player's nextPosition variable
+	 * @return Player's nextPosition variable
 	 */
 	public Position getNextPosition() {
-		return new Position (nextPosition.getX(), nextPosition.getY()) ;
+		return nextPosition ;
 	}
 	
 	/**
-	 * Saves Player's current state in its SaveStack, to be retrieved if an undo command is given.
+	 * Writes the Player's direction, and the move it has declared, into a World snapshot.
 	 * 
-	 * @throws SlickException
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
 	 */
 	@Override
-	public void save() throws SlickException {
-		saves.add(copy()) ;
+	public void writeState(DataOutput out) throws IOException {
+		super.writeState(out) ;
+		out.writeBoolean(isMoving) ;
+		out.writeInt(nextPosition.getX()) ;
+		out.writeInt(nextPosition.getY()) ;
 	}
 	
 	/**
-	 * Steps Player back one in its move history.
+	 * Reads back the Player's direction, and the move it has declared, from a World snapshot.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
 	 */
 	@Override
-	public void undo() {
-		Player undoPlayer = saves.load() ;
-		setSpritePosition(undoPlayer.getPosition()) ;
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		super.readState(in, grid) ;
+		isMoving = in.readBoolean() ;
+		int nextX = in.readInt() ;
+		int nextY = in.readInt() ;
+		if (!nextPosition.isAt(nextX, nextY)) {
+			nextPosition = new Position(nextX, nextY) ;
+		}
 	}
-
+	
 	/**
-	 * Copies this Player's data into a new Player object.
+	 * @return	the Position Player returns to if the current move is undone
+	 */
+	@Override
+	public Position getUndoPosition() {
+		return getPosition() ;
+	}
+	
+	/**
+	 * @return	null, as Player never covers another Sprite
+	 */
+	@Override
+	public Sprite getUndoCovering() {
+		return null ;
+	}
+	
+	/**
+	 * Steps Player back to a Position recorded in its level's MoveJournal.
 	 * 
-	 * Used to allow Player to save and access its own past data in its SaveStack.
+	 * @param position	the Position to return to
+	 * @param covering	ignored, as Player never covers another Sprite
+	 */
+	@Override
+	public void undo(Position position, Sprite covering) {
+		setSpritePosition(position) ;
+	}
+	
+	/**
+	 * @return	true, as Player finishes every move within the move itself
+	 */
+	@Override
+	public boolean isSettled() {
+		return true ;
+	}
+	
+	/**
+	 * The camera follows the Player, so the chunks around it are always kept loaded.
 	 * 
-	 * @return	a new Player Sprite containing copies of this Player's data
-	 * @throws 	SlickException
+	 * @return	true, as the Player keeps the chunks around it loaded
 	 */
 	@Override
-	public Player copy() throws SlickException {
-		return new Player(getPosition().getX(), getPosition().getY()) ;
+	public boolean keepsChunkLoaded() {
+		return true ;
 	}
 }
\ No newline at end of file
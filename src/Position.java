@@ -1,77 +1,83 @@
-
-
 /**
  * Represents a position in x and y coordinates on a game map.
- * Contains basic getters & setter, plus an equals method.
- * 
+ *
+ * Positions are immutable values, packing both coordinates into one long, so a Position can be
+ * shared freely - a Sprite hands out its own Position rather than a copy - and used as a hash key.
+ * Code which only needs coordinates can use the primitive methods of Sprite and WorldChecker,
+ * which create no Positions at all.
+ *
  * @author Maxim Kirkman
  *
  */
 public class Position {
-	
-	private int tileX ;
-	private int tileY ;
-	
+
+	private static final int Y_BITS = 32 ;
+	private static final long Y_MASK = 0xFFFFFFFFL ;
+
+	private final long packed ;
+
+	/**
+	 * Creates a Position at the given coordinates. Positions are not limited to any map, so may
+	 * lie outside the bounds of a level; the level's SpriteGrid treats such tiles as walled off.
+	 *
+	 * @param x		x coordinate for this Position
+	 * @param y		y coordinate for this Position
+	 */
 	public Position(int x, int y) {
-		// set base values to 0 in case setPosition's conditions are not met
-		tileX = 0 ;
-		tileY = 0 ;
-		
-		setPosition(x, y) ;
+		packed = pack(x, y) ;
 	}
 
 	/* getters */
 	public int getX() {
-		return tileX ;
+		return (int) (packed >> Y_BITS) ;
 	}
 	public int getY() {
-		return tileY ;
+		return (int) packed ;
 	}
 	/* ------- */
-	
+
 	/**
-	 * Changes the coordinates of this Position object to the passed in values.
-	 * Changes a value only if the one passed in is below 0, or above the
-	 * maximum number of tiles that can fit on screen.
-	 * @param x		new x coordinate for this Position
-	 * @param y		new y coordinate for this Position
+	 * Shows if this Position is at the given coordinates, without creating a Position for them.
+	 *
+	 * @param x		an x coordinate
+	 * @param y		a y coordinate
+	 * @return		a boolean indicating if this Position has the given coordinates
 	 */
-	public void setPosition(int x, int y) {
-				
-		int mapWidth = App.SCREEN_WIDTH/App.TILE_SIZE ;
-		int mapHeight = App.SCREEN_HEIGHT/App.TILE_SIZE ;
-		
-		if (x >= 0 && x < mapWidth) {
-			tileX = x ;
-		}
-		if (y >= 0 && y < mapHeight) {
-			tileY = y ;
-		}
+	public boolean isAt(int x, int y) {
+		return packed == pack(x, y) ;
 	}
-	
+
 	/**
 	 * Basic equals method : compares the coordinates of this Position with those of another.
 	 * If the x & y coordinates of each Position match, the Positions are equal.
 	 */
 	@Override
 	public boolean equals(Object otherPositionObject) {
-		
-		if (otherPositionObject == null) {
-			return false ;
-		}
-		else if (!(otherPositionObject instanceof Position)) {
-			return false ;
-		}
-		else if (otherPositionObject == this) {
-			return true ;
-		}
-		
-		Position otherPosition = (Position) otherPositionObject ;
-		if ( (otherPosition.getX() == tileX) && (otherPosition.getY() == tileY) ) {
+
+		if (otherPositionObject == this) {
 			return true ;
 		}
-		else {
+		else if (!(otherPositionObject instanceof Position)) {
 			return false ;
 		}
+
+		return ((Position) otherPositionObject).packed == packed ;
+	}
+
+	/**
+	 * @return	a hash of this Position's coordinates, consistent with equals
+	 */
+	@Override
+	public int hashCode() {
+		return Long.hashCode(packed * 0x9E3779B97F4A7C15L) ;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + getX() + ", " + getY() + ")" ;
+	}
+
+	private static long pack(int x, int y) {
+		return ((long) x << Y_BITS) | (y & Y_MASK) ;
 	}
 }
@@ -0,0 +1,277 @@
+import java.io.BufferedInputStream ;
+import java.io.BufferedOutputStream ;
+import java.io.DataInputStream ;
+import java.io.DataOutputStream ;
+import java.io.FileInputStream ;
+import java.io.FileOutputStream ;
+import java.io.IOException ;
+import java.nio.charset.StandardCharsets ;
+import java.util.Arrays ;
+
+/**
+ * A recording of every Command run in one play of the game from the start of a level, with the
+ * tick each ran in, so the play can be run again exactly on a headless World. Ends with the number of ticks played and
+ * a hash of the World's final state, which a re-run must match.
+ *
+ * A brpl file holds, in big-endian order:
+ * a header - the magic number and format version (2 bytes);
+ * the level - its number (2 bytes), then the length (2 bytes) and ASCII bytes of its lvl file's name
+ * if it was a single level file, or a length of 0 if not;
+ * the Commands - their count (4 bytes), then for each the ticks since the last Command as a varint,
+ * and the Command (1 byte);
+ * and the result - the total ticks played as a varint, and the final state hash (8 bytes).
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class Replay {
+
+	public static final int MAGIC = 0x53425250 ;	// "SBRP"
+	public static final int VERSION = 1 ;
+	public static final String SUFFIX = ".brpl" ;
+
+	private static final int INIT_CAPACITY = 64 ;
+	private static final int SHORT_MASK = 0xFFFF ;
+	private static final int BYTE_MASK = 0xFF ;
+	private static final int VARINT_BITS = 7 ;
+	private static final int VARINT_MASK = 0x7F ;
+	private static final int VARINT_MORE = 0x80 ;
+
+	private int levelNum ;
+	private String levelFile ;
+
+	// one entry per Command run, stored as parallel arrays
+	private long[] ticks ;
+	private int[] commands ;
+	private int commandCount ;
+
+	private long tickCount ;
+	private long finalHash ;
+
+	/**
+	 * Creates an empty Replay of a level, starting from the level's first tick.
+	 *
+	 * @param levelNum		the number of the level played
+	 * @param levelFile		name of the lvl file played if it was a single level file, or null
+	 */
+	public Replay(int levelNum, String levelFile) {
+		this.levelNum = levelNum ;
+		this.levelFile = levelFile ;
+
+		ticks = new long[INIT_CAPACITY] ;
+		commands = new int[INIT_CAPACITY] ;
+		commandCount = 0 ;
+	}
+
+	/**
+	 * Records one Command, run in the given tick.
+	 *
+	 * @param tick		the tick the Command ran in, counted from the start of the Replay
+	 * @param command	the Command run
+	 */
+	public void record(long tick, int command) {
+		if (commandCount == ticks.length) {
+			ticks = Arrays.copyOf(ticks, commandCount * 2) ;
+			commands = Arrays.copyOf(commands, commandCount * 2) ;
+		}
+		ticks[commandCount] = tick ;
+		commands[commandCount] = command ;
+		commandCount++ ;
+	}
+
+	/**
+	 * Records how the play ended: the number of ticks played and the World's final state hash.
+	 *
+	 * @param tickCount		the number of ticks played
+	 * @param finalHash		the state hash of the World after its last tick
+	 */
+	public void finish(long tickCount, long finalHash) {
+		this.tickCount = tickCount ;
+		this.finalHash = finalHash ;
+	}
+
+	/**
+	 * Creates a headless World on this Replay's level, ready to run it.
+	 *
+	 * @return	a new World at the start of the level played
+	 */
+	public World createWorld() {
+		return (levelFile != null) ? new World(levelFile) : new World(levelNum, false) ;
+	}
+
+	/**
+	 * Runs this Replay's Commands on a World at the start of its level, one tick at a time and as fast
+	 * as they can be run, then checks the World's state against the one recorded.
+	 *
+	 * @param world		a World at the start of this Replay's level
+	 * @return			a boolean indicating if the World ended in the recorded state
+	 */
+	public boolean run(World world) {
+		Cursor cursor = cursor() ;
+		while (cursor.hasNextTick()) {
+			world.tick(cursor.nextCommand()) ;
+		}
+		return world.getStateHash() == finalHash ;
+	}
+
+	/**
+	 * @return	a new Cursor at the start of this Replay, for running its ticks one at a time
+	 */
+	public Cursor cursor() {
+		return new Cursor() ;
+	}
+
+	/**
+	 * Writes this Replay to a brpl file.
+	 *
+	 * @param fileName	name of the brpl file to write
+	 * @throws IOException
+	 */
+	public void write(String fileName) throws IOException {
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+			out.writeInt(MAGIC) ;
+			out.writeShort(VERSION) ;
+
+			out.writeShort(levelNum) ;
+			byte[] name = (levelFile != null) ? levelFile.getBytes(StandardCharsets.US_ASCII) : new byte[0] ;
+			out.writeShort(name.length) ;
+			out.write(name) ;
+
+			// store each Command's tick as the gap since the last, which almost always fits one byte
+			out.writeInt(commandCount) ;
+			long lastTick = 0 ;
+			for (int i=0; i<commandCount; i++) {
+				writeVarint(out, ticks[i] - lastTick) ;
+				out.writeByte(commands[i]) ;
+				lastTick = ticks[i] ;
+			}
+
+			writeVarint(out, tickCount) ;
+			out.writeLong(finalHash) ;
+		}
+	}
+
+	/**
+	 * Reads a Replay from a brpl file written by write.
+	 *
+	 * @param fileName	name of a brpl file
+	 * @return			the Replay held in the file
+	 * @throws IOException
+	 */
+	public static Replay read(String fileName) throws IOException {
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+			if (in.readInt() != MAGIC || (in.readShort() & SHORT_MASK) != VERSION) {
+				throw new IOException("not a replay: " + fileName) ;
+			}
+
+			int levelNum = in.readShort() & SHORT_MASK ;
+			byte[] name = new byte[in.readShort() & SHORT_MASK] ;
+			in.readFully(name) ;
+			Replay replay = new Replay(levelNum, (name.length > 0) ? new String(name, StandardCharsets.US_ASCII) : null) ;
+
+			int commandCount = in.readInt() ;
+			long tick = 0 ;
+			for (int i=0; i<commandCount; i++) {
+				tick += readVarint(in) ;
+				replay.record(tick, in.readByte() & BYTE_MASK) ;
+			}
+
+			long tickCount = readVarint(in) ;
+			replay.finish(tickCount, in.readLong()) ;
+			return replay ;
+		}
+	}
+
+	/**
+	 * @return	name of the lvl file holding the level this Replay starts on
+	 */
+	public String getLevelName() {
+		return (levelFile != null) ? levelFile : World.getLevelName(levelNum) ;
+	}
+
+	/* getters */
+	public int getLevelNum() {
+		return levelNum ;
+	}
+	public String getLevelFile() {
+		return levelFile ;
+	}
+	public int getCommandCount() {
+		return commandCount ;
+	}
+	public long getTickCount() {
+		return tickCount ;
+	}
+	public long getFinalHash() {
+		return finalHash ;
+	}
+	/* ------- */
+
+	private static void writeVarint(DataOutputStream out, long value) throws IOException {
+		// seven bits per byte, lowest first, with the top bit set on every byte but the last
+		while ((value & ~VARINT_MASK) != 0) {
+			out.writeByte((int) (value & VARINT_MASK) | VARINT_MORE) ;
+			value >>>= VARINT_BITS ;
+		}
+		out.writeByte((int) value) ;
+	}
+
+	private static long readVarint(DataInputStream in) throws IOException {
+		long value = 0 ;
+		int shift = 0 ;
+		int b ;
+		do {
+			b = in.readByte() & BYTE_MASK ;
+			value |= (long) (b & VARINT_MASK) << shift ;
+			shift += VARINT_BITS ;
+		} while ((b & VARINT_MORE) != 0) ;
+		return value ;
+	}
+
+	/**
+	 * Walks a Replay one tick at a time, giving the Command recorded for each tick, or
+	 * Command.NONE for a tick with none. Every run of a Replay walks it through a Cursor, so
+	 * each sees the same Command on the same tick, and only decides when to stop.
+	 */
+	public class Cursor {
+
+		private long tick ;
+		private int next ;
+
+		private Cursor() {
+			tick = 0 ;
+			next = 0 ;
+		}
+
+		/**
+		 * @return	a boolean indicating if any of the Replay's ticks are left to run
+		 */
+		public boolean hasNextTick() {
+			return tick < tickCount ;
+		}
+
+		/**
+		 * Moves on to the next tick of the Replay.
+		 *
+		 * @return	the Command recorded for the tick, or Command.NONE if none was
+		 */
+		public int nextCommand() {
+			int command = Command.NONE ;
+			if (next < commandCount && ticks[next] == tick) {
+				command = commands[next] ;
+				next++ ;
+			}
+			tick++ ;
+			return command ;
+		}
+
+		/**
+		 * @return	the number of ticks moved on so far, which is also the tick the next Command runs in
+		 */
+		public long getTick() {
+			return tick ;
+		}
+	}
+}
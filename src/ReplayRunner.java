@@ -0,0 +1,73 @@
+import java.io.File ;
+import java.io.IOException ;
+import java.util.ArrayList ;
+import java.util.Arrays ;
+
+/**
+ * Static class which runs recorded Replays on headless Worlds, as fast as they can be run,
+ * and checks that each ends in the state it was recorded with - to reproduce reported bugs,
+ * or check submitted runs in bulk.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class ReplayRunner {
+
+	private static final String REPLAY_DIRECTORY = "replays" ;
+	private static final double NANOS_PER_SECOND = 1e9 ;
+
+	/**
+	 * Runs one Replay on a new World at the start of its level.
+	 *
+	 * @param replay	the Replay to run
+	 * @return			a boolean indicating if the World ended in the recorded state
+	 */
+	public static boolean run(Replay replay) {
+		return replay.run(replay.createWorld()) ;
+	}
+
+	/**
+	 * Runs the given brpl files, or every brpl file in the replays folder if none are given,
+	 * printing each that does not end in its recorded state, then the number checked per second.
+	 *
+	 * @param args	Command-line arguments: optionally, the brpl files to run
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		ArrayList<String> fileNames = new ArrayList<>() ;
+
+		if (args.length > 0) {
+			fileNames.addAll(Arrays.asList(args)) ;
+		}
+		else {
+			File[] files = new File(REPLAY_DIRECTORY).listFiles((directory, name) -> name.endsWith(Replay.SUFFIX)) ;
+			if (files != null) {
+				Arrays.sort(files) ;
+				for (File file : files) {
+					fileNames.add(file.getPath()) ;
+				}
+			}
+		}
+
+		// read every Replay first, so only running them is timed
+		ArrayList<Replay> replays = new ArrayList<>() ;
+		for (String fileName : fileNames) {
+			replays.add(Replay.read(fileName)) ;
+		}
+
+		int failures = 0 ;
+		long ticks = 0 ;
+		long start = System.nanoTime() ;
+		for (int i=0; i<replays.size(); i++) {
+			if (!run(replays.get(i))) {
+				System.out.println("mismatch: " + fileNames.get(i)) ;
+				failures++ ;
+			}
+			ticks += replays.get(i).getTickCount() ;
+		}
+		double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND ;
+
+		System.out.printf("%d replays, %d mismatched, %d ticks in %.3f s (%.0f replays/s)%n",
+				replays.size(), failures, ticks, seconds, replays.size() / seconds) ;
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * The result of verifying one Replay: whether it solved its level, in how many moves and
+ * ticks, and if not, why not.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class ReplayVerdict {
+
+	private boolean solved ;
+	private int moveCount ;
+	private long tickCount ;
+	private String failure ;
+
+	private ReplayVerdict(boolean solved, int moveCount, long tickCount, String failure) {
+		this.solved = solved ;
+		this.moveCount = moveCount ;
+		this.tickCount = tickCount ;
+		this.failure = failure ;
+	}
+
+	/**
+	 * Creates the verdict for a Replay which solved its level.
+	 *
+	 * @param moveCount		the number of moves the level was solved in
+	 * @param tickCount		the number of ticks the level was solved in
+	 * @return				a verdict of solved
+	 */
+	public static ReplayVerdict solved(int moveCount, long tickCount) {
+		return new ReplayVerdict(true, moveCount, tickCount, null) ;
+	}
+
+	/**
+	 * Creates the verdict for a Replay which did not solve its level.
+	 *
+	 * @param moveCount		the number of moves made when the Replay ended
+	 * @param tickCount		the number of ticks run when the Replay ended
+	 * @param failure		the reason the level was not solved
+	 * @return				a verdict of failed
+	 */
+	public static ReplayVerdict failed(int moveCount, long tickCount, String failure) {
+		return new ReplayVerdict(false, moveCount, tickCount, failure) ;
+	}
+
+	@Override
+	public String toString() {
+		return solved ? "solved in " + moveCount + " moves, " + tickCount + " ticks"
+					  : "failed after " + moveCount + " moves, " + tickCount + " ticks: " + failure ;
+	}
+
+	/* getters */
+	public boolean isSolved() {
+		return solved ;
+	}
+	public int getMoveCount() {
+		return moveCount ;
+	}
+	public long getTickCount() {
+		return tickCount ;
+	}
+	public String getFailure() {
+		return failure ;
+	}
+	/* ------- */
+}
@@ -1,8 +1,3 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
-
 /**
  * A subclass of Unit which represents the 'rogue' class of enemy.
  * A rogue moves one tile whenever the Player does,
@@ -21,9 +16,8 @@ public class Rogue extends Unit {
 	 * 
 	 * @param x					Rogue's x coordinate
 	 * @param y					Rogue's y coordinate
-	 * @throws SlickException
 	 */
-	public Rogue(int x, int y) throws SlickException {
+	public Rogue(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		setDirection(DIRECTION_LEFT) ;
 	}
@@ -32,28 +26,44 @@ public class Rogue extends Unit {
      * Update the Rogue Sprite.
      * If World has allowed movement, makes one move attempt.
      * 
-     * @param input			The Slick user input object
-     * @param delta			Time passed since last frame (milliseconds)
-     * @param spriteArray	ArrayList of all Sprites in the level
-     * @throws SlickException 
+     * @param command		The Command given for this tick
+     * @param delta			Time passed since last tick (milliseconds)
+     * @param grid			SpriteGrid indexing all Sprites in the level by tile
      */
 	@Override
-	public void update(Input input, int delta, ArrayList<Sprite> spriteArray) throws SlickException {
+	public void update(int command, int delta, SpriteGrid grid) {
 		if (canMove()) {
-			move(spriteArray) ;
+			move(grid) ;
 			allowMove(false) ;
 		}
 	}
 	
-	private void move(ArrayList<Sprite> spriteArray) throws SlickException {
+	/**
+	 * Plans the Rogue's step: on in its current direction if it can go that way, otherwise
+	 * turning around, and moving if it can go the opposite way.
+	 * 
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return				the planned step
+	 */
+	@Override
+	public int planMove(SpriteGrid grid) {
+		int oppositeDirection = (getDirection() == DIRECTION_LEFT) ? DIRECTION_RIGHT : DIRECTION_LEFT ;
+		
+		if (canPushMove(getDirection(), grid)) {
+			return getDirection() | PLAN_MOVES ;
+		}
+		return oppositeDirection | (canPushMove(oppositeDirection, grid) ? PLAN_MOVES : 0) ;
+	}
+	
+	private void move(SpriteGrid grid) {
 		
 		// saves the direction opposite to the Sprite's current direction
 		int oppositeDirection = (getDirection() == DIRECTION_LEFT) ? DIRECTION_RIGHT : DIRECTION_LEFT ;
 		
 		// move in the Sprite's current direction, if that fails move in the opposite direction 
-		if (!makePushMove(getDirection(), spriteArray)) {
+		if (!makePushMove(getDirection(), grid)) {
 			setDirection(oppositeDirection) ;
-			super.makePushMove(oppositeDirection, spriteArray) ;
+			super.makePushMove(oppositeDirection, grid) ;
 		}
 	}
 }
@@ -0,0 +1,136 @@
+import java.util.ArrayList ;
+import java.util.HashMap ;
+
+/**
+ * Carries signals from Switches to the Doors they control, over named channels.
+ *
+ * Each Switch is a source on one channel, and each Door listens to one channel. A Switch signals
+ * its channel only when it becomes covered or uncovered, and the channel then sets each of its
+ * Doors open or closed according to the Door's gate: open while any of the channel's Switches is
+ * covered, or only while all of them are. Nothing is checked in frames where no Switch changes.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class SignalBoard {
+
+	public static final String DEFAULT_CHANNEL = "default" ;
+
+	private HashMap<String, Channel> channels ;
+
+	/**
+	 * Creates a SignalBoard with no channels.
+	 */
+	public SignalBoard() {
+		channels = new HashMap<>() ;
+	}
+
+	/**
+	 * Adds a Switch as a source on its channel, and attaches this board to the Switch
+	 * so that it signals here when it is covered or uncovered.
+	 *
+	 * @param source	the Switch to add
+	 */
+	public void addSource(Switch source) {
+		Channel channel = getChannel(source.getChannel()) ;
+		channel.sources++ ;
+		if (source.isCovered()) {
+			channel.active++ ;
+		}
+		source.setBoard(this) ;
+		update(channel) ;
+	}
+
+	/**
+	 * Adds Switches which are not yet loaded as sources on a channel, such as those in the unloaded
+	 * chunks of a level streamed by a ChunkStore. Switches are never covered before they are loaded,
+	 * and once loaded are attached to the board directly, without being counted again.
+	 *
+	 * @param channelName	the channel of the Switches
+	 * @param count			the number of Switches to add
+	 */
+	public void addUnloadedSources(String channelName, int count) {
+		Channel channel = getChannel(channelName) ;
+		channel.sources += count ;
+		update(channel) ;
+	}
+
+	/**
+	 * Adds a Door as a listener on its channel, and sets it open or closed to match the channel.
+	 *
+	 * @param door	the Door to add
+	 */
+	public void subscribe(Door door) {
+		Channel channel = getChannel(door.getChannel()) ;
+		channel.doors.add(door) ;
+		update(channel) ;
+	}
+
+	/**
+	 * Removes a Door from the listeners on its channel, such as when its chunk is unloaded.
+	 *
+	 * @param door	the Door to remove
+	 */
+	public void unsubscribe(Door door) {
+		getChannel(door.getChannel()).doors.remove(door) ;
+	}
+
+	/**
+	 * Signals that one Switch on a channel has become covered or uncovered, and updates every
+	 * Door listening on the channel. Called by a Switch when its covered state changes.
+	 *
+	 * @param channelName	the channel of the Switch
+	 * @param isCovered		a boolean indicating if the Switch is now covered
+	 */
+	public void signal(String channelName, boolean isCovered) {
+		Channel channel = getChannel(channelName) ;
+		channel.active += isCovered ? 1 : -1 ;
+		update(channel) ;
+	}
+
+	/**
+	 * Counts the covered Switches on every channel again from the Switches themselves, and sets
+	 * every Door to match, such as once a World has been restored from a snapshot without the
+	 * Switches signalling their changes.
+	 *
+	 * @param sources	every Switch in the level
+	 */
+	public void refresh(ArrayList<Switch> sources) {
+		for (Channel channel : channels.values()) {
+			channel.active = 0 ;
+		}
+		for (int i=0; i<sources.size(); i++) {
+			if (sources.get(i).isCovered()) {
+				getChannel(sources.get(i).getChannel()).active++ ;
+			}
+		}
+		for (Channel channel : channels.values()) {
+			update(channel) ;
+		}
+	}
+
+	private void update(Channel channel) {
+		boolean anyCovered = channel.active > 0 ;
+		boolean allCovered = channel.sources > 0 && channel.active == channel.sources ;
+
+		for (Door door : channel.doors) {
+			door.openDoor( (door.getGate() == Door.GATE_ALL) ? allCovered : anyCovered ) ;
+		}
+	}
+
+	private Channel getChannel(String channelName) {
+		Channel channel = channels.get(channelName) ;
+		if (channel == null) {
+			channel = new Channel() ;
+			channels.put(channelName, channel) ;
+		}
+		return channel ;
+	}
+
+	/* the Switches and Doors sharing one channel name */
+	private static class Channel {
+		private int sources ;
+		private int active ;
+		private ArrayList<Door> doors = new ArrayList<>() ;
+	}
+}
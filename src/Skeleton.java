@@ -1,70 +1,91 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
-
 /**
  * A subclass of Unit which represents the 'Skeleton' class of enemy.
  * A Skeleton moves one tile every second, either up or down depending on its direction,
- * if a move fails, attempts to move in the opposite direction.
+ * if a move fails, attempts to move in the opposite direction. Its moves are timed by
+ * its level's TimerWheel.
  * 
  * @author Maxim Kirkman
  *
  */
-public class Skeleton extends Unit {
+public class Skeleton extends Unit implements Timed {
 	
 	private static final String NAME = "skeleton" ;
 	private static final String IMAGE_SOURCE = "res/skeleton.png" ;
 
-	private static final int NO_SECONDS = 0 ;
 	private static final int SKELETON_MOVE_THRESHOLD = 1000 ;
 	
-	private int moveTimer ;
+	private TimerWheel wheel ;
+	private TimerWheel.Timer moveTimer ;
 	
 	/**
 	 * Creates a Skeleton Sprite at the given tile coordinates.
 	 * 
 	 * @param x					Skeleton's x coordinate
 	 * @param y					Skeleton's y coordinate
-	 * @throws SlickException
 	 */
-	public Skeleton(int x, int y) throws SlickException {
+	public Skeleton(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		
 		setDirection(DIRECTION_UP) ;
-		moveTimer = NO_SECONDS ;
+		moveTimer = new TimerWheel.Timer(this) ;
+	}
+	
+	/**
+	 * Attaches the Skeleton to its level's TimerWheel, and sets its first move for
+	 * one movement period from now.
+	 * 
+	 * @param wheel		the TimerWheel of the Skeleton's level
+	 */
+	@Override
+	public void setWheel(TimerWheel wheel) {
+		this.wheel = wheel ;
+		wheel.schedule(moveTimer, World.toTicks(SKELETON_MOVE_THRESHOLD)) ;
+	}
+
+	/**
+	 * @return	the timer which times each of the Skeleton's moves
+	 */
+	@Override
+	public TimerWheel.Timer getTimer() {
+		return moveTimer ;
 	}
 
     /**
-     * Update the Skeleton Sprite.
-     * If the movement time threshold has been reached, makes one move, and resets the timer.
+     * Makes one move, and sets the next move for one movement period from now.
      * 
-     * @param input			The Slick user input object
-     * @param delta			Time passed since last frame (milliseconds)
-     * @param spriteArray	ArrayList of all Sprites in the level
+     * @param grid			SpriteGrid indexing all Sprites in the level by tile
      */
 	@Override
-	public void update(Input input, int delta, ArrayList<Sprite> spriteArray) {
-		if (moveTimer >= SKELETON_MOVE_THRESHOLD) {
-			move(spriteArray) ;
-			moveTimer = NO_SECONDS ;
-		}
-		else {
-			moveTimer += delta ;
+	public void onTimer(SpriteGrid grid) {
+		if (!isInLevel()) {
+			return ;
 		}
+		move(grid) ;
+		wheel.schedule(moveTimer, World.toTicks(SKELETON_MOVE_THRESHOLD)) ;
+	}
+
+	/**
+	 * Skeletons move on their own timer rather than after the Player, so are never allowed a
+	 * move by the Player moving, and are left out of the enemies stepped after each Player move.
+	 * 
+	 * @param playerPosition		current Position of the Player
+	 * @param width				width of the map in tiles
+	 * @param height				height of the map in tiles
+	 */
+	@Override
+	public void playerHasMoved(Position playerPosition, int width, int height) {
+		
 	}
 
-	private void move(ArrayList<Sprite> spriteArray) {
+	private void move(SpriteGrid grid) {
 		
 		// saves the direction opposite to the Sprite's current direction
 		int oppositeDirection = (getDirection() == DIRECTION_UP) ? DIRECTION_DOWN : DIRECTION_UP ;
-		Position newPosition = WorldChecker.getNextPosition(getPosition(), getDirection()) ;
 		
 		// move in the Sprite's current direction, if that fails move in the opposite direction 
-		if (!makeMove(newPosition, spriteArray)) {
+		if (!makeMove(getX(), WorldChecker.getNextY(getY(), getDirection()), grid)) {
 			setDirection(oppositeDirection) ;
-			newPosition = WorldChecker.getNextPosition(getPosition(), oppositeDirection) ;
-			makeMove(newPosition, spriteArray) ;
+			makeMove(getX(), WorldChecker.getNextY(getY(), oppositeDirection), grid) ;
 		}
 	}		
 	
@@ -0,0 +1,797 @@
+import java.util.ArrayList ;
+import java.util.Arrays ;
+import java.util.Random ;
+
+/**
+ * Finds the minimum number of Player moves needed to complete a level.
+ *
+ * Loads a level through Loader, then runs an A* search over the level's states, guided by the
+ * fewest pushes needed to move the Stones onto the Targets, and pruning states where they never can.
+ * Each state is packed into a few ints - the Player's tile, each Block's tile, and which
+ * CrackedWalls still stand - and identified by a Zobrist hash which is updated incrementally as
+ * Sprites move, so already-seen states are skipped with a single transposition table lookup.
+ *
+ * The search follows the same rules as the game: Blocks move one tile when pushed, Ice slides
+ * until stopped, Tnt pushed into a CrackedWall destroys both, and Doors open as the Switches on
+ * their channel are covered. Like the game, it resolves each Ice slide as soon as the Ice is pushed,
+ * and it ignores enemies: a par found this way is a target for a careful player, not a guaranteed safe route.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class Solver {
+
+	private static final String LEVEL_PREFIX = "res/levels/" ;
+	private static final String LEVEL_SUFFIX = ".lvl" ;
+	private static final int LEVEL_MAX = 5 ;
+
+	private static final int DEFAULT_MAX_STATES = 5000000 ;
+	private static final long ZOBRIST_SEED = 0x5B10C45L ;
+	private static final int INIT_CAPACITY = 1024 ;
+	private static final int INIT_BUCKETS = 64 ;
+	private static final long EMPTY_KEY = 0L ;
+	private static final int UNSOLVABLE = Integer.MAX_VALUE ;
+	private static final int NO_MATCH = 1 << 20 ;
+
+	// static contents of each tile
+	private static final byte NO_GROUND = 0 ;
+	private static final byte GROUND = 1 ;
+	private static final byte WALL = 2 ;
+
+	// Block types
+	private static final int STONE = 0 ;
+	private static final int ICE = 1 ;
+	private static final int TNT = 2 ;
+	private static final int BLOCK_TYPES = 3 ;
+
+	// marks a Tnt which has exploded: it no longer blocks, but still covers its last tile
+	private static final int EXPLODED = 1 << 30 ;
+	private static final int TILE_MASK = EXPLODED - 1 ;
+	private static final int NO_TILE = -1 ;
+	private static final int NO_PARENT = -1 ;
+
+	private static final int[] DIRECTIONS = {Sprite.DIRECTION_UP, Sprite.DIRECTION_RIGHT,
+											 Sprite.DIRECTION_DOWN, Sprite.DIRECTION_LEFT} ;
+
+	private int width ;
+	private int height ;
+	private int maxStates ;
+
+	private byte[] ground ;
+	private boolean[] isTarget ;
+	private boolean[] isDoor ;
+	private int[] doorChannels ;
+	private int[] doorGates ;
+	private int[] crackedIndex ;
+	private boolean[] floorUnderCracked ;
+	private int[] targetTiles ;
+	private int[] switchTiles ;
+	private int[] switchChannels ;
+	private int[] blockTypes ;
+
+	// state layout: player tile, then one tile per Block, then one bit per CrackedWall still standing
+	private int blockCount ;
+	private int crackedCount ;
+	private int stateSize ;
+	private int[] startState ;
+
+	private long[] zPlayer ;
+	private long[][] zBlock ;
+	private long[] zExploded ;
+	private long[] zCracked ;
+
+	// fewest pushes to move a Stone from each tile onto each Target, or null if not a valid bound
+	private int[][] pushDistances ;
+
+	// working space for matching Blocks to Targets
+	private int[] matchCosts ;
+	private int[] matchRowPotentials ;
+	private int[] matchColumnPotentials ;
+	private int[] matchRows ;
+	private int[] matchPrevious ;
+	private int[] matchLeast ;
+	private boolean[] matchUsed ;
+
+	// transposition table of visited state hashes, with the fewest moves each was reached in
+	private long[] seenKeys ;
+	private int[] seenDepths ;
+	private int seenCount ;
+
+	// every visited state, stored flat, with the state and move it was reached from
+	private int[] states ;
+	private long[] hashes ;
+	private int[] parents ;
+	private int[] depths ;
+	private byte[] moves ;
+	private int stateCount ;
+
+	// states waiting to be expanded, bucketed by moves made plus estimated moves left
+	private int[][] buckets ;
+	private int[] bucketSizes ;
+
+	/**
+	 * Creates a Solver for the level in the given lvl file.
+	 *
+	 * @param fileName	name of a lvl file containing level/Sprite data
+	 */
+	public Solver(String fileName) {
+		this(fileName, DEFAULT_MAX_STATES) ;
+	}
+
+	/**
+	 * Creates a Solver for the level in the given lvl file, which gives up after
+	 * visiting the given number of states.
+	 *
+	 * @param fileName	name of a lvl file containing level/Sprite data
+	 * @param maxStates	the most states to visit before giving up
+	 */
+	public Solver(String fileName, int maxStates) {
+		this.maxStates = maxStates ;
+
+		LevelData level = Loader.loadLevel(fileName) ;
+		width = level.getWidth() ;
+		height = level.getHeight() ;
+
+		readLevel(level.getSprites()) ;
+		createZobristKeys() ;
+		findPushDistances() ;
+	}
+
+	/**
+	 * Searches for the shortest sequence of Player moves which covers every Target.
+	 *
+	 * @return	the directions of each move in order, or null if no solution was found
+	 */
+	public int[] solve() {
+
+		seenKeys = new long[INIT_CAPACITY] ;
+		seenDepths = new int[INIT_CAPACITY] ;
+		seenCount = 0 ;
+		states = new int[INIT_CAPACITY * stateSize] ;
+		hashes = new long[INIT_CAPACITY] ;
+		parents = new int[INIT_CAPACITY] ;
+		depths = new int[INIT_CAPACITY] ;
+		moves = new byte[INIT_CAPACITY] ;
+		stateCount = 0 ;
+		buckets = new int[INIT_BUCKETS][] ;
+		bucketSizes = new int[INIT_BUCKETS] ;
+
+		int startEstimate = estimate(startState) ;
+		if (startState[0] == NO_TILE || startEstimate == UNSOLVABLE) {
+			return allTargetsCovered(startState) ? new int[0] : null ;
+		}
+		long startHash = hashOf(startState) ;
+		improvesDepth(startHash, 0) ;
+		addState(startState, startHash, NO_PARENT, Sprite.NO_DIRECTION, 0) ;
+		enqueue(0, startEstimate) ;
+
+		int[] current = new int[stateSize] ;
+		int[] next = new int[stateSize] ;
+
+		// expand states in order of moves made plus the estimate of moves left, so the
+		// first solution taken from the queue uses the fewest moves
+		for (int bound=startEstimate; bound<buckets.length; bound++) {
+			while (bucketSizes[bound] > 0) {
+				int index = buckets[bound][--bucketSizes[bound]] ;
+				int depth = depths[index] ;
+				long hash = hashes[index] ;
+
+				// skip states since reached in fewer moves
+				if (depthOf(hash) < depth) {
+					continue ;
+				}
+				System.arraycopy(states, index * stateSize, current, 0, stateSize) ;
+				if (allTargetsCovered(current)) {
+					return tracePath(index) ;
+				}
+				if (stateCount >= maxStates) {
+					return null ;
+				}
+
+				for (int direction : DIRECTIONS) {
+					System.arraycopy(current, 0, next, 0, stateSize) ;
+					long nextHash = makeMove(next, hash, direction) ;
+					if (next[0] == current[0]) {
+						continue ;
+					}
+					int nextEstimate = estimate(next) ;
+					if (nextEstimate == UNSOLVABLE || !improvesDepth(nextHash, depth + 1)) {
+						continue ;
+					}
+					addState(next, nextHash, index, direction, depth + 1) ;
+					enqueue(stateCount - 1, depth + 1 + nextEstimate) ;
+				}
+			}
+		}
+		return null ;
+	}
+
+	/**
+	 * @return	the number of distinct states visited by the last search
+	 */
+	public int getStatesSearched() {
+		return stateCount ;
+	}
+
+	/**
+	 * Solves each level of the game, printing its par move count and search speed.
+	 *
+	 * @param args	Command-line arguments: optionally, the lvl files to solve
+	 */
+	public static void main(String[] args) {
+		ArrayList<String> fileNames = new ArrayList<>() ;
+		if (args.length > 0) {
+			fileNames.addAll(Arrays.asList(args)) ;
+		}
+		else {
+			for (int levelNum=0; levelNum<=LEVEL_MAX; levelNum++) {
+				fileNames.add(LEVEL_PREFIX + levelNum + LEVEL_SUFFIX) ;
+			}
+		}
+
+		for (String fileName : fileNames) {
+			Solver solver = new Solver(fileName) ;
+			long startTime = System.nanoTime() ;
+			int[] solution = solver.solve() ;
+			double seconds = (System.nanoTime() - startTime) / 1e9 ;
+
+			String result = "par " + ((solution == null) ? "unknown" : solution.length) ;
+			if (solution == null && solver.getStatesSearched() >= solver.maxStates) {
+				result += ", gave up after " + solver.maxStates + " states" ;
+			}
+			else if (solution == null) {
+				result += ", no solution" ;
+			}
+			System.out.printf("%s: %s (%d states, %.0f states/s)%n", fileName, result,
+							  solver.getStatesSearched(), solver.getStatesSearched() / Math.max(seconds, 1e-9)) ;
+		}
+	}
+
+	private void readLevel(ArrayList<Sprite> spriteArray) {
+		/* Builds the static tile data and starting state from the level's Sprites */
+
+		int tiles = width * height ;
+		ground = new byte[tiles] ;
+		isTarget = new boolean[tiles] ;
+		isDoor = new boolean[tiles] ;
+		doorChannels = new int[tiles] ;
+		doorGates = new int[tiles] ;
+		crackedIndex = new int[tiles] ;
+		floorUnderCracked = new boolean[tiles] ;
+		Arrays.fill(crackedIndex, NO_TILE) ;
+
+		ArrayList<Integer> targets = new ArrayList<>() ;
+		ArrayList<Integer> switches = new ArrayList<>() ;
+		ArrayList<Integer> channels = new ArrayList<>() ;
+		ArrayList<String> channelNames = new ArrayList<>() ;
+		ArrayList<Integer> blockTiles = new ArrayList<>() ;
+		ArrayList<Integer> types = new ArrayList<>() ;
+		int playerTile = NO_TILE ;
+
+		for (Sprite sprite : spriteArray) {
+			int tile = tileOf(sprite.getPosition().getX(), sprite.getPosition().getY()) ;
+
+			if (sprite instanceof Wall) {
+				ground[tile] = WALL ;
+			}
+			else if (sprite instanceof CrackedWall) {
+				crackedIndex[tile] = crackedCount++ ;
+			}
+			else if (sprite instanceof Block) {
+				blockTiles.add(tile) ;
+				types.add( (sprite instanceof Ice) ? ICE : (sprite instanceof Tnt) ? TNT : STONE ) ;
+			}
+			else if (sprite instanceof Player) {
+				playerTile = tile ;
+			}
+			else if (!(sprite instanceof Unit)) {
+				// Floors, Targets, Switches and Doors can all be stood on
+				if (ground[tile] == NO_GROUND) {
+					ground[tile] = GROUND ;
+				}
+				if (sprite instanceof Target) {
+					isTarget[tile] = true ;
+					targets.add(tile) ;
+				}
+				else if (sprite instanceof Switch) {
+					switches.add(tile) ;
+					channels.add(channelId(channelNames, ((Switch) sprite).getChannel())) ;
+				}
+				else if (sprite instanceof Door) {
+					isDoor[tile] = true ;
+					doorChannels[tile] = channelId(channelNames, ((Door) sprite).getChannel()) ;
+					doorGates[tile] = ((Door) sprite).getGate() ;
+				}
+			}
+		}
+
+		// a CrackedWall leaves walkable ground behind only if it was built on some
+		for (int tile=0; tile<tiles; tile++) {
+			if (crackedIndex[tile] != NO_TILE) {
+				floorUnderCracked[tile] = (ground[tile] == GROUND) ;
+				ground[tile] = NO_GROUND ;
+			}
+		}
+
+		targetTiles = toArray(targets) ;
+		switchTiles = toArray(switches) ;
+		switchChannels = toArray(channels) ;
+		blockTypes = toArray(types) ;
+		blockCount = blockTypes.length ;
+
+		stateSize = 1 + blockCount + (crackedCount + Integer.SIZE - 1) / Integer.SIZE ;
+		startState = new int[stateSize] ;
+		startState[0] = playerTile ;
+		for (int i=0; i<blockCount; i++) {
+			startState[1 + i] = blockTiles.get(i) ;
+		}
+		for (int i=0; i<crackedCount; i++) {
+			startState[1 + blockCount + i / Integer.SIZE] |= 1 << (i % Integer.SIZE) ;
+		}
+	}
+
+	private void createZobristKeys() {
+		// one random key per Sprite type per tile, fixed so hashes are reproducible
+		Random random = new Random(ZOBRIST_SEED) ;
+		int tiles = width * height ;
+
+		zPlayer = randomKeys(random, tiles) ;
+		zBlock = new long[BLOCK_TYPES][] ;
+		for (int type=0; type<BLOCK_TYPES; type++) {
+			zBlock[type] = randomKeys(random, tiles) ;
+		}
+		zExploded = randomKeys(random, tiles) ;
+		zCracked = randomKeys(random, crackedCount) ;
+	}
+
+	private long makeMove(int[] state, long hash, int direction) {
+		/* Applies one Player move to the state in place and returns its updated hash. *
+		 * A failed move leaves the state, including the Player's tile, unchanged.     */
+
+		int playerTile = state[0] ;
+		int nextTile = step(playerTile, direction) ;
+		if (nextTile == NO_TILE || stopsMovement(state, nextTile)) {
+			return hash ;
+		}
+
+		// push any Block in the way, failing the move if the push fails
+		int block = blockAt(state, nextTile) ;
+		if (block != NO_TILE) {
+			int oldValue = state[1 + block] ;
+			if (!push(state, block, direction)) {
+				return hash ;
+			}
+			hash ^= blockKey(block, oldValue) ^ blockKey(block, state[1 + block]) ;
+			if ((state[1 + block] & EXPLODED) != 0) {
+				hash ^= zCracked[crackedIndex[step(nextTile, direction)]] ;
+			}
+			else if (pushDistances != null && isFrozen(state, state[1 + block])) {
+				return hash ;
+			}
+		}
+
+		state[0] = nextTile ;
+		return hash ^ zPlayer[playerTile] ^ zPlayer[nextTile] ;
+	}
+
+	private boolean push(int[] state, int block, int direction) {
+
+		int type = blockTypes[block] ;
+		int blockTile = state[1 + block] ;
+		int nextTile = step(blockTile, direction) ;
+		if (nextTile == NO_TILE) {
+			return false ;
+		}
+
+		// Tnt pushed into a CrackedWall destroys both, without moving
+		int cracked = crackedIndex[nextTile] ;
+		if (type == TNT && cracked != NO_TILE && isStanding(state, cracked)) {
+			state[1 + blockCount + cracked / Integer.SIZE] &= ~(1 << (cracked % Integer.SIZE)) ;
+			state[1 + block] = blockTile | EXPLODED ;
+			return true ;
+		}
+
+		if (stopsMovement(state, nextTile) || blockAt(state, nextTile) != NO_TILE) {
+			return false ;
+		}
+		state[1 + block] = nextTile ;
+
+		// Ice keeps sliding until the next tile stops it
+		if (type == ICE) {
+			int slideTile = step(nextTile, direction) ;
+			while (slideTile != NO_TILE && !stopsMovement(state, slideTile) && blockAt(state, slideTile) == NO_TILE) {
+				state[1 + block] = slideTile ;
+				slideTile = step(slideTile, direction) ;
+			}
+		}
+		return true ;
+	}
+
+	private int estimate(int[] state) {
+		/* A lower bound on the moves left. When every Block must end on its own Target, each  *
+		 * Stone needs at least its push distance to the Target it ends on, so the cheapest    *
+		 * matching of Blocks to Targets is a bound. UNSOLVABLE if no matching is possible.    */
+
+		if (pushDistances == null) {
+			return 0 ;
+		}
+		int n = blockCount ;
+		for (int i=0; i<n; i++) {
+			for (int j=0; j<n; j++) {
+				int distance = (blockTypes[i] == STONE) ? pushDistances[j][state[1 + i]] : 0 ;
+				matchCosts[i * n + j] = (distance == UNSOLVABLE) ? NO_MATCH : distance ;
+			}
+		}
+		int total = cheapestMatching(n) ;
+		return (total >= NO_MATCH) ? UNSOLVABLE : total ;
+	}
+
+	private int cheapestMatching(int n) {
+		/* Hungarian algorithm over the n by n matchCosts matrix, returning the lowest total *
+		 * cost of matching every row to its own column.                                     */
+
+		int[] u = matchRowPotentials ;
+		int[] v = matchColumnPotentials ;
+		int[] rowOf = matchRows ;
+		int[] previous = matchPrevious ;
+		int[] least = matchLeast ;
+		boolean[] used = matchUsed ;
+		Arrays.fill(u, 0) ;
+		Arrays.fill(v, 0) ;
+		Arrays.fill(rowOf, 0) ;
+
+		// rows and columns are numbered from 1, leaving column 0 as the unmatched start
+		for (int row=1; row<=n; row++) {
+			rowOf[0] = row ;
+			int column = 0 ;
+			Arrays.fill(least, Integer.MAX_VALUE) ;
+			Arrays.fill(used, false) ;
+
+			do {
+				used[column] = true ;
+				int currentRow = rowOf[column] ;
+				int delta = Integer.MAX_VALUE ;
+				int nextColumn = 0 ;
+				for (int j=1; j<=n; j++) {
+					if (!used[j]) {
+						int cost = matchCosts[(currentRow - 1) * n + (j - 1)] - u[currentRow] - v[j] ;
+						if (cost < least[j]) {
+							least[j] = cost ;
+							previous[j] = column ;
+						}
+						if (least[j] < delta) {
+							delta = least[j] ;
+							nextColumn = j ;
+						}
+					}
+				}
+				for (int j=0; j<=n; j++) {
+					if (used[j]) {
+						u[rowOf[j]] += delta ;
+						v[j] -= delta ;
+					}
+					else {
+						least[j] -= delta ;
+					}
+				}
+				column = nextColumn ;
+			} while (rowOf[column] != 0) ;
+
+			// follow the augmenting path back, re-matching rows along it
+			do {
+				int previousColumn = previous[column] ;
+				rowOf[column] = rowOf[previousColumn] ;
+				column = previousColumn ;
+			} while (column != 0) ;
+		}
+		return -v[0] ;
+	}
+
+	private boolean isFrozen(int[] state, int tile) {
+		/* Checks the four 2x2 squares around a Block's tile. A square filled with walls and *
+		 * Blocks can never be broken up, so is hopeless if any of its Blocks is off Target.  */
+
+		int x = tile % width ;
+		int y = tile / width ;
+		for (int left=x - 1; left<=x; left++) {
+			for (int top=y - 1; top<=y; top++) {
+				if (left < 0 || top < 0 || left + 1 >= width || top + 1 >= height) {
+					continue ;
+				}
+				boolean isSolid = true ;
+				boolean isOffTarget = false ;
+				for (int i=0; i<4 && isSolid; i++) {
+					int squareTile = tileOf(left + i % 2, top + i / 2) ;
+					if (blockAt(state, squareTile) != NO_TILE) {
+						isOffTarget |= !isTarget[squareTile] ;
+					}
+					else {
+						isSolid = (ground[squareTile] == WALL) ;
+					}
+				}
+				if (isSolid && isOffTarget) {
+					return true ;
+				}
+			}
+		}
+		return false ;
+	}
+
+	private void findPushDistances() {
+		/* Works backwards from each Target to find the fewest pushes needed to move a Stone *
+		 * from each tile onto it, treating Doors and CrackedWalls as already open.          */
+
+		// only a bound when every Block has to finish on its own Target
+		if (blockCount == 0 || blockCount != targetTiles.length) {
+			pushDistances = null ;
+			return ;
+		}
+		int tiles = width * height ;
+		int[] queue = new int[tiles] ;
+		pushDistances = new int[targetTiles.length][tiles] ;
+
+		for (int target=0; target<targetTiles.length; target++) {
+			int[] distances = pushDistances[target] ;
+			Arrays.fill(distances, UNSOLVABLE) ;
+			distances[targetTiles[target]] = 0 ;
+			queue[0] = targetTiles[target] ;
+			int head = 0 ;
+			int tail = 1 ;
+
+			// a Stone reached this tile from the tile beside it, pushed by a Player one further along
+			while (head < tail) {
+				int tile = queue[head++] ;
+				for (int direction : DIRECTIONS) {
+					int fromTile = step(tile, direction) ;
+					int playerTile = (fromTile == NO_TILE) ? NO_TILE : step(fromTile, direction) ;
+
+					if (playerTile != NO_TILE && couldStand(fromTile) && couldStand(playerTile)
+							&& distances[fromTile] == UNSOLVABLE) {
+						distances[fromTile] = distances[tile] + 1 ;
+						queue[tail++] = fromTile ;
+					}
+				}
+			}
+		}
+
+		int n = blockCount ;
+		matchCosts = new int[n * n] ;
+		matchRowPotentials = new int[n + 1] ;
+		matchColumnPotentials = new int[n + 1] ;
+		matchRows = new int[n + 1] ;
+		matchPrevious = new int[n + 1] ;
+		matchLeast = new int[n + 1] ;
+		matchUsed = new boolean[n + 1] ;
+	}
+
+	private boolean couldStand(int tile) {
+		// true if the tile is, or could become, walkable
+		return ground[tile] == GROUND || (crackedIndex[tile] != NO_TILE && floorUnderCracked[tile]) ;
+	}
+
+	private long blockKey(int block, int value) {
+		if ((value & EXPLODED) != 0) {
+			return zExploded[value & TILE_MASK] ;
+		}
+		return zBlock[blockTypes[block]][value] ;
+	}
+
+	private boolean stopsMovement(int[] state, int tile) {
+		// walls, standing CrackedWalls, closed Doors, and tiles with nothing to stand on
+		if (ground[tile] == WALL) {
+			return true ;
+		}
+		int cracked = crackedIndex[tile] ;
+		if (cracked != NO_TILE) {
+			return isStanding(state, cracked) || !floorUnderCracked[tile] ;
+		}
+		if (isDoor[tile] && !isDoorOpen(state, tile)) {
+			return true ;
+		}
+		return ground[tile] == NO_GROUND ;
+	}
+
+	private boolean isDoorOpen(int[] state, int doorTile) {
+		// a Door is open while any, or all, of the Switches on its channel are covered
+		int channel = doorChannels[doorTile] ;
+		int switchCount = 0 ;
+		int coveredCount = 0 ;
+		for (int i=0; i<switchTiles.length; i++) {
+			if (switchChannels[i] == channel) {
+				switchCount++ ;
+				if (coveredAt(state, switchTiles[i])) {
+					coveredCount++ ;
+				}
+			}
+		}
+		if (doorGates[doorTile] == Door.GATE_ALL) {
+			return switchCount > 0 && coveredCount == switchCount ;
+		}
+		return coveredCount > 0 ;
+	}
+
+	private boolean allTargetsCovered(int[] state) {
+		for (int targetTile : targetTiles) {
+			if (!coveredAt(state, targetTile)) {
+				return false ;
+			}
+		}
+		return true ;
+	}
+
+	private int blockAt(int[] state, int tile) {
+		// finds the Block standing on a tile; exploded Tnt no longer counts
+		for (int i=0; i<blockCount; i++) {
+			if (state[1 + i] == tile) {
+				return i ;
+			}
+		}
+		return NO_TILE ;
+	}
+
+	private boolean coveredAt(int[] state, int tile) {
+		// exploded Tnt still covers the tile it was on when it exploded
+		for (int i=0; i<blockCount; i++) {
+			if ((state[1 + i] & TILE_MASK) == tile) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+
+	private boolean isStanding(int[] state, int cracked) {
+		return (state[1 + blockCount + cracked / Integer.SIZE] & (1 << (cracked % Integer.SIZE))) != 0 ;
+	}
+
+	private long hashOf(int[] state) {
+		long hash = zPlayer[state[0]] ;
+		for (int i=0; i<blockCount; i++) {
+			hash ^= blockKey(i, state[1 + i]) ;
+		}
+		for (int i=0; i<crackedCount; i++) {
+			if (isStanding(state, i)) {
+				hash ^= zCracked[i] ;
+			}
+		}
+		return hash ;
+	}
+
+	private boolean improvesDepth(long hash, int depth) {
+		/* Records that a state was reached in the given number of moves, in the open-addressed *
+		 * transposition table. Returns false if it has already been reached in as few moves.   */
+
+		if ((seenCount + 1) * 2 > seenKeys.length) {
+			long[] oldKeys = seenKeys ;
+			int[] oldDepths = seenDepths ;
+			seenKeys = new long[oldKeys.length * 2] ;
+			seenDepths = new int[oldKeys.length * 2] ;
+			seenCount = 0 ;
+			for (int i=0; i<oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY_KEY) {
+					improvesDepth(oldKeys[i], oldDepths[i]) ;
+				}
+			}
+		}
+
+		int slot = findSlot(hash) ;
+		if (seenKeys[slot] != EMPTY_KEY) {
+			if (seenDepths[slot] <= depth) {
+				return false ;
+			}
+		}
+		else {
+			seenKeys[slot] = keyOf(hash) ;
+			seenCount++ ;
+		}
+		seenDepths[slot] = depth ;
+		return true ;
+	}
+
+	private int depthOf(long hash) {
+		return seenDepths[findSlot(hash)] ;
+	}
+
+	private int findSlot(long hash) {
+		// the slot holding the hash, or the empty slot where it belongs
+		long key = keyOf(hash) ;
+		int mask = seenKeys.length - 1 ;
+		int slot = (int) (key ^ (key >>> 32)) & mask ;
+		while (seenKeys[slot] != EMPTY_KEY && seenKeys[slot] != key) {
+			slot = (slot + 1) & mask ;
+		}
+		return slot ;
+	}
+
+	private long keyOf(long hash) {
+		// reserve a key of zero for empty slots
+		return hash | 1L ;
+	}
+
+	private void addState(int[] state, long hash, int parent, int direction, int depth) {
+		if (stateCount == parents.length) {
+			states = Arrays.copyOf(states, states.length * 2) ;
+			hashes = Arrays.copyOf(hashes, hashes.length * 2) ;
+			parents = Arrays.copyOf(parents, parents.length * 2) ;
+			depths = Arrays.copyOf(depths, depths.length * 2) ;
+			moves = Arrays.copyOf(moves, moves.length * 2) ;
+		}
+		System.arraycopy(state, 0, states, stateCount * stateSize, stateSize) ;
+		hashes[stateCount] = hash ;
+		parents[stateCount] = parent ;
+		depths[stateCount] = depth ;
+		moves[stateCount] = (byte) direction ;
+		stateCount++ ;
+	}
+
+	private void enqueue(int index, int bound) {
+		// bucket queue of states by moves made plus estimate, taken last-in first-out
+		if (bound >= buckets.length) {
+			int newLength = Math.max(buckets.length * 2, bound + 1) ;
+			buckets = Arrays.copyOf(buckets, newLength) ;
+			bucketSizes = Arrays.copyOf(bucketSizes, newLength) ;
+		}
+		int[] bucket = buckets[bound] ;
+		if (bucket == null) {
+			bucket = new int[INIT_CAPACITY] ;
+		}
+		else if (bucketSizes[bound] == bucket.length) {
+			bucket = Arrays.copyOf(bucket, bucket.length * 2) ;
+		}
+		buckets[bound] = bucket ;
+		bucket[bucketSizes[bound]++] = index ;
+	}
+
+	private int[] tracePath(int index) {
+		int length = 0 ;
+		for (int i=index; parents[i]!=NO_PARENT; i=parents[i]) {
+			length++ ;
+		}
+		int[] path = new int[length] ;
+		for (int i=index; parents[i]!=NO_PARENT; i=parents[i]) {
+			path[--length] = moves[i] ;
+		}
+		return path ;
+	}
+
+	private int step(int tile, int direction) {
+		// the tile one along in the given direction, or NO_TILE if off the map
+		int x = tile % width ;
+		int y = tile / width ;
+		int nextX = WorldChecker.getNextX(x, direction) ;
+		int nextY = WorldChecker.getNextY(y, direction) ;
+		if ((nextX == x && nextY == y) || nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+			return NO_TILE ;
+		}
+		return tileOf(nextX, nextY) ;
+	}
+
+	private int tileOf(int x, int y) {
+		return (y * width) + x ;
+	}
+
+	private static int channelId(ArrayList<String> channelNames, String channel) {
+		// numbers each distinct channel name in the order it is first seen
+		int id = channelNames.indexOf(channel) ;
+		if (id == -1) {
+			id = channelNames.size() ;
+			channelNames.add(channel) ;
+		}
+		return id ;
+	}
+
+	private static long[] randomKeys(Random random, int count) {
+		long[] keys = new long[count] ;
+		for (int i=0; i<count; i++) {
+			keys[i] = random.nextLong() ;
+		}
+		return keys ;
+	}
+
+	private static int[] toArray(ArrayList<Integer> list) {
+		int[] array = new int[list.size()] ;
+		for (int i=0; i<array.length; i++) {
+			array[i] = list.get(i) ;
+		}
+		return array ;
+	}
+}
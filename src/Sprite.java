@@ -1,12 +1,11 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
-import org.newdawn.slick.Image ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * Abstract class which represents one entity on the game map.
- * Holds an Image, name, and location coordinates in the form of a Position Object.
+ * Holds the location of its image file, and location coordinates in the form of a Position Object.
+ * Sprites hold no Slick resources, so levels can be run without a display; drawing is left to WorldRenderer.
  * 
  * @author Maxim Kirkman
  * 
@@ -18,50 +17,132 @@ public abstract class Sprite {
 	public static final int DIRECTION_RIGHT = 2 ;
 	public static final int DIRECTION_DOWN = 3 ;
 	public static final int DIRECTION_LEFT = 4 ;
+	public static final int NO_ID = -1 ;
 	
-	private Image spriteImage ;
+	private String name ;
+	private String imageSource ;
 	private Position position ;
+	private SpriteGrid grid ;
+	private MoveJournal journal ;
+	private int id ;
+	private int slot ;
 			
 	/**
 	 * Creates a Sprite with a given name, Image, and tile coordinates. Used by subclasses.
 	 * 
-	 * @param name				the name of the subclass of Sprite this Sprite is
+	 * @param name				the name of the subclass of Sprite this Sprite is, as written in lvl files
 	 * @param image_src			location of Sprite's image file
 	 * @param x					Sprite's x coordinate
 	 * @param y					Sprite's y coordinate
-	 * @throws SlickException
 	 */
-	public Sprite(String name, String image_src, int x, int y) throws SlickException {
+	public Sprite(String name, String image_src, int x, int y) {
 		
-		spriteImage = new Image(image_src) ;
+		this.name = name ;
+		imageSource = image_src ;
 		position = new Position(x, y) ;
+		id = NO_ID ;
+		slot = EntityStore.NO_SLOT ;
 	}
 		
     /**
-     * Update the Sprite for a frame.
+     * Update the Sprite for a tick.
      * Defaults to empty - is used by Sprite subclasses which perform actions periodically.
      * 
-     * @param input			The Slick user input object
-     * @param delta			Time passed since last frame (milliseconds)
-     * @param spriteArray	ArrayList of all Sprites in the level
-     * @throws SlickException 
+     * @param command		The Command given for this tick
+     * @param delta			Time passed since last tick (milliseconds)
+     * @param grid			SpriteGrid indexing all Sprites in the level by tile
      */
-	public void update(Input input, int delta, ArrayList<Sprite> spriteArray) throws SlickException {
+	public void update(int command, int delta, SpriteGrid grid) {
 
 	}
 	
-    /**
-     * Renders this sprite's image on the screen.
-     * Calculates where to draw using tile coordinates, and width and height values of the map.
-     * 
-     * @param width		the width of the map this Sprite is being drawn in
-     * @param height		the height of the map this Sprite is being drawn in
-     */
-	public void render(int width, int height) {
-		float pixelX = ( (position.getX() - width/2) * App.TILE_SIZE) + (App.SCREEN_WIDTH /2) ;
-		float pixelY = ( (position.getY() - height/2) * App.TILE_SIZE) + (App.SCREEN_HEIGHT /2) ;
-
-		spriteImage.drawCentered(pixelX, pixelY) ;
+	/**
+	 * Shows if a Sprite should currently be drawn.
+	 * Defaults to true: differs in subclasses which are hidden in certain circumstances.
+	 * 
+	 * @return a boolean indicating that this Sprite should be drawn
+	 */
+	public boolean isVisible() {
+		return true ;
+	}
+	
+	/**
+	 * Shows if a Sprite never moves or changes how it is drawn while it is in a level, so can be
+	 * drawn once into a cached background rather than every frame.
+	 * Defaults to false: differs in subclasses which form the unchanging scenery of a level.
+	 * 
+	 * @return a boolean indicating that this Sprite may change while in a level
+	 */
+	public boolean isStatic() {
+		return false ;
+	}
+	
+	/**
+	 * Shows if the chunks of the map around a Sprite must stay loaded while it is in a level streamed
+	 * by a ChunkStore, as they must around anything which may move without the Player nearby.
+	 * Defaults to false: differs in subclasses such as the Player, and Ice while it slides.
+	 * 
+	 * @return a boolean indicating that this Sprite keeps the chunks around it loaded
+	 */
+	public boolean keepsChunkLoaded() {
+		return false ;
+	}
+	
+	/**
+	 * Finds where a Sprite is drawn at the given time, which may lag behind its tile while it is
+	 * shown moving there. Defaults to the Sprite's tile: differs in subclasses such as sliding Ice.
+	 * 
+	 * @param time		the time the level has been played for (milliseconds)
+	 * @return			the x coordinate to draw this Sprite at, in tiles
+	 */
+	public float getDrawX(long time) {
+		return getX() ;
+	}
+	
+	/**
+	 * @param time		the time the level has been played for (milliseconds)
+	 * @return			the y coordinate to draw this Sprite at, in tiles
+	 */
+	public float getDrawY(long time) {
+		return getY() ;
+	}
+	
+	/**
+	 * Writes the state of this Sprite which can change during play, other than its Position, into
+	 * a snapshot of its World. Defaults to empty: differs in subclasses which hold such state.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		
+	}
+	
+	/**
+	 * Reads back the state written by writeState when a World is restored from a snapshot.
+	 * Called while this Sprite is out of its level, so nothing set here is reported to the level.
+	 * Defaults to empty: differs in subclasses which hold such state.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level, to find the other Sprites named in the snapshot by id
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		
+	}
+	
+	/**
+	 * @return the name of this Sprite's type, as written in lvl files
+	 */
+	public String getName() {
+		return name ;
+	}
+	
+	/**
+	 * @return the location of this Sprite's image file
+	 */
+	public String getImageSource() {
+		return imageSource ;
 	}
 			
 	/**
@@ -86,21 +167,113 @@ public abstract class Sprite {
 		return false ;
 	}
 	
+	/**
+	 * Shows which layer of a SpriteGrid tile this Sprite occupies.
+	 * Defaults to the terrain layer: differs in subclasses which sit above the terrain.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	public int getLayer() {
+		return SpriteGrid.TERRAIN_LAYER ;
+	}
+	
+	/**
+	 * Attaches this Sprite to the SpriteGrid indexing its level, so that the grid is
+	 * told whenever this Sprite moves. Set to null when the Sprite leaves the level.
+	 * 
+	 * @param grid	the SpriteGrid this Sprite has been added to
+	 */
+	public void setGrid(SpriteGrid grid) {
+		this.grid = grid ;
+	}
+	
+	/**
+	 * Shows if this Sprite is currently part of a level, rather than removed or never added.
+	 * 
+	 * @return a boolean indicating if this Sprite is attached to a SpriteGrid
+	 */
+	public boolean isInLevel() {
+		return grid != null ;
+	}
+	
+	/**
+	 * @return	the SpriteGrid of the level this Sprite is in, or null if it is in no level
+	 */
+	protected SpriteGrid getGrid() {
+		return grid ;
+	}
+	
+	/**
+	 * Attaches this Sprite to the MoveJournal of its level, so that its changes can be undone.
+	 * Only set for Undoable Sprites.
+	 * 
+	 * @param journal	the MoveJournal recording this Sprite's changes
+	 */
+	public void setJournal(MoveJournal journal) {
+		this.journal = journal ;
+	}
+	
+	/**
+	 * Records this Sprite's current state in its MoveJournal, if it has one.
+	 * Called by a Sprite just before any change that should be undoable.
+	 */
+	protected void recordChange() {
+		if (journal != null) {
+			journal.record(this) ;
+		}
+	}
+	
 	/**
 	 * Sets this Sprite's Position to the given Position.
 	 * 
 	 * @param newPosition	Position to place this Sprite at
 	 */
 	public void setSpritePosition(Position newPosition) {
+		recordChange() ;
+		
+		Position oldPosition = position ;
 		this.position = newPosition ;
+		
+		// keep the level's SpriteGrid up to date with the move
+		if (grid != null) {
+			grid.moveSprite(this, oldPosition, newPosition) ;
+		}
 	}
 	
 	/**
-	 * Basic getter for a Sprite's Position Object.
+	 * Basic getter for a Sprite's Position Object. Positions are immutable, so this is the
+	 * Sprite's own Position rather than a copy.
 	 * 
-	 * @return a pointer to a copy of this Sprite's Position
+	 * @return a pointer to this Sprite's Position
 	 */
 	public Position getPosition() {
-		return new Position(position.getX(), position.getY()) ;
+		return position ;
+	}
+	
+	/* coordinate getters */
+	public int getX() {
+		return position.getX() ;
+	}
+	public int getY() {
+		return position.getY() ;
+	}
+	/* ------------------ */
+	
+	/* id getter & setter */
+	public int getId() {
+		return id ;
+	}
+	public void setId(int id) {
+		this.id = id ;
+	}
+	/* ------------------ */
+	
+	/* EntityStore slot getter & setter */
+	public int getSlot() {
+		return slot ;
+	}
+	public void setSlot(int slot) {
+		this.slot = slot ;
 	}
-}
\ No newline at end of file
+	/* -------------------------------- */
+}
\ No newline at end of file
@@ -0,0 +1,694 @@
+import java.util.ArrayList ;
+import java.util.Arrays ;
+
+/**
+ * A tile-indexed spatial index of every Sprite in one level.
+ *
+ * Each tile holds its Sprites in separate layers - static terrain, features (Targets, Switches
+ * and Doors), Blocks, Units, and overlays such as Explosions - so the Sprites on a tile can be
+ * found without scanning the whole level. Sprites added to a SpriteGrid report their own moves
+ * to it, so the index is kept up to date as the level changes.
+ *
+ * The unit layer also detects collisions: whenever a Unit is placed on a tile already holding
+ * another Unit, any Player on the tile is recorded, so a Player's death is found from the moves
+ * made in a frame rather than by checking every pair of Units.
+ *
+ * A level's bounds are those given in its lvl file's header. Tiles outside them hold nothing, but
+ * report a Wall as their significant Sprite, so nothing can ever move off the map.
+ *
+ * Tiles are stored in square chunks of CHUNK_SIZE tiles a side. A streamed grid, whose level is
+ * streamed in by a ChunkStore, only holds the chunks loaded; the tiles of a chunk not loaded are
+ * walled off in the same way as those off the map, and Sprites cannot be placed on them.
+ *
+ * Each Sprite's type, coordinates, flags and covered Sprite are also kept in the grid's EntityStore,
+ * whose components World's systems and the renderer iterate instead of every Sprite object in the
+ * level; Sprites report their moves and changes here to keep it up to date. While the level's
+ * enemies take their step, the grid also logs the tiles changed, so a step planned before them is
+ * redone.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class SpriteGrid {
+
+	public static final int TERRAIN_LAYER = 0 ;
+	public static final int FEATURE_LAYER = 1 ;
+	public static final int BLOCK_LAYER = 2 ;
+	public static final int UNIT_LAYER = 3 ;
+	public static final int OVERLAY_LAYER = 4 ;
+
+	public static final int CHUNK_BITS = 5 ;
+	public static final int CHUNK_SIZE = 1 << CHUNK_BITS ;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1 ;
+	private static final int CHUNK_TILES = CHUNK_SIZE * CHUNK_SIZE ;
+	private static final int CHANGE_LOG_CAPACITY = 16 ;
+
+	// the order layers are drawn in: overlays go beneath Units, so Blood is drawn under the Unit
+	// which killed the Player, as it was when Sprites were drawn in level order
+	static final int[] DRAW_ORDER = {TERRAIN_LAYER, FEATURE_LAYER, BLOCK_LAYER, OVERLAY_LAYER, UNIT_LAYER} ;
+
+	private int width ;
+	private int height ;
+
+	// the Wall reported on every tile outside the map
+	private Sprite boundary ;
+
+	// every Sprite added to this grid and not since forgotten, by the id it was given
+	private EntityStore store ;
+	private int nextId ;
+
+	// the chunks of the map, row by row, or null for those not loaded
+	private int chunkColumns ;
+	private int chunkRows ;
+	private Chunk[] chunks ;
+
+	// Players which have shared a tile with another Unit since collisions were last taken,
+	// and those of them found still sharing a tile when they were last taken
+	private ArrayList<Player> collisions ;
+	private ArrayList<Player> collided ;
+
+	// the tiles whose Sprites have changed in a way that can affect movement, while changes are logged
+	private boolean isLogging ;
+	private int[] changedXs ;
+	private int[] changedYs ;
+	private int changedCount ;
+
+	/**
+	 * Creates an empty SpriteGrid covering a map of the given size, with every chunk loaded.
+	 *
+	 * @param width		the width of the map in tiles
+	 * @param height		the height of the map in tiles
+	 */
+	public SpriteGrid(int width, int height) {
+		this(width, height, false) ;
+	}
+
+	/**
+	 * Creates an empty SpriteGrid covering a map of the given size.
+	 *
+	 * @param width		the width of the map in tiles
+	 * @param height		the height of the map in tiles
+	 * @param streamed	a boolean indicating if chunks are loaded as they are needed, rather than all at once
+	 */
+	public SpriteGrid(int width, int height, boolean streamed) {
+		this.width = width ;
+		this.height = height ;
+		boundary = new Wall(-1, -1) ;
+		store = new EntityStore() ;
+		nextId = 0 ;
+		collisions = new ArrayList<>() ;
+		collided = new ArrayList<>() ;
+		changedXs = new int[CHANGE_LOG_CAPACITY] ;
+		changedYs = new int[CHANGE_LOG_CAPACITY] ;
+
+		chunkColumns = (width + CHUNK_MASK) >> CHUNK_BITS ;
+		chunkRows = (height + CHUNK_MASK) >> CHUNK_BITS ;
+		chunks = new Chunk[chunkColumns * chunkRows] ;
+		if (!streamed) {
+			for (int i=0; i<chunks.length; i++) {
+				loadChunk(i) ;
+			}
+		}
+	}
+
+	/**
+	 * Adds a Sprite to the grid at its current Position, and attaches the grid to the Sprite
+	 * so that the Sprite's later moves are tracked. Sprites new to the grid are given an id, while
+	 * those brought back into the level by a ChunkStore keep the one they had.
+	 *
+	 * @param sprite	the Sprite to add
+	 */
+	public void add(Sprite sprite) {
+		if (sprite.getId() == Sprite.NO_ID) {
+			sprite.setId(nextId++) ;
+		}
+		store.add(sprite) ;
+		sprite.setGrid(this) ;
+		place(sprite, sprite.getPosition()) ;
+	}
+
+	/**
+	 * Removes a Sprite from the grid, and stops tracking its moves.
+	 *
+	 * @param sprite	the Sprite to remove
+	 */
+	public void remove(Sprite sprite) {
+		unplace(sprite, sprite.getPosition()) ;
+		store.remove(sprite.getSlot()) ;
+		sprite.setGrid(null) ;
+	}
+
+	/**
+	 * Removes a Sprite from the grid, and from the Sprites which can be found by id, such as
+	 * one whose chunk has been unloaded. getSprite returns null for its id until it is added again.
+	 *
+	 * @param sprite	the Sprite to forget
+	 */
+	public void forget(Sprite sprite) {
+		remove(sprite) ;
+		store.forget(sprite.getSlot()) ;
+	}
+
+	/**
+	 * Moves a Sprite from one tile to another within the grid.
+	 * Called by a Sprite whenever its Position is changed.
+	 *
+	 * @param sprite		the Sprite which has moved
+	 * @param oldPosition	the Position the Sprite has left
+	 * @param newPosition	the Position the Sprite has moved to
+	 */
+	public void moveSprite(Sprite sprite, Position oldPosition, Position newPosition) {
+		unplace(sprite, oldPosition) ;
+		place(sprite, newPosition) ;
+		store.move(sprite.getSlot(), newPosition.getX(), newPosition.getY()) ;
+
+		// Units never stop movement, so only other Sprites moving can change where a Unit may go
+		if (isLogging && sprite.getLayer() != UNIT_LAYER) {
+			noteChange(oldPosition.getX(), oldPosition.getY()) ;
+			noteChange(newPosition.getX(), newPosition.getY()) ;
+		}
+	}
+
+	/**
+	 * Records the Switch or Target a Block now covers, in the grid's EntityStore.
+	 * Called by a Block whenever it starts or stops covering a Sprite.
+	 *
+	 * @param block		the Block whose covered Sprite has changed
+	 */
+	public void coveringChanged(Block block) {
+		Sprite covering = block.getCovering() ;
+		store.setCovering(block.getSlot(), (covering != null) ? covering.getId() : Sprite.NO_ID) ;
+	}
+
+	/**
+	 * Records whether a Switch or Target is covered, in the grid's EntityStore.
+	 * Called by a Switch or Target whenever it is covered or uncovered.
+	 *
+	 * @param feature		the Switch or Target which has changed
+	 * @param isCovered		a boolean indicating if it is now covered
+	 */
+	public void coveredChanged(Sprite feature, boolean isCovered) {
+		store.setFlag(feature.getSlot(), EntityStore.FLAG_COVERED, isCovered) ;
+	}
+
+	/**
+	 * Records that an explosive Sprite has exploded, or an Explosion has ended, so that World's
+	 * explosion system takes it out of the level.
+	 *
+	 * @param sprite	the Sprite which has exploded or ended
+	 */
+	public void explosionEnding(Sprite sprite) {
+		store.setFlag(sprite.getSlot(), EntityStore.FLAG_ENDING, true) ;
+	}
+
+	/**
+	 * Starts logging the tiles whose Sprites change in a way that can affect movement, such as
+	 * a Block being pushed or a Door opening, forgetting any logged before.
+	 */
+	public void startChangeLog() {
+		isLogging = true ;
+		changedCount = 0 ;
+	}
+
+	/**
+	 * Stops logging changed tiles.
+	 */
+	public void stopChangeLog() {
+		isLogging = false ;
+	}
+
+	/**
+	 * Logs a tile whose Sprites have changed in a way that can affect movement, if changes are
+	 * being logged. Called for the Sprites which move through the grid, and by Sprites which
+	 * change whether they stop movement without moving, such as Doors.
+	 *
+	 * @param x		the x coordinate of the changed tile
+	 * @param y		the y coordinate of the changed tile
+	 */
+	public void noteChange(int x, int y) {
+		if (!isLogging) {
+			return ;
+		}
+		if (changedCount == changedXs.length) {
+			changedXs = Arrays.copyOf(changedXs, changedCount * 2) ;
+			changedYs = Arrays.copyOf(changedYs, changedCount * 2) ;
+		}
+		changedXs[changedCount] = x ;
+		changedYs[changedCount] = y ;
+		changedCount++ ;
+	}
+
+	/**
+	 * Shows if any tile within the given distance of a tile, on both axes, has been logged as
+	 * changed since the log was started. Only a few tiles change in a log, so they are checked in turn.
+	 *
+	 * @param x			the x coordinate of the tile at the centre of the area
+	 * @param y			the y coordinate of the tile at the centre of the area
+	 * @param radius	the furthest a changed tile may be from the given tile on each axis
+	 * @return			a boolean indicating if a tile in the area has changed
+	 */
+	public boolean hasChangeNear(int x, int y, int radius) {
+		for (int i=0; i<changedCount; i++) {
+			if (Math.abs(changedXs[i] - x) <= radius && Math.abs(changedYs[i] - y) <= radius) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+
+	/**
+	 * Finds the most significant Sprite in terms of movement on the given tile.
+	 * Gives priority to Sprites that halt movement, then Blocks, then Switches, then
+	 * the top-most of the remaining Sprites on the tile.
+	 *
+	 * @param x		the x coordinate of the tile
+	 * @param y		the y coordinate of the tile
+	 * @return		the Sprite on the tile that most impairs movement, a Wall if the tile is off the map
+	 * 				or in a chunk not loaded, or null if the tile is empty
+	 */
+	public Sprite getSignificantSprite(int x, int y) {
+		Chunk chunk = chunkAt(x, y) ;
+		if (chunk == null) {
+			return boundary ;
+		}
+		int tile = tileIndex(x, y) ;
+
+		Sprite terrainSprite = chunk.terrain[tile] ;
+		Sprite featureSprite = chunk.features[tile] ;
+		Sprite blockSprite = chunk.blocks[tile] ;
+		Sprite unitSprite = top(chunk.units.get(tile)) ;
+		Sprite overlaySprite = top(chunk.overlays.get(tile)) ;
+
+		// if a Sprite on this tile stops movement or is a Block, return it
+		if (terrainSprite != null && terrainSprite.stopsMovement()) {
+			return terrainSprite ;
+		}
+		if (featureSprite != null && featureSprite.stopsMovement()) {
+			return featureSprite ;
+		}
+		if (blockSprite != null) {
+			return blockSprite ;
+		}
+		if (unitSprite != null && unitSprite.stopsMovement()) {
+			return unitSprite ;
+		}
+		if (overlaySprite != null && overlaySprite.stopsMovement()) {
+			return overlaySprite ;
+		}
+
+		// if it is interactable, return it
+		if (featureSprite instanceof Switch) {
+			return featureSprite ;
+		}
+
+		// otherwise return the top-most non-significant Sprite from the tile
+		if (overlaySprite != null) {
+			return overlaySprite ;
+		}
+		if (unitSprite != null) {
+			return unitSprite ;
+		}
+		if (featureSprite != null) {
+			return featureSprite ;
+		}
+		return terrainSprite ;
+	}
+
+	/**
+	 * Collects every Sprite on the tiles of a rectangular area of the map, in drawing order: layer
+	 * by layer from terrain up to Units, and within a layer row by row. Tiles of the area outside
+	 * the map are skipped, so the cost depends only on the size of the area, not of the map.
+	 *
+	 * @param left		x coordinate of the area's left-most column of tiles
+	 * @param top		y coordinate of the area's top-most row of tiles
+	 * @param right		x coordinate of the area's right-most column of tiles
+	 * @param bottom		y coordinate of the area's bottom-most row of tiles
+	 * @param area		an ArrayList to fill with the Sprites found, which is cleared first
+	 */
+	public void getSpritesInArea(int left, int top, int right, int bottom, ArrayList<Sprite> area) {
+		area.clear() ;
+
+		left = Math.max(left, 0) ;
+		top = Math.max(top, 0) ;
+		right = Math.min(right, width - 1) ;
+		bottom = Math.min(bottom, height - 1) ;
+
+		for (int layer : DRAW_ORDER) {
+			for (int y=top; y<=bottom; y++) {
+				for (int x=left; x<=right; x++) {
+					Chunk chunk = chunkAt(x, y) ;
+					if (chunk != null) {
+						collectTile(chunk, layer, tileIndex(x, y), area) ;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes a chunk of the map ready to hold Sprites, so its tiles are no longer walled off.
+	 * Does nothing if the chunk is already loaded.
+	 *
+	 * @param chunkIndex		the index of the chunk, counting row by row from the top-left chunk
+	 */
+	public void loadChunk(int chunkIndex) {
+		if (chunks[chunkIndex] == null) {
+			chunks[chunkIndex] = new Chunk() ;
+		}
+	}
+
+	/**
+	 * Collects every Sprite on the tiles of a chunk, in drawing order, such as to unload the chunk.
+	 *
+	 * @param chunkIndex		the index of the chunk, counting row by row from the top-left chunk
+	 * @param area			an ArrayList to fill with the Sprites found, which is cleared first
+	 */
+	public void getSpritesInChunk(int chunkIndex, ArrayList<Sprite> area) {
+		int left = (chunkIndex % chunkColumns) << CHUNK_BITS ;
+		int top = (chunkIndex / chunkColumns) << CHUNK_BITS ;
+		getSpritesInArea(left, top, left + CHUNK_MASK, top + CHUNK_MASK, area) ;
+	}
+
+	/**
+	 * Frees a chunk of the map, walling off its tiles. Its Sprites should be forgotten first.
+	 *
+	 * @param chunkIndex		the index of the chunk, counting row by row from the top-left chunk
+	 */
+	public void unloadChunk(int chunkIndex) {
+		chunks[chunkIndex] = null ;
+	}
+
+	/**
+	 * @param chunkIndex		the index of a chunk, counting row by row from the top-left chunk
+	 * @return				a boolean indicating if the chunk is loaded
+	 */
+	public boolean isChunkLoaded(int chunkIndex) {
+		return chunks[chunkIndex] != null ;
+	}
+
+	/**
+	 * @param x		the x coordinate of a tile
+	 * @param y		the y coordinate of a tile
+	 * @return		a boolean indicating if the tile is on the map, in a loaded chunk
+	 */
+	public boolean isTileLoaded(int x, int y) {
+		return chunkAt(x, y) != null ;
+	}
+
+	/**
+	 * @param x		the x coordinate of a tile on the map
+	 * @param y		the y coordinate of a tile on the map
+	 * @return		the index of the chunk holding the tile
+	 */
+	public int chunkIndex(int x, int y) {
+		return ((y >> CHUNK_BITS) * chunkColumns) + (x >> CHUNK_BITS) ;
+	}
+
+	/**
+	 * Finds a Sprite by the id it was given when first added to this grid.
+	 * Sprites keep their id after being removed, so may no longer be in the level.
+	 *
+	 * @param id	the id of the Sprite
+	 * @return		the Sprite with the given id, or null if it has been forgotten
+	 */
+	public Sprite getSprite(int id) {
+		return store.getSprite(id) ;
+	}
+
+	/**
+	 * @return	the number of ids given out so far, which is also the id the next new Sprite is given
+	 */
+	public int getIdCount() {
+		return nextId ;
+	}
+
+	/**
+	 * Forgets every Sprite given an id from the given id on, and gives the next new Sprite that id,
+	 * such as when a World is restored to a snapshot taken before those Sprites were created.
+	 * The Sprites must already have been removed from the grid.
+	 *
+	 * @param idCount	the number of ids given out when the snapshot was taken
+	 */
+	public void forgetFrom(int idCount) {
+		for (int id=idCount; id<nextId; id++) {
+			Sprite sprite = store.getSprite(id) ;
+			if (sprite != null) {
+				store.forget(sprite.getSlot()) ;
+			}
+		}
+		nextId = idCount ;
+	}
+
+	/**
+	 * Returns every Player which has collided with another Unit since this was last called, and
+	 * still shares its tile with one - such as when a Unit and Player have moved onto the same tile
+	 * in a frame. Players which have since moved apart, or left the level, are not returned.
+	 * The ArrayList returned is reused, so is only valid until this is next called.
+	 *
+	 * @return	an ArrayList of the Players currently sharing a tile with another Unit
+	 */
+	public ArrayList<Player> takeCollisions() {
+		collided.clear() ;
+
+		for (int i=0; i<collisions.size(); i++) {
+			Player player = collisions.get(i) ;
+			Chunk chunk = chunkAt(player.getX(), player.getY()) ;
+			if (player.isInLevel() && chunk != null) {
+				ArrayList<Sprite> stack = chunk.units.get(tileIndex(player.getX(), player.getY())) ;
+				if (stack != null && stack.size() > 1) {
+					collided.add(player) ;
+				}
+			}
+		}
+		collisions.clear() ;
+
+		return collided ;
+	}
+
+	/* getters */
+	public int getWidth() {
+		return width ;
+	}
+	public int getHeight() {
+		return height ;
+	}
+	public EntityStore getStore() {
+		return store ;
+	}
+	public int getChunkColumns() {
+		return chunkColumns ;
+	}
+	public int getChunkRows() {
+		return chunkRows ;
+	}
+	/* ------- */
+
+	private void place(Sprite sprite, Position position) {
+		int x = position.getX() ;
+		int y = position.getY() ;
+		Chunk chunk = chunkAt(x, y) ;
+		if (chunk == null) {
+			return ;
+		}
+		int tile = tileIndex(x, y) ;
+
+		Sprite[] terrain = chunk.terrain ;
+		Sprite[] buriedTerrain = chunk.buriedTerrain ;
+
+		switch (sprite.getLayer()) {
+			case TERRAIN_LAYER :
+				// keep a blocking terrain Sprite on top of one that can be walked through
+				if (terrain[tile] == null) {
+					terrain[tile] = sprite ;
+				}
+				else if (terrain[tile].stopsMovement() && !sprite.stopsMovement()) {
+					buriedTerrain[tile] = sprite ;
+				}
+				else {
+					buriedTerrain[tile] = terrain[tile] ;
+					terrain[tile] = sprite ;
+				}
+				break ;
+
+			case FEATURE_LAYER :
+				chunk.features[tile] = sprite ;
+				break ;
+
+			case BLOCK_LAYER :
+				chunk.blocks[tile] = sprite ;
+				break ;
+
+			case UNIT_LAYER :
+				push(chunk.units, tile, sprite) ;
+				noteCollision(chunk.units.get(tile)) ;
+				break ;
+
+			default :
+				push(chunk.overlays, tile, sprite) ;
+				break ;
+		}
+	}
+
+	private void unplace(Sprite sprite, Position position) {
+		Chunk chunk = chunkAt(position.getX(), position.getY()) ;
+		if (chunk == null) {
+			return ;
+		}
+		int tile = tileIndex(position.getX(), position.getY()) ;
+
+		Sprite[] terrain = chunk.terrain ;
+		Sprite[] buriedTerrain = chunk.buriedTerrain ;
+		Sprite[] features = chunk.features ;
+		Sprite[] blocks = chunk.blocks ;
+
+		switch (sprite.getLayer()) {
+			case TERRAIN_LAYER :
+				// uncover any terrain buried beneath the removed Sprite
+				if (terrain[tile] == sprite) {
+					terrain[tile] = buriedTerrain[tile] ;
+					buriedTerrain[tile] = null ;
+				}
+				else if (buriedTerrain[tile] == sprite) {
+					buriedTerrain[tile] = null ;
+				}
+				break ;
+
+			case FEATURE_LAYER :
+				if (features[tile] == sprite) {
+					features[tile] = null ;
+				}
+				break ;
+
+			case BLOCK_LAYER :
+				if (blocks[tile] == sprite) {
+					blocks[tile] = null ;
+				}
+				break ;
+
+			case UNIT_LAYER :
+				pull(chunk.units, tile, sprite) ;
+				break ;
+
+			default :
+				pull(chunk.overlays, tile, sprite) ;
+				break ;
+		}
+	}
+
+	private void push(ArrayList<ArrayList<Sprite>> layer, int tile, Sprite sprite) {
+		// adds a Sprite to the top of a stacked layer, creating the tile's stack if needed
+		ArrayList<Sprite> stack = layer.get(tile) ;
+		if (stack == null) {
+			stack = new ArrayList<>(1) ;
+			layer.set(tile, stack) ;
+		}
+		stack.add(sprite) ;
+	}
+
+	private void pull(ArrayList<ArrayList<Sprite>> layer, int tile, Sprite sprite) {
+		ArrayList<Sprite> stack = layer.get(tile) ;
+		if (stack != null) {
+			stack.remove(sprite) ;
+		}
+	}
+
+	private void noteCollision(ArrayList<Sprite> stack) {
+		// a Unit has just joined other Units on a tile, so record any Player among them
+		if (stack.size() < 2) {
+			return ;
+		}
+		for (Sprite sprite : stack) {
+			if (sprite instanceof Player && !collisions.contains(sprite)) {
+				collisions.add((Player) sprite) ;
+			}
+		}
+	}
+
+	private void collectTile(Chunk chunk, int layer, int tile, ArrayList<Sprite> area) {
+		// adds the Sprites one layer of a tile holds, bottom-most first
+		switch (layer) {
+			case TERRAIN_LAYER :
+				addIfPresent(chunk.buriedTerrain[tile], area) ;
+				addIfPresent(chunk.terrain[tile], area) ;
+				break ;
+
+			case FEATURE_LAYER :
+				addIfPresent(chunk.features[tile], area) ;
+				break ;
+
+			case BLOCK_LAYER :
+				addIfPresent(chunk.blocks[tile], area) ;
+				break ;
+
+			case UNIT_LAYER :
+				addAll(chunk.units.get(tile), area) ;
+				break ;
+
+			default :
+				addAll(chunk.overlays.get(tile), area) ;
+				break ;
+		}
+	}
+
+	private void addIfPresent(Sprite sprite, ArrayList<Sprite> area) {
+		if (sprite != null) {
+			area.add(sprite) ;
+		}
+	}
+
+	private void addAll(ArrayList<Sprite> stack, ArrayList<Sprite> area) {
+		if (stack == null) {
+			return ;
+		}
+		for (int i=0; i<stack.size(); i++) {
+			area.add(stack.get(i)) ;
+		}
+	}
+
+	private Sprite top(ArrayList<Sprite> stack) {
+		if (stack == null || stack.isEmpty()) {
+			return null ;
+		}
+		return stack.get(stack.size() - 1) ;
+	}
+
+	private boolean inBounds(int x, int y) {
+		return (x >= 0 && x < width && y >= 0 && y < height) ;
+	}
+
+	private Chunk chunkAt(int x, int y) {
+		// the loaded chunk holding a tile, or null if the tile is off the map or its chunk is not loaded
+		if (!inBounds(x, y)) {
+			return null ;
+		}
+		return chunks[chunkIndex(x, y)] ;
+	}
+
+	private int tileIndex(int x, int y) {
+		// the index of a tile within its chunk
+		return ((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK) ;
+	}
+
+	/* the layers of one chunk's tiles */
+	private static class Chunk {
+
+		// layers which only ever hold one Sprite per tile, except terrain which can hold a
+		// second, walkable, Sprite beneath the top one - such as the Floor under a CrackedWall
+		private Sprite[] terrain = new Sprite[CHUNK_TILES] ;
+		private Sprite[] buriedTerrain = new Sprite[CHUNK_TILES] ;
+		private Sprite[] features = new Sprite[CHUNK_TILES] ;
+		private Sprite[] blocks = new Sprite[CHUNK_TILES] ;
+
+		// layers which can hold several Sprites on one tile, created for a tile when first needed
+		private ArrayList<ArrayList<Sprite>> units = emptyStacks() ;
+		private ArrayList<ArrayList<Sprite>> overlays = emptyStacks() ;
+
+		private static ArrayList<ArrayList<Sprite>> emptyStacks() {
+			ArrayList<ArrayList<Sprite>> stacks = new ArrayList<>(CHUNK_TILES) ;
+			for (int i=0; i<CHUNK_TILES; i++) {
+				stacks.add(null) ;
+			}
+			return stacks ;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+import java.util.ArrayList ;
+
+/**
+ * Holds the Sprites of one level sorted into typed partitions: its Units, enemies, Mages, Undoable
+ * Sprites, timed Sprites, Targets, Switches and Doors, each in drawing order. Each Sprite is sorted once, as
+ * it joins the level, so each pass over the level visits only the Sprites it acts on rather than
+ * filtering every Sprite by type.
+ *
+ * Kept by the level's LevelData, and by World as Sprites are spawned and removed during play.
+ * A Sprite may be in several partitions, or in none, such as a Wall. The components that World's
+ * movement and explosion systems and the renderer run over are kept in the level's EntityStore.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class SpritePartitions {
+
+	private ArrayList<Unit> units ;
+	private ArrayList<Unit> enemies ;
+	private ArrayList<Mage> mages ;
+	private ArrayList<Sprite> undoables ;
+	private ArrayList<Timed> timed ;
+	private ArrayList<Target> targets ;
+	private ArrayList<Switch> switches ;
+	private ArrayList<Door> doors ;
+
+	private Player player ;
+
+	/**
+	 * Creates SpritePartitions holding no Sprites.
+	 */
+	public SpritePartitions() {
+		units = new ArrayList<>() ;
+		enemies = new ArrayList<>() ;
+		mages = new ArrayList<>() ;
+		undoables = new ArrayList<>() ;
+		timed = new ArrayList<>() ;
+		targets = new ArrayList<>() ;
+		switches = new ArrayList<>() ;
+		doors = new ArrayList<>() ;
+		player = null ;
+	}
+
+	/**
+	 * Sorts a Sprite joining the level into each partition it belongs to, after those already there.
+	 *
+	 * @param sprite	the Sprite joining the level
+	 */
+	public void add(Sprite sprite) {
+		if (sprite instanceof Unit) {
+			units.add((Unit) sprite) ;
+			if (player == null && sprite instanceof Player) {
+				player = (Player) sprite ;
+			}
+			if (!(sprite instanceof Player)) {
+				enemies.add((Unit) sprite) ;
+			}
+			if (sprite instanceof Mage) {
+				mages.add((Mage) sprite) ;
+			}
+		}
+		if (sprite instanceof Undoable) {
+			undoables.add(sprite) ;
+		}
+		if (sprite instanceof Timed) {
+			timed.add((Timed) sprite) ;
+		}
+		if (sprite instanceof Target) {
+			targets.add((Target) sprite) ;
+		}
+		if (sprite instanceof Switch) {
+			switches.add((Switch) sprite) ;
+		}
+		if (sprite instanceof Door) {
+			doors.add((Door) sprite) ;
+		}
+	}
+
+	/**
+	 * Takes a Sprite leaving the level out of each partition it is in.
+	 *
+	 * @param sprite	the Sprite leaving the level
+	 */
+	public void remove(Sprite sprite) {
+		if (sprite instanceof Unit) {
+			units.remove(sprite) ;
+			if (sprite == player) {
+				player = findPlayer() ;
+			}
+			if (!(sprite instanceof Player)) {
+				enemies.remove(sprite) ;
+			}
+			if (sprite instanceof Mage) {
+				mages.remove(sprite) ;
+			}
+		}
+		if (sprite instanceof Undoable) {
+			undoables.remove(sprite) ;
+		}
+		if (sprite instanceof Timed) {
+			timed.remove(sprite) ;
+		}
+		if (sprite instanceof Target) {
+			targets.remove(sprite) ;
+		}
+		if (sprite instanceof Switch) {
+			switches.remove(sprite) ;
+		}
+		if (sprite instanceof Door) {
+			doors.remove(sprite) ;
+		}
+	}
+
+	/**
+	 * Takes every Sprite no longer in the level out of the partitions at once, such as the Sprites
+	 * of a chunk just unloaded, rather than searching each partition once per Sprite.
+	 */
+	public void removeLeft() {
+		units.removeIf(sprite -> !sprite.isInLevel()) ;
+		enemies.removeIf(sprite -> !sprite.isInLevel()) ;
+		mages.removeIf(sprite -> !sprite.isInLevel()) ;
+		undoables.removeIf(sprite -> !sprite.isInLevel()) ;
+		timed.removeIf(sprite -> !((Sprite) sprite).isInLevel()) ;
+		targets.removeIf(sprite -> !sprite.isInLevel()) ;
+		switches.removeIf(sprite -> !sprite.isInLevel()) ;
+		doors.removeIf(sprite -> !sprite.isInLevel()) ;
+		if (player != null && !player.isInLevel()) {
+			player = findPlayer() ;
+		}
+	}
+
+	/**
+	 * Takes every Sprite out of the partitions, such as before a World restored from a snapshot
+	 * sorts its Sprites in again.
+	 */
+	public void clear() {
+		units.clear() ;
+		enemies.clear() ;
+		mages.clear() ;
+		undoables.clear() ;
+		timed.clear() ;
+		targets.clear() ;
+		switches.clear() ;
+		doors.clear() ;
+		player = null ;
+	}
+
+	/**
+	 * @return	the level's Player, or null if it has died or is not loaded
+	 */
+	public Player getPlayer() {
+		return player ;
+	}
+
+	/* getters */
+	public ArrayList<Unit> getUnits() {
+		return units ;
+	}
+	public ArrayList<Unit> getEnemies() {
+		return enemies ;
+	}
+	public ArrayList<Mage> getMages() {
+		return mages ;
+	}
+	public ArrayList<Sprite> getUndoables() {
+		return undoables ;
+	}
+	public ArrayList<Timed> getTimed() {
+		return timed ;
+	}
+	public ArrayList<Target> getTargets() {
+		return targets ;
+	}
+	public ArrayList<Switch> getSwitches() {
+		return switches ;
+	}
+	public ArrayList<Door> getDoors() {
+		return doors ;
+	}
+	/* ------- */
+
+	private Player findPlayer() {
+		for (int i=0; i<units.size(); i++) {
+			if (units.get(i) instanceof Player) {
+				return (Player) units.get(i) ;
+			}
+		}
+		return null ;
+	}
+}
@@ -1,8 +1,12 @@
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
- * A subclass of Sprite which represents a switch on-screen. The user can open a door
- * in a level by covering that level's Switch with a Block Sprite.
+ * A subclass of Sprite which represents a switch on-screen. The user can open doors
+ * in a level by covering a Switch with a Block Sprite: the Switch signals a named channel
+ * of its level's SignalBoard whenever it is covered or uncovered, and the Doors on that
+ * channel open or close in response.
  * 
  * @author Maxim Kirkman
  *
@@ -13,26 +17,66 @@ public class Switch extends Sprite {
 	private static final String IMAGE_SOURCE = "res/switch.png" ;
 	
 	private boolean isCovered ;
+	private String channel ;
+	private SignalBoard board ;
 
 	/**
-	 * Creates a Switch Sprite at the given tile coordinates.
+	 * Creates a Switch Sprite at the given tile coordinates, on the default channel.
 	 * 
 	 * @param x					Switch's x coordinate
 	 * @param y					Swutch's y coordinate
-	 * @throws SlickException
 	 */
-	public Switch(int x, int y) throws SlickException {
+	public Switch(int x, int y) {
+		this(x, y, SignalBoard.DEFAULT_CHANNEL) ;
+	}
+	
+	/**
+	 * Creates a Switch Sprite at the given tile coordinates, signalling the given channel.
+	 * 
+	 * @param x					Switch's x coordinate
+	 * @param y					Switch's y coordinate
+	 * @param channel			name of the channel this Switch signals
+	 */
+	public Switch(int x, int y, String channel) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		isCovered = false ;
+		this.channel = channel ;
 	}
 	
 	/**
-	 * Flags the Switch as being currently covered or not covered by a Block
+	 * Flags the Switch as being currently covered or not covered by a Block, and
+	 * signals its channel if that has changed.
 	 * 
 	 * @param covered	boolean indicating if Switch will be flagged as covered
 	 */
 	public void setCovered(boolean covered) {
+		if (covered == isCovered) {
+			return ;
+		}
 		isCovered = covered ;
+		
+		if (board != null) {
+			board.signal(channel, covered) ;
+		}
+		if (getGrid() != null) {
+			getGrid().coveredChanged(this, covered) ;
+		}
+	}
+	
+	/**
+	 * Attaches this Switch to the SignalBoard of its level, to be signalled when it changes.
+	 * 
+	 * @param board	the SignalBoard this Switch has been added to
+	 */
+	public void setBoard(SignalBoard board) {
+		this.board = board ;
+	}
+	
+	/**
+	 * @return	the name of the channel this Switch signals
+	 */
+	public String getChannel() {
+		return channel ;
 	}
 	
 	/**
@@ -42,4 +86,47 @@ public class Switch extends Sprite {
 		return isCovered ;
 	}
 	
+	/**
+	 * Writes whether the Switch is covered into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeBoolean(isCovered) ;
+	}
+	
+	/**
+	 * Reads back whether the Switch is covered from a World snapshot, without signalling the change.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		isCovered = in.readBoolean() ;
+	}
+	
+	/**
+	 * Switches are indexed in the feature layer of their tile.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	@Override
+	public int getLayer() {
+		return SpriteGrid.FEATURE_LAYER ;
+	}
+	
+	/**
+	 * Shows if a Sprite never moves or changes how it is drawn while it is in a level.
+	 * Always returns true for Switches, as they never move, and look the same whether covered or not.
+	 * 
+	 * @return a boolean indicating that this Sprite can be drawn into a cached background
+	 */
+	@Override
+	public boolean isStatic() {
+		return true ;
+	}
 }
@@ -1,8 +1,11 @@
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * A subclass of Sprite which represents a target on-screen. The user completes a level
- * by covering all Targets with Block Sprites.
+ * by covering all Targets with Block Sprites: each Target reports to its level's GoalTracker
+ * whenever it is covered or uncovered.
  * 
  * @author Maxim Kirkman
  *
@@ -13,26 +16,46 @@ public class Target extends Sprite {
 	private static final String IMAGE_SOURCE = "res/target.png" ;
 	
 	private boolean isCovered ;
+	private GoalTracker tracker ;
 
 	/**
 	 * Creates a Target Sprite at the given tile coordinates.
 	 * 
 	 * @param x					Target's x coordinate
 	 * @param y					Target's y coordinate
-	 * @throws SlickException
 	 */
-	public Target(int x, int y) throws SlickException {
+	public Target(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		isCovered = false ;
 	}
 	
 	/**
-	 * Flags the Target as being currently covered or not covered by a Block
+	 * Flags the Target as being currently covered or not covered by a Block, and
+	 * tells its GoalTracker if that has changed.
 	 * 
 	 * @param covered	boolean indicating if Target will be flagged as covered
 	 */
 	public void setCovered(boolean covered) {
+		if (covered == isCovered) {
+			return ;
+		}
 		isCovered = covered ;
+		
+		if (tracker != null) {
+			tracker.coverChanged(covered) ;
+		}
+		if (getGrid() != null) {
+			getGrid().coveredChanged(this, covered) ;
+		}
+	}
+	
+	/**
+	 * Attaches this Target to the GoalTracker of its level, to be told when it changes.
+	 * 
+	 * @param tracker	the GoalTracker this Target has been added to
+	 */
+	public void setTracker(GoalTracker tracker) {
+		this.tracker = tracker ;
 	}
 	
 	/**
@@ -40,5 +63,49 @@ public class Target extends Sprite {
 	 */
 	public boolean isCovered() {
 		return isCovered ;
-	}		
-}
\ No newline at end of file
+	}
+	
+	/**
+	 * Writes whether the Target is covered into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeBoolean(isCovered) ;
+	}
+	
+	/**
+	 * Reads back whether the Target is covered from a World snapshot, without signalling the change.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		isCovered = in.readBoolean() ;
+	}
+	
+	/**
+	 * Targets are indexed in the feature layer of their tile.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	@Override
+	public int getLayer() {
+		return SpriteGrid.FEATURE_LAYER ;
+	}
+	
+	/**
+	 * Shows if a Sprite never moves or changes how it is drawn while it is in a level.
+	 * Always returns true for Targets, as they never move, and look the same whether covered or not.
+	 * 
+	 * @return a boolean indicating that this Sprite can be drawn into a cached background
+	 */
+	@Override
+	public boolean isStatic() {
+		return true ;
+	}
+}
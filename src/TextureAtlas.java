@@ -0,0 +1,156 @@
+import java.io.File ;
+import java.util.Arrays ;
+import java.util.HashMap ;
+
+import org.newdawn.slick.Graphics ;
+import org.newdawn.slick.Image ;
+import org.newdawn.slick.SlickException ;
+import org.newdawn.slick.SpriteSheet ;
+
+/**
+ * Packs every Sprite image in res into one texture, so a whole frame of Sprites can be drawn
+ * with a single texture bind and one batch of quads.
+ *
+ * The atlas is a SpriteSheet of tile-sized cells. Each image takes up as many whole cells as it
+ * needs, placed on shelves from the tallest image down, and is drawn through a sub-image sharing
+ * the atlas texture. Drawing happens between startUse and endUse, which bind the texture once.
+ * Must be created on the render thread, as packing draws into the atlas through its Graphics.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class TextureAtlas {
+
+	private static final String IMAGE_DIRECTORY = "res" ;
+	private static final String IMAGE_SUFFIX = ".png" ;
+	private static final String PATH_SEPARATOR = "/" ;
+	private static final int MAX_ROW_CELLS = 8 ;
+
+	private SpriteSheet sheet ;
+	private HashMap<String, Image> regions ;
+
+	/**
+	 * Creates a TextureAtlas holding every png image in res.
+	 *
+	 * @throws SlickException
+	 */
+	public TextureAtlas() throws SlickException {
+
+		File[] files = new File(IMAGE_DIRECTORY).listFiles((directory, name) -> name.endsWith(IMAGE_SUFFIX)) ;
+		files = (files != null) ? files : new File[0] ;
+		String[] imageSources = new String[files.length] ;
+		Image[] images = new Image[files.length] ;
+		for (int i=0; i<files.length; i++) {
+			imageSources[i] = IMAGE_DIRECTORY + PATH_SEPARATOR + files[i].getName() ;
+			images[i] = TextureCache.acquire(imageSources[i]) ;
+		}
+
+		// place the tallest images first, filling each shelf of cells left to right
+		Integer[] order = new Integer[images.length] ;
+		for (int i=0; i<order.length; i++) {
+			order[i] = i ;
+		}
+		Arrays.sort(order, (a, b) -> cellsFor(images[b].getHeight()) - cellsFor(images[a].getHeight())) ;
+
+		int[] cellX = new int[images.length] ;
+		int[] cellY = new int[images.length] ;
+		int shelfX = 0 ;
+		int shelfY = 0 ;
+		int shelfHeight = 0 ;
+		int atlasCellsWide = 1 ;
+		for (int i : order) {
+			int cellsWide = cellsFor(images[i].getWidth()) ;
+			if (shelfX + cellsWide > MAX_ROW_CELLS && shelfX > 0) {
+				shelfY += shelfHeight ;
+				shelfX = 0 ;
+				shelfHeight = 0 ;
+			}
+			cellX[i] = shelfX ;
+			cellY[i] = shelfY ;
+			shelfX += cellsWide ;
+			shelfHeight = Math.max(shelfHeight, cellsFor(images[i].getHeight())) ;
+			atlasCellsWide = Math.max(atlasCellsWide, shelfX) ;
+		}
+		int atlasCellsHigh = Math.max(1, shelfY + shelfHeight) ;
+
+		// draw every image into one texture, then release the separate images
+		Image atlas = new Image(atlasCellsWide * App.TILE_SIZE, atlasCellsHigh * App.TILE_SIZE) ;
+		Graphics graphics = atlas.getGraphics() ;
+		for (int i=0; i<images.length; i++) {
+			graphics.drawImage(images[i], cellX[i] * App.TILE_SIZE, cellY[i] * App.TILE_SIZE) ;
+		}
+		graphics.flush() ;
+
+		sheet = new SpriteSheet(atlas, App.TILE_SIZE, App.TILE_SIZE) ;
+		regions = new HashMap<>() ;
+		for (int i=0; i<images.length; i++) {
+			regions.put(imageSources[i], sheet.getSubImage(cellX[i] * App.TILE_SIZE, cellY[i] * App.TILE_SIZE,
+														   images[i].getWidth(), images[i].getHeight())) ;
+			TextureCache.release(imageSources[i]) ;
+		}
+	}
+
+	/**
+	 * Shows if an image file was packed into this atlas.
+	 *
+	 * @param imageSource	location of the image file
+	 * @return				a boolean indicating if the image can be drawn from the atlas
+	 */
+	public boolean contains(String imageSource) {
+		return regions.containsKey(imageSource) ;
+	}
+
+	/**
+	 * Returns the sub-image of the atlas holding an image file, for drawing outside a batch.
+	 *
+	 * @param imageSource	location of the image file
+	 * @return				the atlas region holding the image, or null if it was not packed
+	 */
+	public Image getImage(String imageSource) {
+		return regions.get(imageSource) ;
+	}
+
+	/**
+	 * Binds the atlas texture and begins a batch of quads. Only drawCentered may be called
+	 * until the batch is ended with endUse.
+	 */
+	public void startUse() {
+		sheet.startUse() ;
+	}
+
+	/**
+	 * Draws an image from the atlas centered at the given pixel, within the current batch.
+	 *
+	 * @param imageSource	location of the image file
+	 * @param pixelX		the x coordinate of the image's center
+	 * @param pixelY		the y coordinate of the image's center
+	 */
+	public void drawCentered(String imageSource, float pixelX, float pixelY) {
+		Image region = regions.get(imageSource) ;
+		float width = region.getWidth() ;
+		float height = region.getHeight() ;
+		region.drawEmbedded(pixelX - width/2, pixelY - height/2, width, height) ;
+	}
+
+	/**
+	 * Ends the current batch of quads.
+	 */
+	public void endUse() {
+		sheet.endUse() ;
+	}
+
+	/**
+	 * Frees the atlas texture.
+	 *
+	 * @throws SlickException
+	 */
+	public void destroy() throws SlickException {
+		sheet.destroy() ;
+		regions.clear() ;
+	}
+
+	private static int cellsFor(int pixels) {
+		// the number of whole tile-sized cells needed to hold the given number of pixels
+		return (pixels + App.TILE_SIZE - 1) / App.TILE_SIZE ;
+	}
+}
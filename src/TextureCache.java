@@ -0,0 +1,78 @@
+import java.util.HashMap ;
+
+import org.newdawn.slick.Image ;
+import org.newdawn.slick.SlickException ;
+
+/**
+ * Static class which shares one loaded Image between every Sprite drawn from the same file.
+ *
+ * Each Image is loaded the first time its file is acquired, and counts the Sprites holding it.
+ * Once every holder has released it, the Image is destroyed and its texture freed, so texture
+ * memory scales with the number of distinct images in a level rather than its number of Sprites.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class TextureCache {
+
+	private static final int NO_HOLDERS = 0 ;
+
+	private static HashMap<String, Image> images = new HashMap<>() ;
+	private static HashMap<String, Integer> holders = new HashMap<>() ;
+
+	/**
+	 * Returns the shared Image for the given file, loading it if no Sprite currently holds it.
+	 * Every call should be matched by a later call to release.
+	 *
+	 * @param imageSource	location of the image file
+	 * @return				the shared Image loaded from the file
+	 * @throws SlickException
+	 */
+	public static synchronized Image acquire(String imageSource) throws SlickException {
+
+		Image image = images.get(imageSource) ;
+		if (image == null) {
+			image = new Image(imageSource) ;
+			images.put(imageSource, image) ;
+			holders.put(imageSource, NO_HOLDERS) ;
+		}
+		holders.put(imageSource, holders.get(imageSource) + 1) ;
+
+		return image ;
+	}
+
+	/**
+	 * Gives up one hold on the shared Image for the given file, destroying the Image
+	 * once nothing holds it any longer.
+	 *
+	 * @param imageSource	location of the image file
+	 */
+	public static synchronized void release(String imageSource) {
+
+		Integer count = holders.get(imageSource) ;
+		if (count == null) {
+			return ;
+		}
+
+		if (count > 1) {
+			holders.put(imageSource, count - 1) ;
+		}
+		else {
+			Image image = images.remove(imageSource) ;
+			holders.remove(imageSource) ;
+			try {
+				image.destroy() ;
+			}
+			catch (SlickException e) {
+				e.printStackTrace() ;
+			}
+		}
+	}
+
+	/**
+	 * @return	the number of distinct Images currently loaded
+	 */
+	public static synchronized int getLoadedCount() {
+		return images.size() ;
+	}
+}
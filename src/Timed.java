@@ -0,0 +1,19 @@
+/**
+ * Interface for Sprites which act on a timer rather than on the Player's moves, such as
+ * Skeletons, sliding Ice, and Explosions. Their timers are kept by their level's TimerWheel.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public interface Timed {
+
+	/** Attaches an Object to the TimerWheel of its level, setting its first timer if it has one */
+	abstract void setWheel(TimerWheel wheel) ;
+
+	/** Returns the timer an Object is fired by, for its TimerWheel to save and restore */
+	abstract TimerWheel.Timer getTimer() ;
+
+	/** Performs an Object's timed action, called by its TimerWheel when its timer is due */
+	abstract void onTimer(SpriteGrid grid) ;
+
+}
@@ -0,0 +1,272 @@
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
+
+/**
+ * Schedules the timed actions of a level's Sprites, in whole simulation ticks.
+ *
+ * A hierarchical timing wheel: timers due within 64 ticks sit in a slot of the first wheel, one
+ * per tick; those further off sit in the coarser second or third wheel, and are moved down into
+ * a finer wheel as their time draws near. Advancing one tick only touches the timers due on that
+ * tick, so Sprites waiting on a timer cost nothing in the ticks between their actions.
+ *
+ * Timers due on the same tick fire in the order they were scheduled, so a level always plays
+ * out the same way for the same Commands. Each timer is numbered as it is scheduled, and every
+ * slot is kept in that order, so a timer brought down from a coarser wheel still fires before
+ * those due on the same tick but scheduled after it. A World snapshot saves each timer set with
+ * the slot it sits in, in order, so a restored wheel fires the same timers in the same order.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class TimerWheel {
+
+	private static final int SLOT_BITS = 6 ;
+	private static final int SLOT_COUNT = 1 << SLOT_BITS ;
+	private static final int SLOT_MASK = SLOT_COUNT - 1 ;
+	private static final int WHEEL_COUNT = 3 ;
+
+	private long now ;
+	private long nextSequence ;
+
+	// one list of timers per slot of each wheel, and those too far off for any wheel
+	private Timer[][] wheels ;
+	private Timer overflow ;
+
+	/**
+	 * Creates an empty TimerWheel, at tick 0.
+	 */
+	public TimerWheel() {
+		now = 0 ;
+		nextSequence = 0 ;
+
+		wheels = new Timer[WHEEL_COUNT][SLOT_COUNT] ;
+		for (int wheel=0; wheel<WHEEL_COUNT; wheel++) {
+			for (int slot=0; slot<SLOT_COUNT; slot++) {
+				wheels[wheel][slot] = new Timer(null) ;
+			}
+		}
+		overflow = new Timer(null) ;
+	}
+
+	/**
+	 * Sets a timer to fire the given number of ticks from now, replacing any time it was
+	 * already set for. Timers always fire at least one tick from now.
+	 *
+	 * @param timer		the timer to set
+	 * @param delay		the number of ticks until the timer fires
+	 */
+	public void schedule(Timer timer, long delay) {
+		timer.unlink() ;
+		timer.deadline = now + Math.max(delay, 1) ;
+		timer.sequence = nextSequence++ ;
+		insert(timer) ;
+	}
+
+	/**
+	 * Stops a timer from firing. Does nothing if the timer is not set.
+	 *
+	 * @param timer		the timer to stop
+	 */
+	public void cancel(Timer timer) {
+		timer.unlink() ;
+	}
+
+	/**
+	 * Moves on one tick, firing every timer due on it in the order they were scheduled.
+	 *
+	 * @param grid		SpriteGrid indexing all Sprites in the level, passed to each fired Sprite
+	 */
+	public void advance(SpriteGrid grid) {
+		now++ ;
+
+		// when the first wheel comes round, bring the next slot of each coarser wheel down
+		if ((now & SLOT_MASK) == 0) {
+			if (((now >> SLOT_BITS) & SLOT_MASK) == 0) {
+				if (((now >> (2 * SLOT_BITS)) & SLOT_MASK) == 0) {
+					cascade(overflow) ;
+				}
+				cascade(wheels[2][slotIndex(now, 2)]) ;
+			}
+			cascade(wheels[1][slotIndex(now, 1)]) ;
+		}
+
+		// fire the timers due now, taking each off the slot first so it may be set again
+		Timer due = wheels[0][slotIndex(now, 0)] ;
+		while (due.next != due) {
+			Timer timer = due.next ;
+			timer.unlink() ;
+			timer.owner.onTimer(grid) ;
+		}
+	}
+
+	/**
+	 * @return	the number of ticks this TimerWheel has advanced
+	 */
+	public long getTick() {
+		return now ;
+	}
+
+	/**
+	 * Writes the current tick, and every timer set, into a World snapshot: the id of the Sprite
+	 * each fires, when it is due, and the slot it sits in, in the order each slot fires them.
+	 *
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(now) ;
+		out.writeLong(nextSequence) ;
+
+		int count = 0 ;
+		for (int list=0; list<=WHEEL_COUNT * SLOT_COUNT; list++) {
+			Timer head = getList(list) ;
+			for (Timer timer = head.next; timer != head; timer = timer.next) {
+				count++ ;
+			}
+		}
+		out.writeInt(count) ;
+
+		for (int list=0; list<=WHEEL_COUNT * SLOT_COUNT; list++) {
+			Timer head = getList(list) ;
+			for (Timer timer = head.next; timer != head; timer = timer.next) {
+				out.writeShort(list) ;
+				out.writeInt(((Sprite) timer.owner).getId()) ;
+				out.writeLong(timer.deadline) ;
+				out.writeLong(timer.sequence) ;
+			}
+		}
+	}
+
+	/**
+	 * Stops every timer set, then reads back the tick and the timers written by write, setting
+	 * each again in its slot. The Sprites the timers fire must already be back in the grid's store.
+	 *
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level, to find the Sprite each timer fires by id
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	public void read(DataInput in, SpriteGrid grid) throws IOException {
+		for (int list=0; list<=WHEEL_COUNT * SLOT_COUNT; list++) {
+			Timer head = getList(list) ;
+			while (head.next != head) {
+				head.next.unlink() ;
+			}
+		}
+		now = in.readLong() ;
+		nextSequence = in.readLong() ;
+
+		int count = in.readInt() ;
+		for (int i=0; i<count; i++) {
+			Timer head = getList(in.readShort()) ;
+			Timer timer = ((Timed) grid.getSprite(in.readInt())).getTimer() ;
+			timer.deadline = in.readLong() ;
+			timer.sequence = in.readLong() ;
+			timer.linkBefore(head) ;
+		}
+	}
+
+	private Timer getList(int list) {
+		// numbers every slot of every wheel in turn, then the overflow list after them
+		return (list < WHEEL_COUNT * SLOT_COUNT) ? wheels[list >> SLOT_BITS][list & SLOT_MASK] : overflow ;
+	}
+
+	private void insert(Timer timer) {
+		long delay = timer.deadline - now ;
+
+		// place the timer in the finest wheel which reaches its deadline
+		for (int wheel=0; wheel<WHEEL_COUNT; wheel++) {
+			if (delay < (1L << (SLOT_BITS * (wheel + 1)))) {
+				insertInOrder(timer, wheels[wheel][slotIndex(timer.deadline, wheel)]) ;
+				return ;
+			}
+		}
+		insertInOrder(timer, overflow) ;
+	}
+
+	private void insertInOrder(Timer timer, Timer slot) {
+		/* Links a timer into a slot behind every timer scheduled before it. A newly scheduled *
+		 * timer is always the latest, so goes straight to the end; only a cascaded timer     *
+		 * steps back past those scheduled into the slot after it.                            */
+		Timer before = slot ;
+		while (before.prev != slot && before.prev.sequence > timer.sequence) {
+			before = before.prev ;
+		}
+		timer.linkBefore(before) ;
+	}
+
+	private void cascade(Timer slot) {
+		// re-place every timer in a slot, now that their deadlines are nearer
+		Timer first = slot.next ;
+		Timer last = slot.prev ;
+		if (first == slot) {
+			return ;
+		}
+		slot.next = slot ;
+		slot.prev = slot ;
+		last.next = null ;
+
+		Timer timer = first ;
+		while (timer != null) {
+			Timer next = timer.next ;
+			timer.next = null ;
+			timer.prev = null ;
+			insert(timer) ;
+			timer = next ;
+		}
+	}
+
+	private int slotIndex(long tick, int wheel) {
+		return (int) ((tick >> (SLOT_BITS * wheel)) & SLOT_MASK) ;
+	}
+
+	/**
+	 * One Sprite's timer, which can be set on a TimerWheel any number of times but is only
+	 * ever waiting to fire once. Owned by the Sprite it fires, so setting it never allocates.
+	 */
+	public static class Timer {
+
+		private Timed owner ;
+		private long deadline ;
+		private long sequence ;
+		private Timer prev ;
+		private Timer next ;
+
+		/**
+		 * Creates an unset timer which fires the given Sprite.
+		 *
+		 * @param owner		the Timed Sprite to fire
+		 */
+		public Timer(Timed owner) {
+			this.owner = owner ;
+
+			// an unset timer, or the head of a slot, links to itself
+			prev = this ;
+			next = this ;
+		}
+
+		/**
+		 * @return	a boolean indicating if this timer is waiting to fire
+		 */
+		public boolean isScheduled() {
+			return next != this ;
+		}
+
+		private void linkBefore(Timer head) {
+			prev = head.prev ;
+			next = head ;
+			head.prev.next = this ;
+			head.prev = this ;
+		}
+
+		private void unlink() {
+			if (next == this) {
+				return ;
+			}
+			prev.next = next ;
+			next.prev = prev ;
+			prev = this ;
+			next = this ;
+		}
+	}
+}
@@ -1,6 +1,6 @@
-import java.util.ArrayList;
-
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * A subclass of Block which moves a single tile in the direction it is pushed. If it comes
@@ -16,85 +16,84 @@ public class Tnt extends Block {
 	
 	private boolean isExploding ;
 	
-	private SaveStack<Tnt> saves ;
-	
 	/**
 	 * Creates a new Tnt Sprite at the given tile coordinates.
 	 * 
 	 * @param x					Tnt's x coordinate
 	 * @param y					Tnt's y coordinate
-	 * @throws SlickException
 	 */
-	public Tnt(int x, int y) throws SlickException {
+	public Tnt(int x, int y) {
 		super(NAME, IMAGE_SOURCE, x, y) ;
 		
 		isExploding = false ;
-		saves = new SaveStack<>() ;
 	}
 		
 	@Override
-	public boolean bePushed(int direction, ArrayList<Sprite> spriteArray) {
+	public boolean bePushed(int direction, SpriteGrid grid) {
 		
-		Position nextPosition = WorldChecker.getNextPosition(getPosition(), direction) ;
-		Sprite nextSprite = WorldChecker.getSignificantSprite(nextPosition, spriteArray) ;
+		int nextX = WorldChecker.getNextX(getX(), direction) ;
+		int nextY = WorldChecker.getNextY(getY(), direction) ;
+		Sprite nextSprite = WorldChecker.getSignificantSprite(nextX, nextY, grid) ;
 
 		// check if moving into a CrackedWall
 		if (nextSprite instanceof CrackedWall) {
 			isExploding = true ;
+			grid.explosionEnding(this) ;
 			((CrackedWall) nextSprite).explode() ;
-			super.bePushed(direction, spriteArray) ;
+			super.bePushed(direction, grid) ;
 			return true ;
 		}
 
 		// otherwise perform a standard bePushed
-		return super.bePushed(direction, spriteArray) ;
+		return super.bePushed(direction, grid) ;
 	}
 
 	/**
-	 * @return	boolean indicating if Tnt is exploding
+	 * Tnt can also be pushed into a CrackedWall, exploding both.
+	 * 
+	 * @param direction		the direction in which the Tnt would be pushed
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return			a boolean indicating if a push would move the Tnt
 	 */
 	@Override
-	public boolean isExploding() {
-		return isExploding ;
+	public boolean canBePushed(int direction, SpriteGrid grid) {
+		int nextX = WorldChecker.getNextX(getX(), direction) ;
+		int nextY = WorldChecker.getNextY(getY(), direction) ;
+		
+		return WorldChecker.getSignificantSprite(nextX, nextY, grid) instanceof CrackedWall
+				|| super.canBePushed(direction, grid) ;
 	}
-	
+
 	/**
-	 * Steps Tnt back one in its saved states.
+	 * Writes the Tnt's covered Sprite, and whether it is exploding, into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
 	 */
 	@Override
-	public void undo() {
-		// take retrieved Tnt's position
-		Tnt undoTnt = saves.load() ;
-		setSpritePosition(undoTnt.getPosition()) ;
-		
-		// adjust covering Switch/Target data
-		leaveCovering() ;
-		startCovering(undoTnt.getCovering()) ;
+	public void writeState(DataOutput out) throws IOException {
+		super.writeState(out) ;
+		out.writeBoolean(isExploding) ;
 	}
-
+	
 	/**
-	 * Saves Tnt's current state in its SaveStack, to be retrieved if an undo command is given.
+	 * Reads back the Tnt's covered Sprite, and whether it is exploding, from a World snapshot.
 	 * 
-	 * @throws SlickException
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
 	 */
 	@Override
-	public void save() throws SlickException {
-		saves.add(copy()) ;
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		super.readState(in, grid) ;
+		isExploding = in.readBoolean() ;
 	}
-
+	
 	/**
-	 * Copies this Tnt's data into a new Tnt object at the current Position.
-	 * 
-	 * Used to allow Tnt to save and access its own past data in its SaveStack.
-	 * 
-	 * @return	a new Stone Sprite containing copies of this Player's data
-	 * @throws 	SlickException
+	 * @return	boolean indicating if Tnt is exploding
 	 */
 	@Override
-	public Tnt copy() throws SlickException {
-		Tnt tntCopy = new Tnt(getPosition().getX(), getPosition().getY()) ;
-		tntCopy.startCovering(getCovering()) ;
-
-		return tntCopy ;
+	public boolean isExploding() {
+		return isExploding ;
 	}
 }
@@ -1,14 +1,21 @@
-import org.newdawn.slick.SlickException ;
-
+/**
+ * Interface for Sprites whose changes are recorded in a MoveJournal, so that Player moves can be undone.
+ * 
+ * @author Maxim Kirkman
+ *
+ */
 public interface Undoable {
 
-	/** saves the current state of an Object */
-	abstract void save() throws SlickException ;
+	/** returns the Position an Object should return to if the current move is undone */
+	abstract Position getUndoPosition() ;
 	
-	/** Reverts to the most recent saved state of an Object */
-	abstract void undo() ;
-
-	/** Copies the current state of an Object into a new Object with the same data */
-	abstract Object copy() throws SlickException ;
+	/** returns the Sprite an Object should cover if the current move is undone, or null */
+	abstract Sprite getUndoCovering() ;
+	
+	/** Reverts an Object to a Position and covered Sprite recorded in a MoveJournal */
+	abstract void undo(Position position, Sprite covering) ;
+	
+	/** Shows if an Object has finished changing from past moves, such as Ice that has stopped sliding */
+	abstract boolean isSettled() ;
 
 }
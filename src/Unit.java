@@ -1,6 +1,6 @@
-import java.util.ArrayList ;
-
-import org.newdawn.slick.SlickException ;
+import java.io.DataInput ;
+import java.io.DataOutput ;
+import java.io.IOException ;
 
 /**
  * An abstract subclass of Sprite which represents characters on the board,
@@ -12,6 +12,13 @@ import org.newdawn.slick.SlickException ;
  */
 public abstract class Unit extends Sprite {
 	
+	/** the plan of a Unit which cannot plan its step ahead, so must take it in order */
+	public static final int NO_PLAN = -1 ;
+	/** set in a plan if the Unit moves, as well as turning to the plan's direction */
+	public static final int PLAN_MOVES = 1 << 3 ;
+	/** the bits of a plan holding the direction the Unit turns to */
+	public static final int PLAN_DIRECTION_MASK = PLAN_MOVES - 1 ;
+	
 	private boolean canMove ;
 	private int direction ;
 
@@ -22,9 +29,8 @@ public abstract class Unit extends Sprite {
 	 * @param image_src			location of Unit's image file
 	 * @param x					Unit's x coordinate
 	 * @param y					Unit's y coordinate
-	 * @throws SlickException
 	 */
-	public Unit(String name, String image_src, int x, int y) throws SlickException {
+	public Unit(String name, String image_src, int x, int y) {
 		super(name, image_src, x, y) ;
 		
 		canMove = false ;
@@ -37,14 +43,14 @@ public abstract class Unit extends Sprite {
 	 * into a Sprite that prevents movement.
 	 * 
 	 * @param direction		the direction in which the Unit is attempting to move
-	 * @param spriteArray	ArrayList of all Sprites in the level
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
 	 * @return				a boolean indicating if the move attempt was successful
-	 * @throws SlickException 
 	 */
-	public boolean makePushMove(int direction, ArrayList<Sprite> spriteArray) throws SlickException {
+	public boolean makePushMove(int direction, SpriteGrid grid) {
 		
-		Position newPosition = WorldChecker.getNextPosition(getPosition(), direction) ;
-		Sprite nextSprite = WorldChecker.getSignificantSprite(newPosition, spriteArray) ;
+		int newX = WorldChecker.getNextX(getX(), direction) ;
+		int newY = WorldChecker.getNextY(getY(), direction) ;
+		Sprite nextSprite = WorldChecker.getSignificantSprite(newX, newY, grid) ;
 
 		// fail movement if the next Sprite disallows movement
 		if (nextSprite.stopsMovement()) {
@@ -52,15 +58,15 @@ public abstract class Unit extends Sprite {
 		}
 		// if the next Sprite is a Block, attempt to push it, fail movement if push fails
 		else if (nextSprite instanceof Block) {
-			if ( push( (Block) nextSprite, direction, spriteArray) ) {
-				setSpritePosition(newPosition) ;
+			if ( push( (Block) nextSprite, direction, grid) ) {
+				setSpritePosition(new Position(newX, newY)) ;
 				return true ;
 			}
 			return false ;
 		}
 		// if the next tile is not blocked by anything, complete the move
 		else {
-			setSpritePosition(newPosition) ;
+			setSpritePosition(new Position(newX, newY)) ;
 			return true ;
 		}
 		
@@ -71,12 +77,24 @@ public abstract class Unit extends Sprite {
 	 * or Sprite that halts movement; does not conduct a push.
 	 * 
 	 * @param newPosition	the Position the Unit will move to
-	 * @param spriteArray	ArrayList of all Sprites in the level
-	 * @return
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return				a boolean indicating if the move attempt was successful
 	 */
-	public boolean makeMove (Position newPosition, ArrayList<Sprite> spriteArray) {
+	public boolean makeMove (Position newPosition, SpriteGrid grid) {
+		return makeMove(newPosition.getX(), newPosition.getY(), grid) ;
+	}
+	
+	/**
+	 * Moves the Unit to the tile at the given coordinates, as makeMove does for a Position.
+	 * 
+	 * @param newX			the x coordinate the Unit will move to
+	 * @param newY			the y coordinate the Unit will move to
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return				a boolean indicating if the move attempt was successful
+	 */
+	public boolean makeMove (int newX, int newY, SpriteGrid grid) {
 		
-		Sprite nextSprite = WorldChecker.getSignificantSprite(newPosition, spriteArray) ;
+		Sprite nextSprite = WorldChecker.getSignificantSprite(newX, newY, grid) ;
 
 		// if the next tile is not blocked by anything, complete the move
 		if (! (nextSprite.stopsMovement() || nextSprite instanceof Block) ) {
@@ -86,17 +104,79 @@ public abstract class Unit extends Sprite {
 		return false ;
 	}
 	
+	/**
+	 * Shows if makePushMove would succeed in the direction given, without changing anything.
+	 * 
+	 * @param direction		the direction in which the Unit would move
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return				a boolean indicating if the move would succeed
+	 */
+	public boolean canPushMove(int direction, SpriteGrid grid) {
+		int newX = WorldChecker.getNextX(getX(), direction) ;
+		int newY = WorldChecker.getNextY(getY(), direction) ;
+		Sprite nextSprite = WorldChecker.getSignificantSprite(newX, newY, grid) ;
+		
+		if (nextSprite.stopsMovement()) {
+			return false ;
+		}
+		else if (nextSprite instanceof Block) {
+			return ((Block) nextSprite).canBePushed(direction, grid) ;
+		}
+		return true ;
+	}
+	
+	/**
+	 * Shows if makeMove would succeed to the tile given, without changing anything.
+	 * 
+	 * @param newX			the x coordinate the Unit would move to
+	 * @param newY			the y coordinate the Unit would move to
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return				a boolean indicating if the move would succeed
+	 */
+	public boolean canMoveTo(int newX, int newY, SpriteGrid grid) {
+		Sprite nextSprite = WorldChecker.getSignificantSprite(newX, newY, grid) ;
+		return !(nextSprite.stopsMovement() || nextSprite instanceof Block) ;
+	}
+	
+	/**
+	 * Plans the step this Unit will take when next allowed to move, reading the level but
+	 * changing nothing, so the steps of many Units can be planned at once on several threads.
+	 * The plan holds the direction the Unit turns to, with PLAN_MOVES set if it moves that way.
+	 * Defaults to NO_PLAN: differs in subclasses whose steps can be planned ahead.
+	 * 
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return				the planned step, or NO_PLAN if the Unit must take its step in order
+	 */
+	public int planMove(SpriteGrid grid) {
+		return NO_PLAN ;
+	}
+	
+	/**
+	 * Takes a step planned by planMove, which must still hold for the level as it now is,
+	 * and stops the Unit moving again until next allowed.
+	 * 
+	 * @param plan			a plan returned by planMove
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 */
+	public void applyMove(int plan, SpriteGrid grid) {
+		setDirection(plan & PLAN_DIRECTION_MASK) ;
+		if ((plan & PLAN_MOVES) != 0) {
+			makePushMove(getDirection(), grid) ;
+		}
+		allowMove(false) ;
+	}
+	
 	/**
 	 * Pushes the given Block in the direction specified, by calling its bePushed method.
 	 * 
 	 * @param block			the block to push
 	 * @param direction		the direction to move in
-	 * @param spriteArray	ArrayList of all Sprites in the level
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
 	 * @return				a boolean indicating if the Block was successfully pushed
 	 */
-	public boolean push (Block block, int direction, ArrayList<Sprite> spriteArray) {
+	public boolean push (Block block, int direction, SpriteGrid grid) {
 
-		if (block.bePushed(direction, spriteArray)) {
+		if (block.bePushed(direction, grid)) {
 			return true ;
 		}
 		return false ;
@@ -151,5 +231,39 @@ public abstract class Unit extends Sprite {
 	public void setDirection(int newDirection) {
 		direction = newDirection ;
 	}
-		
+	
+	/**
+	 * Writes the Unit's direction, and whether it may move, into a World snapshot.
+	 * 
+	 * @param out			the snapshot being written
+	 * @throws IOException	if the snapshot cannot be written to
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeByte(direction) ;
+		out.writeBoolean(canMove) ;
+	}
+	
+	/**
+	 * Reads back the Unit's direction, and whether it may move, from a World snapshot.
+	 * 
+	 * @param in			the snapshot being read
+	 * @param grid			SpriteGrid of the level
+	 * @throws IOException	if the snapshot cannot be read from
+	 */
+	@Override
+	public void readState(DataInput in, SpriteGrid grid) throws IOException {
+		direction = in.readByte() ;
+		canMove = in.readBoolean() ;
+	}
+	
+	/**
+	 * Units are indexed in the unit layer of their tile, which can hold several Units at once.
+	 * 
+	 * @return the SpriteGrid layer this Sprite is indexed in
+	 */
+	@Override
+	public int getLayer() {
+		return SpriteGrid.UNIT_LAYER ;
+	}
 }
@@ -0,0 +1,95 @@
+import java.util.ArrayList ;
+
+/**
+ * Load test for VerificationService: verifies a large batch of Replays and reports how many
+ * runs were verified per second.
+ *
+ * The batch is built from Solver solutions to each level of the game, one move every few ticks,
+ * alongside copies missing their last move, which should fail. Levels the Solver cannot solve
+ * quickly are left out, as are those whose solution does not verify: the Solver ignores
+ * enemies, so its solution to a level with enemies may lead the Player into one.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class VerificationLoadTest {
+
+	private static final int LEVEL_MAX = 5 ;
+	private static final int DEFAULT_BATCH_SIZE = 10000 ;
+	private static final int SOLVER_MAX_STATES = 200000 ;
+	// ticks between moves, long enough for sliding Ice to keep up with the Solver's moves
+	private static final int MOVE_GAP = 10 ;
+	// ticks left after the last move for the level to settle
+	private static final int SETTLE_TICKS = 1000 ;
+	private static final double NANOS_PER_SECOND = 1e9 ;
+
+	/**
+	 * Runs the load test.
+	 *
+	 * @param args	Command-line arguments: optionally, the number of Replays to verify, then
+	 * 				the number of worker threads
+	 * @throws InterruptedException
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int batchSize = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_BATCH_SIZE ;
+		int threadCount = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() ;
+
+		VerificationService service = new VerificationService(threadCount) ;
+		ArrayList<Replay> solutions = createSolutions(service) ;
+		if (solutions.isEmpty()) {
+			System.out.println("no levels could be solved") ;
+			service.shutdown() ;
+			return ;
+		}
+		ArrayList<Replay> batch = new ArrayList<>(batchSize) ;
+		for (int i=0; i<batchSize; i++) {
+			batch.add(solutions.get(i % solutions.size())) ;
+		}
+
+		// verify the batch once to warm up, then time a second run
+		service.verifyAll(batch) ;
+		long start = System.nanoTime() ;
+		ArrayList<ReplayVerdict> verdicts = service.verifyAll(batch) ;
+		double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND ;
+		service.shutdown() ;
+
+		int solved = 0 ;
+		long ticks = 0 ;
+		for (ReplayVerdict verdict : verdicts) {
+			if (verdict.isSolved()) {
+				solved++ ;
+			}
+			ticks += verdict.getTickCount() ;
+		}
+		System.out.printf("%d runs on %d threads: %d solved, %d failed, %d ticks in %.3f s (%.0f runs/s)%n",
+				verdicts.size(), threadCount, solved, verdicts.size() - solved, ticks, seconds, verdicts.size() / seconds) ;
+	}
+
+	private static ArrayList<Replay> createSolutions(VerificationService service) {
+		// a Replay of each level's solution which verifies, and one of the same solution without its last move
+		ArrayList<Replay> solutions = new ArrayList<>() ;
+
+		for (int levelNum=0; levelNum<=LEVEL_MAX; levelNum++) {
+			int[] moves = new Solver(World.getLevelName(levelNum), SOLVER_MAX_STATES).solve() ;
+			if (moves == null || moves.length == 0) {
+				continue ;
+			}
+			Replay solution = createReplay(levelNum, moves, moves.length) ;
+			if (!service.verify(solution).isSolved()) {
+				continue ;
+			}
+			solutions.add(solution) ;
+			solutions.add(createReplay(levelNum, moves, moves.length - 1)) ;
+		}
+		return solutions ;
+	}
+
+	private static Replay createReplay(int levelNum, int[] moves, int moveCount) {
+		Replay replay = new Replay(levelNum, null) ;
+		for (int i=0; i<moveCount; i++) {
+			replay.record((long) i * MOVE_GAP, moves[i]) ;
+		}
+		replay.finish((long) moveCount * MOVE_GAP + SETTLE_TICKS, 0) ;
+		return replay ;
+	}
+}
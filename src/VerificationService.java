@@ -0,0 +1,118 @@
+import java.util.ArrayList ;
+import java.util.List ;
+import java.util.concurrent.ConcurrentHashMap ;
+import java.util.concurrent.ExecutionException ;
+import java.util.concurrent.ExecutorService ;
+import java.util.concurrent.Executors ;
+import java.util.concurrent.Future ;
+
+/**
+ * Verifies batches of submitted Replays, each on its own headless World, on a fixed pool of
+ * worker threads.
+ *
+ * A Replay is solved if running its Commands from the start of its level covers every Target;
+ * running stops at the tick the level is solved, or the tick the Player dies. Each level is parsed once into a LevelTemplate
+ * shared read-only by every run on it, so a run only builds the Sprites it plays with, and memory
+ * grows with the number of workers rather than the number of Replays.
+ *
+ * @author Maxim Kirkman
+ *
+ */
+public class VerificationService {
+
+	private ExecutorService workers ;
+	private ConcurrentHashMap<String, LevelTemplate> templates ;
+
+	/**
+	 * Creates a VerificationService running Replays on the given number of worker threads.
+	 *
+	 * @param threadCount	the number of Replays to run at once
+	 */
+	public VerificationService(int threadCount) {
+		workers = Executors.newFixedThreadPool(threadCount, task -> {
+			Thread thread = new Thread(task, "replay-verifier") ;
+			thread.setDaemon(true) ;
+			return thread ;
+		}) ;
+		templates = new ConcurrentHashMap<>() ;
+	}
+
+	/**
+	 * Verifies every Replay in a batch, spread over the worker threads, and waits for them all.
+	 *
+	 * @param batch		the Replays to verify
+	 * @return			a verdict for each Replay, in the order of the batch
+	 * @throws InterruptedException
+	 */
+	public ArrayList<ReplayVerdict> verifyAll(List<Replay> batch) throws InterruptedException {
+		ArrayList<Future<ReplayVerdict>> pending = new ArrayList<>(batch.size()) ;
+		for (Replay replay : batch) {
+			pending.add(workers.submit(() -> verify(replay))) ;
+		}
+
+		ArrayList<ReplayVerdict> verdicts = new ArrayList<>(batch.size()) ;
+		for (Future<ReplayVerdict> verdict : pending) {
+			try {
+				verdicts.add(verdict.get()) ;
+			}
+			catch (ExecutionException e) {
+				verdicts.add(ReplayVerdict.failed(0, 0, "error: " + e.getCause())) ;
+			}
+		}
+		return verdicts ;
+	}
+
+	/**
+	 * Verifies one Replay on the calling thread.
+	 *
+	 * @param replay	the Replay to verify
+	 * @return			the verdict on the Replay
+	 */
+	public ReplayVerdict verify(Replay replay) {
+
+		LevelTemplate template = getTemplate(replay.getLevelName()) ;
+		if (template == null) {
+			return ReplayVerdict.failed(0, 0, "unknown level " + replay.getLevelName()) ;
+		}
+		World world = new World(template) ;
+
+		// run each tick with its recorded Command, stopping as soon as the level is solved or lost
+		Replay.Cursor cursor = replay.cursor() ;
+		while (cursor.hasNextTick()) {
+			long tick = cursor.getTick() ;
+			int command = cursor.nextCommand() ;
+			if (command == Command.SKIP_LEVEL) {
+				return ReplayVerdict.failed(world.getMoveCount(), tick, "skipped the level") ;
+			}
+
+			world.tick(command) ;
+			if (world.isLevelComplete()) {
+				return ReplayVerdict.solved(world.getMoveCount(), cursor.getTick()) ;
+			}
+			if (world.isPlayerDead()) {
+				return ReplayVerdict.failed(world.getMoveCount(), cursor.getTick(), "player died") ;
+			}
+		}
+		return ReplayVerdict.failed(world.getMoveCount(), replay.getTickCount(), "level not solved") ;
+	}
+
+	/**
+	 * Stops the worker threads once any Replays already submitted have been verified.
+	 */
+	public void shutdown() {
+		workers.shutdown() ;
+	}
+
+	private LevelTemplate getTemplate(String levelName) {
+		// parse each level the first time a Replay needs it; a level which cannot be read is tried again
+		LevelTemplate template = templates.get(levelName) ;
+		if (template == null) {
+			template = LevelTemplate.load(levelName) ;
+			if (template != null) {
+				LevelTemplate existing = templates.putIfAbsent(levelName, template) ;
+				template = (existing != null) ? existing : template ;
+			}
+		}
+		return template ;
+	}
+}
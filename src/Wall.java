@@ -1,5 +1,3 @@
-import org.newdawn.slick.SlickException ;
-
 /**
  * A subclass of Sprite which can never be moved through.
  * Sets out boundaries of the map, and non-accessible areas within the map.
@@ -16,9 +14,8 @@ public class Wall extends Sprite {
 	 * 
 	 * @param x					Wall's x coordinate
 	 * @param y					Wall's y coordinate
-	 * @throws SlickException
 	 */
-	public Wall(int x, int y) throws SlickException {
+	public Wall(int x, int y) {
 		
 		super (NAME, IMAGE_SOURCE, x, y) ;
 	}
@@ -34,4 +31,14 @@ public class Wall extends Sprite {
 		return true ;
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * Shows if a Sprite never moves or changes how it is drawn while it is in a level.
+	 * Always returns true for Walls, as they never move.
+	 * 
+	 * @return a boolean indicating that this Sprite can be drawn into a cached background
+	 */
+	@Override
+	public boolean isStatic() {
+		return true ;
+	}
+}
@@ -1,16 +1,30 @@
+import java.io.ByteArrayInputStream ;
+import java.io.ByteArrayOutputStream ;
+import java.io.DataInputStream ;
+import java.io.DataOutputStream ;
+import java.io.IOException ;
+import java.io.UncheckedIOException ;
+import java.util.ArrayDeque ;
 import java.util.ArrayList ;
-import java.util.Arrays ;
-
-import org.newdawn.slick.Graphics ;
-import org.newdawn.slick.Input ;
-import org.newdawn.slick.SlickException ;
 
 /**
  * Represents the entire game world.
  * Holds the data for one level: its Sprites, width & height, move count,
- * and ArrayLists of important Sprite types.
+ * and the level's SpritePartitions, ArrayLists of important Sprite types kept current as
+ * Sprites are spawned and removed.
  * Also handles changing levels, so holds the current level number and maximum.
  * 
+ * World depends on no Slick classes: it is driven by one Command and a time delta per frame,
+ * so it can be run without a display. App adapts keyboard input into Commands, and
+ * WorldRenderer draws a World's current state.
+ * 
+ * Time in a World passes in fixed ticks of TICK_LENGTH milliseconds, however long its frames
+ * are, and Sprites which act on a timer are scheduled on the level's TimerWheel; so the same
+ * Commands always play out the same way, and headless runs can step ticks directly.
+ * A World can record the Commands it runs into a Replay, to be run again on another World.
+ * It can also save its level into a compact snapshot and restore it later in place, as it does
+ * to restart a level.
+ * 
  * @author Maxim Kirkman
  *
  */
@@ -18,228 +32,627 @@ public class World {
 	
 	private static final String LEVEL_PREFIX = "res/levels/" ;
 	private static final String LEVEL_SUFFIX = ".lvl" ;
-	private static final String MOVE_COUNT_TEXT = "Moves: " ;
-	private static final String LOSE_TEXT = "YOU FAILED - PRESS R TO TRY AGAIN" ;
-	private static final int TEXT_BOTTOM_MODIFIER = 100 ;
 	
 	private static final int LEVEL_MAX = 5 ;
-	private static final int WIDTH_INDEX = 0 ;
-	private static final int HEIGHT_INDEX = 1 ;
-	private static final int TOP_CORNER_PIXEL = 0 ;
+	
+	/** the length of one simulation tick (milliseconds) */
+	public static final int TICK_LENGTH = 10 ;
+	// the most time one frame may advance the World by, so a stalled frame is not followed by a flood of ticks
+	private static final int MAX_FRAME_TIME = 250 ;
+	
+	private static final long HASH_SEED = 0xCBF29CE484222325L ;
+	private static final long HASH_PRIME = 0x100000001B3L ;
+	
+	private static final int SNAPSHOT_MAGIC = 0x5342534E ;	// "SBSN"
+	private static final int SHORT_MASK = 0xFFFF ;
+	// the bytes a snapshot takes per Sprite at a guess, to size its buffer
+	private static final int SNAPSHOT_SPRITE_SIZE = 16 ;
 	
 	private ArrayList<Sprite> spriteArray ;
+	private SpritePartitions partitions ;
 	private ArrayList<Unit> unitArray ;
+	private SpriteGrid grid ;
+	private FlowField field ;
+	private MoveJournal journal ;
+	private GoalTracker goals ;
+	private SignalBoard board ;
+	private TimerWheel wheel ;
+	private ChunkStore chunks ;
+	private LevelPrefetcher prefetcher ;
+	private boolean prefetchLevels ;
+	private LevelTemplate template ;
+	
+	// time from past frames not yet run as a tick, and Commands waiting for a tick to run in
+	private int unusedTime ;
+	private ArrayDeque<Integer> pendingCommands ;
+	
+	// Sprites to add to or remove from the level at the end of a tick, reused every tick
+	private ArrayList<Sprite> toAdd ;
+	private ArrayList<Sprite> toDestroy ;
+	private EnemyStep enemyStep ;
+	
+	// the Replay being recorded, if any, and the ticks run since it started
+	private Replay recording ;
+	private long recordedTicks ;
 	
 	private int width ;
 	private int height ;
 	private int levelNum ;
+	private String levelFile ;
 	private int moveCount ;
+	private int staticVersion ;
 	
 	private boolean playerIsDead ;
-	private boolean isDoorOpen ;
+	
+	// a number for each level started, and a snapshot of the level as it started, restored on a restart
+	private int levelSerial ;
+	private byte[] levelStart ;
 
 	/**
 	 * Creates a new game world, and opens the initial level of the game, starting
 	 * at the level number given as input.
 	 * 
 	 * @param levelNum	the number of the level to start the game at (should be 0)
-	 * @throws SlickException
 	 */
-	public World(int levelNum) throws SlickException {
+	public World(int levelNum) {
+		this(levelNum, true) ;
+	}
+	
+	/**
+	 * Creates a new game world, and opens the initial level of the game, starting
+	 * at the level number given as input. Headless Worlds which are run once and thrown away,
+	 * such as those running a Replay, need not prefetch the levels after their first.
+	 * 
+	 * @param levelNum			the number of the level to start the game at
+	 * @param prefetchLevels		a boolean indicating if each next level should be prepared in the background
+	 */
+	public World(int levelNum, boolean prefetchLevels) {
 		
 		this.levelNum = levelNum ;	
+		this.prefetchLevels = prefetchLevels ;
+		prefetcher = new LevelPrefetcher() ;
+		pendingCommands = new ArrayDeque<>() ;
+		toAdd = new ArrayList<>() ;
+		toDestroy = new ArrayList<>() ;
+		enemyStep = new EnemyStep() ;
 		startNewLevel() ;
 	}
+	
+	/**
+	 * Creates a new game world holding just the level in the given lvl file, such as a
+	 * generated level. Completing the level leaves the World on it rather than moving on.
+	 * 
+	 * @param levelFile	name of a lvl file containing level/Sprite data
+	 */
+	public World(String levelFile) {
 		
+		this.levelNum = LEVEL_MAX ;
+		this.levelFile = levelFile ;
+		prefetcher = new LevelPrefetcher() ;
+		pendingCommands = new ArrayDeque<>() ;
+		toAdd = new ArrayList<>() ;
+		toDestroy = new ArrayList<>() ;
+		enemyStep = new EnemyStep() ;
+		startNewLevel() ;
+	}
+	
 	/**
-	 * Delegates and performs necessary constant checks on the game world such as
-	 * reading user input and checking for player death.
+	 * Creates a new game world holding just the level parsed into the given LevelTemplate, whose
+	 * Sprites are built from the template on each start or restart rather than read from a file.
+	 * Completing the level leaves the World on it rather than moving on.
 	 * 
-	 * Updates each Sprite in the map by calling their respective update methods in order.
+	 * @param template	the parsed level to play, which may be shared with other Worlds
+	 */
+	public World(LevelTemplate template) {
+		
+		this.levelNum = LEVEL_MAX ;
+		this.levelFile = template.getName() ;
+		this.template = template ;
+		prefetcher = new LevelPrefetcher() ;
+		pendingCommands = new ArrayDeque<>() ;
+		toAdd = new ArrayList<>() ;
+		toDestroy = new ArrayList<>() ;
+		enemyStep = new EnemyStep() ;
+		startNewLevel() ;
+	}
+		
+	/**
+	 * Advances the World by the time passed in a frame, running one tick for each whole
+	 * TICK_LENGTH passed. The frame's Command is run in the next tick, waiting for a later
+	 * frame if no tick is due yet.
 	 * 
-     * @param input			The Slick user input object
+     * @param command		The Command given for this frame
      * @param delta			Time passed since last frame (milliseconds)
-	 * @throws SlickException 
 	 */
-	public void update(Input input, int delta) throws SlickException {
+	public void update(int command, int delta) {
+		
+		if (command != Command.NONE) {
+			pendingCommands.add(command) ;
+		}
+		
+		unusedTime += Math.min(delta, MAX_FRAME_TIME) ;
+		while (unusedTime >= TICK_LENGTH) {
+			unusedTime -= TICK_LENGTH ;
+			
+			Integer nextCommand = pendingCommands.poll() ;
+			tick( (nextCommand != null) ? nextCommand : Command.NONE ) ;
+		}
+	}
+	
+	/**
+	 * Runs one fixed-length tick of the World: delegates and performs necessary constant
+	 * checks on the game world such as acting on the tick's Command and checking for player death.
+	 * 
+	 * Runs each system over just the Sprites it acts on: first movement, over the units in the
+	 * level's EntityStore, updating each Player and then stepping each enemy allowed to move, as if
+	 * in order, in the level's EnemyStep; then explosions, over the explosive Sprites in the
+	 * EntityStore; then fires the timers of any timed Sprites due this tick.
+	 * 
+     * @param command		The Command given for this tick
+	 */
+	public void tick(int command) {
+		
+		if (recording != null) {
+			if (command != Command.NONE) {
+				recording.record(recordedTicks, command) ;
+			}
+			recordedTicks++ ;
+		}
 				
-		checkInput(input) ;
-		ArrayList<Sprite> toDestroy = new ArrayList<>() ;
-		ArrayList<Sprite> toAdd = new ArrayList<>() ;
-
-		for (Sprite sprite : spriteArray) {
+		checkInput(command) ;
+		toDestroy.clear() ;
+		toAdd.clear() ;
 
-			// perform generic sprite updates
-			sprite.update(input, delta, spriteArray) ;
+		// movement: update each Player, the only Sprites which act on Commands
+		EntityStore store = grid.getStore() ;
+		for (int i=0; i<store.getUnitCount(); i++) {
+			int slot = store.getUnit(i) ;
 			
 			/* Handle Player movement - if Player has requested a move, save game state *
 			 *     and allow movement, then set other Units to respond accordingly.     */
-			if (sprite instanceof Player) {
+			if (store.getType(slot) == EntityStore.TYPE_PLAYER) {
 				
-				Player player = (Player) sprite ;
+				Player player = (Player) store.getSpriteInSlot(slot) ;
+				player.update(command, TICK_LENGTH, grid) ;
 				if (player.getPlayerMoving()) {
 					saveGameState() ;
 					player.allowMove(true) ;
 					moveCount++ ;
 					
-					// tell other Units where Player is moving to
-					for (Unit unit : unitArray) {
-						unit.playerHasMoved(player.getNextPosition(), width, height) ;
+					// tell other Units where Player is moving to, and lead Mages there
+					field.setTarget(player.getNextPosition().getX(), player.getNextPosition().getY()) ;
+					for (int j=0; j<store.getUnitCount(); j++) {
+						((Unit) store.getSpriteInSlot(store.getUnit(j))).playerHasMoved(player.getNextPosition(), width, height) ;
 					}
 				}
 			}
 			/* ------------------------------------------------------------------------ */
-			
-			/* handle the opening of doors */
-			// check if this level's Switch is covered by a Block
-			if (sprite instanceof Switch) {
-				isDoorOpen = ((Switch) sprite).isCovered() ? true : false ;
-			}
-			// set this level's Door according to the above check
-			else if (sprite instanceof Door) {
-				Door door = (Door) sprite ;
-				door.openDoor(isDoorOpen) ;
+		}
+		
+		// then step every enemy allowed to move, with the Mages' field searched before any reads it
+		if (!partitions.getMages().isEmpty()) {
+			field.prepare() ;
+		}
+		enemyStep.run(partitions.getEnemies(), grid) ;
+		
+		// explosions: list Sprites set exploding this tick, and Explosions which have finished, for removal
+		for (int i=0; i<store.getExplosiveCount(); i++) {
+			int slot = store.getExplosive(i) ;
+			if (!store.hasFlag(slot, EntityStore.FLAG_ENDING)) {
+				continue ;
 			}
-			/* --------------------------- */
+			toDestroy.add(store.getSpriteInSlot(slot)) ;
 			
-			/* handle TNT and explosions */
-			// list any Sprite that is currently Exploding for removal
-			if (sprite.isExploding()) {
-				toDestroy.add(sprite) ;
-				
-				// create an Explosion Sprite if the exploding Sprite is a CrackedWall
-				if (sprite instanceof CrackedWall) {
-					int explosionX = sprite.getPosition().getX() ;
-					int explosionY = sprite.getPosition().getY() ;
-
-					toAdd.add(new Explosion(explosionX, explosionY)) ;
-				}
-			}
-			// list the Explosion Sprite for removal if it has finished exploding
-			if (sprite instanceof Explosion && ((Explosion) sprite).isExplosionOver() ) {
-				toDestroy.add(sprite) ;
+			// create an Explosion Sprite if the exploding Sprite is a CrackedWall
+			if (store.getType(slot) == EntityStore.TYPE_CRACKED_WALL) {
+				toAdd.add(new Explosion(store.getX(slot), store.getY(slot))) ;
 			}
-			/* ------------------------- */	
 		}
+		
+		// act for the timed Sprites due this tick
+		wheel.advance(grid) ;
+		
 		// add or remove listed Sprites
-		spriteArray.addAll(toAdd) ;
-		spriteArray.removeAll(toDestroy) ;
+		if (!toAdd.isEmpty()) {
+			spriteArray.addAll(toAdd) ;
+		}
+		if (!toDestroy.isEmpty()) {
+			spriteArray.removeAll(toDestroy) ;
+		}
+		for (Sprite sprite : toAdd) {
+			partitions.add(sprite) ;
+			grid.add(sprite) ;
+			noteStaticChange(sprite) ;
+			if (sprite instanceof Timed) {
+				((Timed) sprite).setWheel(wheel) ;
+			}
+		}
+		for (Sprite sprite : toDestroy) {
+			partitions.remove(sprite) ;
+			removeFromGrid(sprite) ;
+			noteStaticChange(sprite) ;
+		}
+		
+		// stream in the chunks of a large level now near the Player, and unload those far from it
+		if (chunks != null) {
+			chunks.update(wheel.getTick()) ;
+		}
 		
-		// check if Player died or the level was completed in the last update
-		Player deadPlayer = WorldChecker.getDeadPlayer(unitArray) ;
-		if (deadPlayer != null) {
-			killPlayer(deadPlayer) ;
+		// check if any Player died or the level was completed in the last update
+		ArrayList<Player> deadPlayers = grid.takeCollisions() ;
+		for (int i=0; i<deadPlayers.size(); i++) {
+			killPlayer(deadPlayers.get(i)) ;
 		}
-		if (WorldChecker.allTargetsCovered(spriteArray)) {
+		if (goals.allTargetsCovered()) {
 			finishLevel() ;
 		}
 	}
 	
 	/**
-	 * Renders each Sprite in the map by calling their render methods in order.
-	 * Also renders text relating to game states when appropriate.
-	 *
-	 * @param	g	The Slick graphics object, used for drawing
-	 * @throws SlickException
+	 * Returns the Sprites of the current level, in drawing order.
+	 * 
+	 * @return	the ArrayList of all Sprites in the level
+	 */
+	public ArrayList<Sprite> getSprites() {
+		return spriteArray ;
+	}
+	
+	/**
+	 * Finds the Player of the current level, for the camera to follow.
+	 * 
+	 * @return	the level's Player, or null if it has died
+	 */
+	public Player getPlayer() {
+		return partitions.getPlayer() ;
+	}
+	
+	/**
+	 * Returns the time the level has been played for, including time passed since the last tick,
+	 * so Sprites shown moving between tiles can be drawn smoothly.
+	 * 
+	 * @return	the time played on the current level (milliseconds)
+	 */
+	public long getTime() {
+		return (wheel.getTick() * TICK_LENGTH) + unusedTime ;
+	}
+	
+	/* getters */
+	public SpriteGrid getGrid() {
+		return grid ;
+	}
+	public SpritePartitions getPartitions() {
+		return partitions ;
+	}
+	public int getWidth() {
+		return width ;
+	}
+	public int getHeight() {
+		return height ;
+	}
+	public int getLevelNum() {
+		return levelNum ;
+	}
+	public int getMoveCount() {
+		return moveCount ;
+	}
+	public boolean isPlayerDead() {
+		return playerIsDead ;
+	}
+	/* ------- */
+	
+	/**
+	 * Returns the name of the lvl file holding the given level of the game.
+	 * 
+	 * @param levelNum	the number of the level
+	 * @return			name of the level's lvl file
+	 */
+	public static String getLevelName(int levelNum) {
+		return LEVEL_PREFIX + levelNum + LEVEL_SUFFIX ;
+	}
+	
+	/**
+	 * Shows if every Target of the level being played is covered. A World moving through the
+	 * levels of the game starts the next level in the same tick, but one holding a single level
+	 * stays on it, complete.
+	 * 
+	 * @return	a boolean indicating if the current level is complete
+	 */
+	public boolean isLevelComplete() {
+		return goals.allTargetsCovered() ;
+	}
+	
+	/**
+	 * Restarts the current level and starts recording every Command run from then on, with the
+	 * tick it ran in, into a Replay. The level is set back to the snapshot taken as it started
+	 * rather than loaded again, so recording from a World just created costs no second load.
+	 */
+	public void startRecording() {
+		restartLevel() ;
+		recording = new Replay(levelNum, levelFile) ;
+		recordedTicks = 0 ;
+	}
+	
+	/**
+	 * Returns the Replay being recorded, ended at the current tick with the World's current state.
+	 * Recording carries on, so the Replay can be taken again later.
+	 * 
+	 * @return	the Replay recorded since startRecording, or null if this World is not recording
+	 */
+	public Replay getRecording() {
+		if (recording != null) {
+			recording.finish(recordedTicks, getStateHash()) ;
+		}
+		return recording ;
+	}
+	
+	/**
+	 * Hashes the state of the level being played: its number, the move count, whether the Player
+	 * is dead, and the type, Position and state of every Sprite, in drawing order. Worlds which
+	 * have run the same Commands from the same level have the same hash.
+	 * 
+	 * @return	a hash of this World's current state
 	 */
-	public void render(Graphics g) throws SlickException {
+	public long getStateHash() {
+		long hash = HASH_SEED ;
+		hash = mix(hash, levelNum) ;
+		hash = mix(hash, moveCount) ;
+		hash = mix(hash, playerIsDead ? 1 : 0) ;
+		
 		for (Sprite sprite : spriteArray) {
-			sprite.render(width, height) ;
+			Position position = sprite.getPosition() ;
+			hash = mix(hash, sprite.getClass().getName().hashCode()) ;
+			hash = mix(hash, position.getX()) ;
+			hash = mix(hash, position.getY()) ;
+			hash = mix(hash, (sprite.stopsMovement() ? 1 : 0) | (sprite.isVisible() ? 2 : 0)) ;
+			if (sprite instanceof Unit) {
+				hash = mix(hash, ((Unit) sprite).getDirection()) ;
+			}
+		}
+		return hash ;
+	}
+	
+	/**
+	 * Saves the state of the level being played into a compact array of bytes, to be put back by
+	 * restore: the move count, whether the Player is dead, each Sprite in the level in drawing
+	 * order with its Position and any state it changes during play, the timers set on the level's
+	 * TimerWheel, and the moves on its MoveJournal. Sprites are saved by id rather than copied,
+	 * so a snapshot can only be restored into the level it was taken of.
+	 * 
+	 * @return	a snapshot of the level being played
+	 * @throws IllegalStateException	if the level is streamed by a ChunkStore, so not all in memory
+	 */
+	public byte[] snapshot() {
+		if (chunks != null) {
+			throw new IllegalStateException("cannot snapshot a streamed level") ;
 		}
 		
-		// draw count of Player's moves in the top left corner
-		g.drawString(MOVE_COUNT_TEXT + moveCount, TOP_CORNER_PIXEL, TOP_CORNER_PIXEL) ;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(spriteArray.size() * SNAPSHOT_SPRITE_SIZE) ;
+			DataOutputStream out = new DataOutputStream(bytes) ;
+			out.writeInt(SNAPSHOT_MAGIC) ;
+			out.writeInt(levelSerial) ;
+			out.writeInt(moveCount) ;
+			out.writeBoolean(playerIsDead) ;
+			out.writeInt(grid.getIdCount()) ;
+			
+			out.writeInt(spriteArray.size()) ;
+			for (int i=0; i<spriteArray.size(); i++) {
+				Sprite sprite = spriteArray.get(i) ;
+				out.writeInt(sprite.getId()) ;
+				out.writeShort(sprite.getX()) ;
+				out.writeShort(sprite.getY()) ;
+				sprite.writeState(out) ;
+			}
+			wheel.write(out) ;
+			journal.write(out) ;
+			out.flush() ;
+			return bytes.toByteArray() ;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e) ;
+		}
+	}
+	
+	/**
+	 * Puts the level being played back into the state saved in a snapshot. The level's Sprites are
+	 * set back in place, and those created since the snapshot, such as Explosions or the Player's
+	 * Blood, are dropped, so no Sprite is created or loaded; Sprites removed since, such as a dead
+	 * Player, are put back.
+	 * 
+	 * @param snapshot	a snapshot taken by snapshot of the level being played
+	 * @throws IllegalArgumentException	if the snapshot was not taken of the level being played
+	 * @throws IllegalStateException		if the level is streamed by a ChunkStore, so not all in memory
+	 */
+	public void restore(byte[] snapshot) {
+		if (chunks != null) {
+			throw new IllegalStateException("cannot restore a streamed level") ;
+		}
 		
-		// draw failed level text in the lower-center of the screen
-		if (playerIsDead) {			
-			float drawX = (App.SCREEN_WIDTH - g.getFont().getWidth(LOSE_TEXT)) / 2 ;
-			float drawY = App.SCREEN_HEIGHT - TEXT_BOTTOM_MODIFIER ;
-			g.drawString(LOSE_TEXT, drawX, drawY) ;
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot)) ;
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != levelSerial) {
+				throw new IllegalArgumentException("not a snapshot of the level being played") ;
+			}
+			moveCount = in.readInt() ;
+			playerIsDead = in.readBoolean() ;
+			int idCount = in.readInt() ;
+			
+			// take every Sprite out of the level, forgetting those created since the snapshot
+			for (int i=0; i<spriteArray.size(); i++) {
+				grid.remove(spriteArray.get(i)) ;
+			}
+			spriteArray.clear() ;
+			partitions.clear() ;
+			grid.forgetFrom(idCount) ;
+			
+			// set each Sprite back while it is out of the level, so nothing it sets is reported
+			int count = in.readInt() ;
+			for (int i=0; i<count; i++) {
+				Sprite sprite = grid.getSprite(in.readInt()) ;
+				int x = in.readShort() & SHORT_MASK ;
+				int y = in.readShort() & SHORT_MASK ;
+				if (!sprite.getPosition().isAt(x, y)) {
+					sprite.setSpritePosition(new Position(x, y)) ;
+				}
+				sprite.readState(in, grid) ;
+				spriteArray.add(sprite) ;
+			}
+			
+			// then add them back in drawing order, so they are sorted and stacked as when the level loaded
+			for (int i=0; i<spriteArray.size(); i++) {
+				partitions.add(spriteArray.get(i)) ;
+				grid.add(spriteArray.get(i)) ;
+			}
+			wheel.read(in, grid) ;
+			journal.read(in) ;
 		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e) ;
+		}
+		
+		// count the covered Targets and Switches again, which sets each Door to match
+		goals.recount(grid.getStore()) ;
+		board.refresh(partitions.getSwitches()) ;
+		field.clearTarget() ;
+		staticVersion++ ;
+	}
+	
+	/**
+	 * Converts a time to the number of whole ticks it lasts, rounding down.
+	 * 
+	 * @param time	the time to convert (milliseconds)
+	 * @return		the number of ticks in the time
+	 */
+	public static int toTicks(int time) {
+		return time / TICK_LENGTH ;
+	}
+	
+	/**
+	 * Returns a number which changes whenever the level's static Sprites change, such as when
+	 * a CrackedWall explodes or a new level starts, so cached drawings of them can be renewed.
+	 * 
+	 * @return	the version of the level's static Sprites
+	 */
+	public int getStaticVersion() {
+		return staticVersion ;
 	}
 	
-	private void startNewLevel() throws SlickException {
+	private void startNewLevel() {
 		/* Begins a new level at the current levelNum; resetting *
 		 * this World's data to match the read level file.       */
 
 		moveCount = 0 ;
-		isDoorOpen = false ;
+		staticVersion++ ;
 		playerIsDead = false ;
 
-		// read in lvl file
-		String levelName = LEVEL_PREFIX + levelNum + LEVEL_SUFFIX ;
-		String[] lines = Loader.loadSprites(levelName) ;
-		
-		// gather width and height from header row, and remove it
-		String[] header = lines[0].split(",") ;
-		width = Integer.parseInt(header[WIDTH_INDEX]) ;
-		height = Integer.parseInt(header[HEIGHT_INDEX]) ;
-		lines = Arrays.copyOfRange(lines, 1, lines.length) ;
-
-		// create an array of Sprites from the rest of the file, to represent the entire level
-		spriteArray = Loader.createSpriteArray(lines) ;
+		// take the level, already loaded and prepared in the background if it was prefetched
+		// a World built from a template builds a fresh copy of the level from it instead
+		String levelName = (levelFile != null) ? levelFile : getLevelName(levelNum) ;
+		LevelData level = (template != null) ? template.createLevel() : prefetcher.take(levelName) ;
+		width = level.getWidth() ;
+		height = level.getHeight() ;
 		
-		// create an array to hold pointers to just the Units in the level, for faster unit checks
-		unitArray = Loader.createUnitArray(spriteArray) ;
+		// swap in the level's Sprites, in drawing order, and the structures built over them
+		spriteArray = level.getSprites() ;
+		partitions = level.getPartitions() ;
+		unitArray = partitions.getUnits() ;
+		grid = level.getGrid() ;
+		field = level.getField() ;
+		journal = level.getJournal() ;
+		goals = level.getGoals() ;
+		board = level.getBoard() ;
+		wheel = level.getWheel() ;
+		levelSerial++ ;
 		
-		saveGameState() ;
+		// a streamed level's spill file is no longer needed once the level is left
+		if (chunks != null) {
+			chunks.close() ;
+		}
+		chunks = level.getChunks() ;
+		levelStart = (chunks == null) ? snapshot() : null ;
+		
+		// prepare the next level while this one is played, so finishing it needs no loading
+		if (prefetchLevels && levelFile == null && levelNum < LEVEL_MAX) {
+			prefetcher.prefetch(getLevelName(levelNum + 1)) ;
+		}
 	}
 	
-	private void checkInput(Input input) throws SlickException {
-		if (input.isKeyPressed(Input.KEY_R)) {
-			startNewLevel() ;
+	private void checkInput(int command) {
+		if (command == Command.RESTART) {
+			restartLevel() ;
 		}
-		else if (input.isKeyPressed(Input.KEY_Z)) {
+		else if (command == Command.UNDO) {
 			undoMove() ;
 		}
-		else if (input.isKeyPressed(Input.KEY_S)) {
+		else if (command == Command.SKIP_LEVEL) {
 			finishLevel() ;
 		}
 	}
 	
-	private void killPlayer(Player player) throws SlickException {
+	private void restartLevel() {
+		// a level held in memory is set back to its start, while a streamed level is loaded again
+		if (levelStart != null) {
+			restore(levelStart) ;
+		}
+		else {
+			startNewLevel() ;
+		}
+	}
+	
+	private void removeFromGrid(Sprite sprite) {
+		/* A Sprite leaving a level held in memory stays in the grid's store, for a snapshot *
+		 * restore to put back; a streamed level is never restored, so its store gives up   *
+		 * the Sprite's slot at once, keeping it to the size of the Sprites loaded.         */
+		if (chunks != null) {
+			grid.forget(sprite) ;
+		}
+		else {
+			grid.remove(sprite) ;
+		}
+	}
+	
+	private void killPlayer(Player player) {
 		
 		// remove Player from the level
 		playerIsDead = true ;
 		spriteArray.remove(player) ;
-		unitArray.remove(player) ;
+		partitions.remove(player) ;
+		removeFromGrid(player) ;
 		
-		// insert Blood Sprite into the level's spriteArray to render behind Units
-		Unit firstUnit = null ;
-		for (Sprite sprite : spriteArray) {
-			if (sprite instanceof Unit) {
-				firstUnit = (Unit) sprite ;
-				break ;
-			}
-		}
-		int bloodIndex = spriteArray.indexOf(firstUnit) ;
-		spriteArray.add(bloodIndex, new Blood(player.getPosition().getX(), player.getPosition().getY())) ;
+		// insert Blood Sprite into the level's spriteArray to render behind Units, the first of which leads the unit partition
+		int bloodIndex = unitArray.isEmpty() ? spriteArray.size() : spriteArray.indexOf(unitArray.get(0)) ;
+		Blood blood = new Blood(player.getPosition().getX(), player.getPosition().getY()) ;
+		spriteArray.add(bloodIndex, blood) ;
+		partitions.add(blood) ;
+		grid.add(blood) ;
 	}
 	
-	private void saveGameState() throws SlickException {
-		
-		for (Sprite sprite : spriteArray) {
-			
-			if (sprite instanceof Undoable) {
-				((Undoable) sprite).save() ;
-			}
+	private static long mix(long hash, int value) {
+		// folds one value into a 64 bit FNV-1a style hash
+		return (hash ^ value) * HASH_PRIME ;
+	}
+	
+	private void noteStaticChange(Sprite sprite) {
+		// a static Sprite joining or leaving the level changes the level's static drawing
+		if (sprite.isStatic()) {
+			staticVersion++ ;
 		}
 	}
 	
-	private void undoMove() throws SlickException {
-		// steps back the move Count and undoes every undoable Sprite
+	private void saveGameState() {
+		// begins a new move in the journal; Undoable Sprites record themselves as they change
+		journal.startMove() ;
+	}
+	
+	private void undoMove() {
+		// steps back the move Count and undoes every Sprite changed in the last move
 		if (moveCount > 0) {
 			moveCount-- ;
-			for (Sprite sprite : spriteArray) {
-				
-				if (sprite instanceof Undoable) {
-					((Undoable) sprite).undo() ;
-				}
-			}
+			journal.undoMove() ;
 		}
 	}
 	
-	private void finishLevel() throws SlickException {
+	private void finishLevel() {
 		if (levelNum < LEVEL_MAX) {
 			levelNum ++ ;
 			startNewLevel() ;
@@ -1,5 +1,3 @@
-import java.util.ArrayList ;
-
 /**
  * Static class containing methods which take variables from World and perform operations
  * to check states or find specific Sprites or Positions
@@ -18,34 +16,54 @@ public class WorldChecker {
 	 * but can be interacted with, then floor Sprites.
 	 * 
 	 * @param position		the Position to check for a significant Sprite
-     * @param spriteArray	ArrayList of all Sprites in the level
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
 	 * @return			the Sprite in the Position given that most impairs movement
 	 */
-	public static Sprite getSignificantSprite (Position position, ArrayList<Sprite> spriteArray) {
-		Sprite defaultSprite = null ;
-		Sprite goalSprite = null ;
-		for (Sprite sprite : spriteArray) {
-			if (position.equals(sprite.getPosition())) {
-				// if the Sprite on this position stops movement or is a Block, return it
-				if (sprite.stopsMovement() || sprite instanceof Block) {
-					return sprite ;
-				}
-				// if it is interactable, save it for final return
-				else if (sprite instanceof Switch || sprite instanceof Block) {
-					goalSprite = sprite ;
-				}
-				// if it is neither, save it for default return
-				else {
-					defaultSprite = sprite ;
-				}
-			}
+	public static Sprite getSignificantSprite (Position position, SpriteGrid grid) {
+		return grid.getSignificantSprite(position.getX(), position.getY()) ;
+	}
+	
+	/**
+	 * Finds the most significant Sprite in terms of movement from the given tile coordinates,
+	 * as getSignificantSprite does for a Position.
+	 * 
+	 * @param x				the x coordinate of the tile
+	 * @param y				the y coordinate of the tile
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return			the Sprite on the tile that most impairs movement
+	 */
+	public static Sprite getSignificantSprite (int x, int y, SpriteGrid grid) {
+		return grid.getSignificantSprite(x, y) ;
+	}
+	
+	/**
+	 * Casts along the grid from a sliding Sprite's tile in the given direction, and counts the
+	 * tiles it slides over before a Sprite that stops movement, or a Block, stops it. A tile off
+	 * the map or in a chunk not loaded stops the slide like a Wall.
+	 * 
+	 * @param x				the x coordinate of the tile the slide starts from
+	 * @param y				the y coordinate of the tile the slide starts from
+	 * @param direction		the direction of the slide
+	 * @param grid			SpriteGrid indexing all Sprites in the level by tile
+	 * @return			the number of tiles slid, 0 if the next tile stops the slide
+	 */
+	public static int findSlideLength(int x, int y, int direction, SpriteGrid grid) {
+		if (direction == Sprite.NO_DIRECTION) {
+			return 0 ;
 		}
-		// if a goal Sprite was found, return that
-		if (goalSprite != null) {
-			return goalSprite ;
+		
+		int length = 0 ;
+		int nextX = getNextX(x, direction) ;
+		int nextY = getNextY(y, direction) ;
+		Sprite nextSprite = grid.getSignificantSprite(nextX, nextY) ;
+		
+		while (!(nextSprite.stopsMovement() || nextSprite instanceof Block)) {
+			length++ ;
+			nextX = getNextX(nextX, direction) ;
+			nextY = getNextY(nextY, direction) ;
+			nextSprite = grid.getSignificantSprite(nextX, nextY) ;
 		}
-		// if no significant Sprites were found, return the non-significant Sprite from that tile
-		return defaultSprite ;
+		return length ;
 	}
 	
 	/**
@@ -56,89 +74,54 @@ public class WorldChecker {
 	 */
 	public static Position getNextPosition(Position currentPosition, int direction) {
 		
-		int currentX = currentPosition.getX() ;
-		int currentY = currentPosition.getY() ;
+		// default case is no movement
+		if (direction == Sprite.NO_DIRECTION) {
+			return currentPosition ;
+		}
+		return new Position(getNextX(currentPosition.getX(), direction), getNextY(currentPosition.getY(), direction)) ;
+	}
+	
+	/**
+	 * Takes an x coordinate and a direction, and returns the x coordinate one tile along in that
+	 * direction, as getNextPosition does without creating a Position.
+	 * @param currentX		the x coordinate from which to move
+	 * @param direction		the direction in which to move
+	 * @return			the x coordinate of the Position one tile in the direction given
+	 */
+	public static int getNextX(int currentX, int direction) {
 		
 		switch (direction) {
-			case Sprite.DIRECTION_UP :
-				return new Position(currentX, currentY + TILE_NUM_DOWN) ;
-			
-			case Sprite.DIRECTION_DOWN :
-				return new Position(currentX, currentY + TILE_NUM_UP) ;
-				
 			case Sprite.DIRECTION_LEFT :
-				return new Position(currentX + TILE_NUM_DOWN, currentY) ;
+				return currentX + TILE_NUM_DOWN ;
 			
 			case Sprite.DIRECTION_RIGHT :
-				return new Position(currentX + TILE_NUM_UP, currentY) ;
+				return currentX + TILE_NUM_UP ;
 				
-			// default case is no movement
+			// other directions do not move along the x axis
 			default :
-				return currentPosition ;
+				return currentX ;
 		}
 	}
 	
 	/**
-	 * Checks each target in a level; returns true if every one of them is covered by a Block.
-	 * 
-	 * @param spriteArray		ArrayList of all Sprites in the level, to check Blocks
-	 * @return				a boolean indicating if every Target in the level is covered
+	 * Takes a y coordinate and a direction, and returns the y coordinate one tile along in that
+	 * direction, as getNextPosition does without creating a Position.
+	 * @param currentY		the y coordinate from which to move
+	 * @param direction		the direction in which to move
+	 * @return			the y coordinate of the Position one tile in the direction given
 	 */
-	public static boolean allTargetsCovered(ArrayList<Sprite> spriteArray) {
-		
-		int coveredCount = 0 ;
-		int totalTargets = 0 ;
+	public static int getNextY(int currentY, int direction) {
 		
-		for (Sprite sprite : spriteArray) {
+		switch (direction) {
+			case Sprite.DIRECTION_UP :
+				return currentY + TILE_NUM_DOWN ;
 			
-			if (sprite instanceof Target) {
-				totalTargets++ ;
-				
-				if ( ((Target) sprite).isCovered() ) {
-					coveredCount++ ;
-				}
-			}
-		}
-				
-		if (coveredCount == totalTargets) {
-			return true ;
-		}
-		else {
-			return false ;
-		}
-
-	}
-
-	/**
-	 * Checks if Player is currently on the same tile as any other Units, meaning that the
-	 * Player is 'dead'. Returns the dead Player, or null if the Player is alive.
-	 * 
-	 * @param unitArray	ArrayList of all Units in the level
-	 * @return		the dead Player, or null if Player is alive
-	 */
-	public static Player getDeadPlayer (ArrayList<Unit> unitArray) {
-				
-		/* Performs a loop through the unitArray to find Player, then checks Player  *
-		 * against every other Unit in the Array. If any Units are in the same       *
-		 * Position as Player, returns the Player                                    */
-		
-		for (int i=0; i<unitArray.size(); i++) {
-			// find Player
-			if (unitArray.get(i) instanceof Player) {
-				Player player = (Player) unitArray.get(i) ;
-				Position playerPosition = player.getPosition() ;
+			case Sprite.DIRECTION_DOWN :
+				return currentY + TILE_NUM_UP ;
 				
-				for (int j=0; j<unitArray.size(); j++) {
-					Position unitPosition = unitArray.get(j).getPosition() ;
-					
-					// check Unit Positions against Player Position
-					if ( (i != j) && unitPosition.equals(playerPosition) ) {
-						return player ;
-					}
-				}
-			}
+			// other directions do not move along the y axis
+			default :
+				return currentY ;
 		}
-		
-		return null ;
 	}
 }
\ No newline at end of file
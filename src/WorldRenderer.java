@@ -0,0 +1,204 @@
+import java.util.ArrayList ;
+import java.util.HashMap ;
+
+import org.newdawn.slick.Graphics ;
+import org.newdawn.slick.Image ;
+import org.newdawn.slick.SlickException ;
+
+/**
+ * Draws the current state of a World using Slick.
+ * 
+ * Keeps the game logic free of Slick: Sprites only know the location of their image file,
+ * and the renderer draws each from a TextureAtlas holding every image in res, so all Sprites
+ * are drawn in drawing order as one batch from one texture. Images from elsewhere are looked up
+ * in the TextureCache instead. Also draws text relating to game states when appropriate.
+ * 
+ * Only the part of the map in view of the renderer's Camera is drawn. The Sprites which can change
+ * are drawn layer by layer from the drawable component of the level's EntityStore, reading each
+ * one's layer and tile from the store's columns and drawing just those on screen. Sprites shown
+ * moving, such as sliding Ice, are drawn part way between tiles, so sliding Ice is also drawn
+ * while its path crosses the screen, wherever it ends.
+ * 
+ * Static Sprites such as Walls and Floors are drawn into an offscreen background Image covering
+ * the tiles on screen, redrawn only when the camera moves onto other tiles or the World reports
+ * its static Sprites have changed, so each frame draws that Image and then just the Sprites
+ * which can change.
+ * 
+ * @author Maxim Kirkman
+ *
+ */
+public class WorldRenderer {
+
+	private static final String MOVE_COUNT_TEXT = "Moves: " ;
+	private static final String LOSE_TEXT = "YOU FAILED - PRESS R TO TRY AGAIN" ;
+	private static final int TEXT_BOTTOM_MODIFIER = 100 ;
+	private static final int TOP_CORNER_PIXEL = 0 ;
+	
+	// the most columns and rows of tiles which can be partly on screen at once
+	private static final int VIEW_COLUMNS = (App.SCREEN_WIDTH / App.TILE_SIZE) + 2 ;
+	private static final int VIEW_ROWS = (App.SCREEN_HEIGHT / App.TILE_SIZE) + 2 ;
+	
+	private TextureAtlas atlas ;
+	private HashMap<String, Image> images ;
+	private Camera camera ;
+	
+	// the static Sprites on screen when the background is drawn, reused each time
+	private ArrayList<Sprite> visible ;
+	
+	// the static Sprites on screen of the last World drawn, the version of them it holds,
+	// and the top-left tile it starts from
+	private Image background ;
+	private World backgroundWorld ;
+	private int backgroundVersion ;
+	private int backgroundColumn ;
+	private int backgroundRow ;
+	
+	/**
+	 * Creates a WorldRenderer, packing every image in res into its TextureAtlas.
+	 * Must be called on the render thread.
+	 * 
+	 * @throws SlickException
+	 */
+	public WorldRenderer() throws SlickException {
+		atlas = new TextureAtlas() ;
+		images = new HashMap<>() ;
+		camera = new Camera() ;
+		visible = new ArrayList<>() ;
+	}
+	
+	/**
+	 * Moves the camera to follow the Player, then renders the static background of the tiles
+	 * on screen, then each other Sprite on them, or any Ice sliding onto the screen from a tile
+	 * off it, layer by layer, then any game state text.
+	 * 
+	 * @param world		the World to draw
+	 * @param g			The Slick graphics object, used for drawing
+	 * @throws SlickException
+	 */
+	public void render(World world, Graphics g) throws SlickException {
+		camera.follow(world) ;
+		int firstColumn = camera.getFirstColumn() ;
+		int firstRow = camera.getFirstRow() ;
+		
+		// redraw the cached background only when new tiles are on screen or static Sprites have changed
+		if (background == null || world != backgroundWorld || world.getStaticVersion() != backgroundVersion
+				|| firstColumn != backgroundColumn || firstRow != backgroundRow) {
+			drawBackground(world, firstColumn, firstRow) ;
+		}
+		background.draw((firstColumn * App.TILE_SIZE) - camera.getLeft(), (firstRow * App.TILE_SIZE) - camera.getTop()) ;
+		
+		// draw every other Sprite on screen as one batch of quads from the atlas texture, layer by layer
+		long time = world.getTime() ;
+		int lastColumn = camera.getLastColumn() ;
+		int lastRow = camera.getLastRow() ;
+		EntityStore store = world.getGrid().getStore() ;
+		int drawableCount = store.getDrawableCount() ;
+		atlas.startUse() ;
+		for (int layer : SpriteGrid.DRAW_ORDER) {
+			for (int i=0; i<drawableCount; i++) {
+				int slot = store.getDrawable(i) ;
+				if (store.getLayer(slot) != layer) {
+					continue ;
+				}
+				
+				// Ice already resting on a tile off screen may still be drawn sliding across it
+				int x = store.getX(slot) ;
+				int y = store.getY(slot) ;
+				boolean onScreen = x >= firstColumn && x <= lastColumn && y >= firstRow && y <= lastRow ;
+				if (onScreen || (store.getType(slot) == EntityStore.TYPE_ICE
+						&& ((Ice) store.getSpriteInSlot(slot)).isDrawnSliding(time))) {
+					Sprite sprite = store.getSpriteInSlot(slot) ;
+					if (sprite.isVisible()) {
+						drawSprite(sprite, time) ;
+					}
+				}
+			}
+		}
+		atlas.endUse() ;
+		
+		// draw count of Player's moves in the top left corner
+		g.drawString(MOVE_COUNT_TEXT + world.getMoveCount(), TOP_CORNER_PIXEL, TOP_CORNER_PIXEL) ;
+		
+		// draw failed level text in the lower-center of the screen
+		if (world.isPlayerDead()) {
+			float drawX = (App.SCREEN_WIDTH - g.getFont().getWidth(LOSE_TEXT)) / 2 ;
+			float drawY = App.SCREEN_HEIGHT - TEXT_BOTTOM_MODIFIER ;
+			g.drawString(LOSE_TEXT, drawX, drawY) ;
+		}
+	}
+	
+	/**
+	 * Frees the atlas, and gives up this renderer's hold on every other Image it has drawn.
+	 * 
+	 * @throws SlickException
+	 */
+	public void release() throws SlickException {
+		atlas.destroy() ;
+		if (background != null) {
+			background.destroy() ;
+			background = null ;
+		}
+		for (String imageSource : images.keySet()) {
+			TextureCache.release(imageSource) ;
+		}
+		images.clear() ;
+	}
+	
+	private void drawBackground(World world, int firstColumn, int firstRow) throws SlickException {
+		/* Draws every static Sprite on the tiles in view into the background Image, *
+		 * with the given top-left tile at the Image's top-left corner.               */
+		
+		if (background == null) {
+			background = new Image(VIEW_COLUMNS * App.TILE_SIZE, VIEW_ROWS * App.TILE_SIZE) ;
+		}
+		
+		Graphics graphics = background.getGraphics() ;
+		graphics.clear() ;
+		world.getGrid().getSpritesInArea(firstColumn, firstRow,
+				firstColumn + VIEW_COLUMNS - 1, firstRow + VIEW_ROWS - 1, visible) ;
+		for (int i=0; i<visible.size(); i++) {
+			Sprite sprite = visible.get(i) ;
+			if (sprite.isVisible() && sprite.isStatic()) {
+				String imageSource = sprite.getImageSource() ;
+				Image image = atlas.contains(imageSource) ? atlas.getImage(imageSource) : getImage(imageSource) ;
+				
+				float centerX = ((sprite.getX() - firstColumn) * App.TILE_SIZE) + (App.TILE_SIZE /2) ;
+				float centerY = ((sprite.getY() - firstRow) * App.TILE_SIZE) + (App.TILE_SIZE /2) ;
+				graphics.drawImage(image, centerX - (image.getWidth() /2), centerY - (image.getHeight() /2)) ;
+			}
+		}
+		graphics.flush() ;
+		
+		backgroundWorld = world ;
+		backgroundVersion = world.getStaticVersion() ;
+		backgroundColumn = firstColumn ;
+		backgroundRow = firstRow ;
+	}
+	
+	private void drawSprite(Sprite sprite, long time) throws SlickException {
+		// draws one Sprite where it is shown at the given time, within the atlas batch
+		float pixelX = camera.toScreenX(sprite.getDrawX(time)) ;
+		float pixelY = camera.toScreenY(sprite.getDrawY(time)) ;
+		String imageSource = sprite.getImageSource() ;
+		
+		if (atlas.contains(imageSource)) {
+			atlas.drawCentered(imageSource, pixelX, pixelY) ;
+		}
+		// an image outside the atlas needs its own texture, so briefly break the batch
+		else {
+			atlas.endUse() ;
+			getImage(imageSource).drawCentered(pixelX, pixelY) ;
+			atlas.startUse() ;
+		}
+	}
+	
+	private Image getImage(String imageSource) throws SlickException {
+		// take a hold on each file's shared Image the first time it is drawn
+		Image image = images.get(imageSource) ;
+		if (image == null) {
+			image = TextureCache.acquire(imageSource) ;
+			images.put(imageSource, image) ;
+		}
+		return image ;
+	}
+}